@@ -0,0 +1,57 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.checksum;
+
+import org.apache.commons.vfs2.FileObject;
+
+import com.norconex.collector.core.checksum.IMetadataChecksummer;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.commons.lang.map.Properties;
+
+/**
+ * A metadata checksummer that also has access to the file being processed
+ * and to the crawl data obtained for that file on the previous run (if any).
+ * When the configured metadata checksummer implements this interface,
+ * the filesystem collector invokes
+ * {@link #createMetadataChecksum(FileObject, Properties, BaseCrawlData)}
+ * instead of {@link #createMetadataChecksum(Properties)}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public interface IFileMetadataChecksummer extends IMetadataChecksummer {
+
+    /**
+     * Creates a metadata checksum for the given file.
+     * @param fileObject the file for which to create a checksum
+     * @param metadata all metadata fields obtained for the file so far
+     * @param cachedCrawlData crawl data from the previous run or
+     *        <code>null</code> if the file was never crawled before
+     * @return a checksum value
+     */
+    String createMetadataChecksum(FileObject fileObject,
+            Properties metadata, BaseCrawlData cachedCrawlData);
+
+    /**
+     * Whether a new checksum created by this checksummer identifies an
+     * unmodified file even though it differs from the previous one
+     * (e.g., same content with a new modified date).  The new checksum
+     * is then kept for the next run while the file is not considered
+     * modified.
+     * @param checksum checksum created for the current run
+     * @param previousChecksum checksum from the previous run
+     * @return <code>true</code> if the file is unmodified
+     */
+    boolean isUnmodified(String checksum, String previousChecksum);
+}
@@ -0,0 +1,691 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.checksum.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.apache.commons.vfs2.provider.local.LocalFileName;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.core.checksum.AbstractMetadataChecksummer;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.doc.CollectorMetadata;
+import com.norconex.collector.fs.checksum.IFileMetadataChecksummer;
+import com.norconex.collector.fs.doc.FileMetadata;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
+
+/**
+ * <p>Metadata checksummer detecting file changes by looking at the file
+ * content, so that files having their modified date changed without their
+ * content being modified (e.g., after being restored from a backup) are
+ * not considered modified.</p>
+ *
+ * <p>The checksum is made of the file last modified date, its size and
+ * a hash of its content, separated with underscores
+ * (e.g. "14125443181234_123_crc32-1a2b3c4d"). The content is only read
+ * when the last modified date or size differ from the previous crawl.
+ * When only the last modified date has changed and the content hash is
+ * the same, the file is not considered modified and the new checksum
+ * (with the new date) is kept so the content is not read again on the
+ * next crawl.</p>
+ *
+ * <p>The hashing algorithm can be <code>CRC32</code> (default),
+ * <code>ADLER32</code>, or any {@link MessageDigest} algorithm supported
+ * by your JVM (e.g. <code>MD5</code>, <code>SHA-256</code>).
+ * Non-cryptographic algorithms are much faster and are sufficient for
+ * change detection.</p>
+ *
+ * <p>Content is hashed in chunks of <code>chunkSize</code> bytes, each
+ * chunk being hashed on its own before being combined. Local files
+ * bigger than <code>parallelThreshold</code> have their chunks
+ * hashed in parallel, using up to <code>threads</code> threads
+ * (shared by all crawler threads). Other files are read sequentially.
+ * </p>
+ *
+ * <p>For very large files where reading all content is too expensive
+ * (e.g. virtual machine images, videos, database dumps), you can
+ * set <code>sampled</code> to <code>true</code>. Only the first and last
+ * <code>sampleSize</code> bytes are then hashed, along with
+ * <code>sampleCount</code> blocks of the same size evenly spaced
+ * in between and the file size. Samples are read using random access
+ * when supported by the file system. Files too small to hold all samples
+ * are hashed entirely. Sampled checksums can miss modifications falling
+ * between samples.</p>
+ *
+ * <p>When no file is available to this checksummer, it behaves
+ * like {@link FileMetadataChecksummer}.</p>
+ *
+ * <h3>XML configuration usage:</h3>
+ * <pre>
+ *  &lt;metadataChecksummer
+ *      class="com.norconex.collector.fs.checksum.impl.FileContentChecksummer"
+ *      algorithm="[CRC32|ADLER32|(any MessageDigest algorithm)]"
+ *      bufferSize="(read buffer size in bytes)"
+ *      chunkSize="(size in bytes of chunks hashed independently)"
+ *      parallelThreshold="(minimum local file size for parallel hashing)"
+ *      threads="(maximum number of threads hashing chunks)"
+ *      sampled="[false|true]"
+ *      sampleCount="(number of blocks sampled between head and tail)"
+ *      sampleSize="(size in bytes of each sampled block)"
+ *      keep="[false|true]"
+ *      targetField="(field to store checksum)" /&gt;
+ * </pre>
+ * <h4>Usage example:</h4>
+ * <p>
+ * The following hashes local files of 100MB or more using 4 threads.
+ * </p>
+ * <pre>
+ *  &lt;metadataChecksummer
+ *      class="com.norconex.collector.fs.checksum.impl.FileContentChecksummer"
+ *      parallelThreshold="104857600" threads="4" /&gt;
+ * </pre>
+ * <p>
+ * The following only hashes 10 blocks of 1MB from each file.
+ * </p>
+ * <pre>
+ *  &lt;metadataChecksummer
+ *      class="com.norconex.collector.fs.checksum.impl.FileContentChecksummer"
+ *      sampled="true" sampleCount="8" sampleSize="1048576" /&gt;
+ * </pre>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class FileContentChecksummer extends AbstractMetadataChecksummer
+        implements IFileMetadataChecksummer {
+
+    private static final Logger LOG =
+            LogManager.getLogger(FileContentChecksummer.class);
+
+    public static final String ALGORITHM_CRC32 = "CRC32";
+    public static final String ALGORITHM_ADLER32 = "ADLER32";
+
+    public static final String DEFAULT_ALGORITHM = ALGORITHM_CRC32;
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 256L * 1024 * 1024;
+    public static final int DEFAULT_THREADS = 1;
+    public static final int DEFAULT_SAMPLE_COUNT = 8;
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    private String algorithm = DEFAULT_ALGORITHM;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private long parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private int threads = DEFAULT_THREADS;
+    private boolean sampled;
+    private int sampleCount = DEFAULT_SAMPLE_COUNT;
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+    private transient ExecutorService executor;
+
+    @Override
+    public String createMetadataChecksum(FileObject fileObject,
+            Properties metadata, BaseCrawlData cachedCrawlData) {
+        String checksum = doCreateFileChecksum(
+                fileObject, metadata, cachedCrawlData);
+        if (isKeep()) {
+            String field = getTargetField();
+            if (StringUtils.isBlank(field)) {
+                field = CollectorMetadata.COLLECTOR_CHECKSUM_METADATA;
+            }
+            metadata.addString(field, checksum);
+            LOG.debug("Meta checksum stored in " + field);
+        }
+        return checksum;
+    }
+
+    @Override
+    protected String doCreateMetaChecksum(Properties metadata) {
+        return metadata.getString(FileMetadata.COLLECTOR_LASTMODIFIED)
+                + "_" + metadata.getString(FileMetadata.COLLECTOR_SIZE);
+    }
+
+    private String doCreateFileChecksum(FileObject fileObject,
+            Properties metadata, BaseCrawlData cachedCrawlData) {
+        String lastModified =
+                metadata.getString(FileMetadata.COLLECTOR_LASTMODIFIED);
+        String size = metadata.getString(FileMetadata.COLLECTOR_SIZE);
+        if (fileObject == null) {
+            return lastModified + "_" + size;
+        }
+        String previous = null;
+        if (cachedCrawlData != null) {
+            previous = cachedCrawlData.getMetaChecksum();
+        }
+        String prefix = lastModified + "_" + size + "_";
+        if (previous != null && previous.startsWith(prefix)) {
+            return previous;
+        }
+
+        String hash;
+        try {
+            hash = hash(fileObject);
+        } catch (IOException e) {
+            throw new CollectorException(
+                    "Could not create content checksum for: "
+                            + fileObject.getName().getURI(), e);
+        }
+        String checksum = prefix + hash;
+        if (LOG.isDebugEnabled() && isUnmodified(checksum, previous)) {
+            LOG.debug("Content unchanged despite modified date: "
+                    + fileObject.getName().getURI());
+        }
+        return checksum;
+    }
+
+    /**
+     * Whether both checksums have the same size and content hash,
+     * regardless of their last modified date.
+     * @param checksum checksum created for the current run
+     * @param previousChecksum checksum from the previous run
+     * @return <code>true</code> if the file content is unmodified
+     */
+    @Override
+    public boolean isUnmodified(String checksum, String previousChecksum) {
+        // Dates and sizes are numbers: the hash follows the 2nd underscore
+        if (StringUtils.countMatches(checksum, '_') < 2
+                || previousChecksum == null) {
+            return false;
+        }
+        return StringUtils.substringAfter(checksum, "_").equals(
+                StringUtils.substringAfter(previousChecksum, "_"));
+    }
+
+    private String hash(FileObject fileObject) throws IOException {
+        String label = StringUtils.lowerCase(algorithm, Locale.ENGLISH);
+        File localFile = null;
+        if (fileObject instanceof LocalFile) {
+            LocalFileName name = (LocalFileName) fileObject.getName();
+            localFile = new File(name.getRootFile() + name.getPathDecoded());
+        }
+        if (sampled) {
+            long size = fileObject.getContent().getSize();
+            if (size > (sampleCount + 2L) * sampleSize) {
+                return label + "s-"
+                        + toHex(hashSamples(fileObject, localFile, size));
+            }
+        }
+        if (localFile != null) {
+            return label + "-" + toHex(hashLocalFile(localFile));
+        }
+        try (InputStream is = fileObject.getContent().getInputStream()) {
+            return label + "-" + toHex(hashStream(is));
+        }
+    }
+
+    // Head, tail and evenly spaced blocks in between, plus the file size.
+    private byte[] hashSamples(FileObject fileObject, File localFile,
+            long size) throws IOException {
+        long[] offsets = new long[sampleCount + 2];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (size - sampleSize) * i / (offsets.length - 1);
+        }
+        Hasher hasher = newHasher();
+        byte[] buffer = new byte[sampleSize];
+        if (localFile != null) {
+            try (FileChannel channel = FileChannel.open(
+                    localFile.toPath(), StandardOpenOption.READ)) {
+                for (long offset : offsets) {
+                    ByteBuffer bb = ByteBuffer.wrap(buffer);
+                    while (bb.hasRemaining()) {
+                        if (channel.read(bb, offset + bb.position()) == -1) {
+                            break;
+                        }
+                    }
+                    hasher.update(buffer, 0, bb.position());
+                }
+            }
+        } else if (fileObject.getFileSystem().hasCapability(
+                Capability.RANDOM_ACCESS_READ)) {
+            RandomAccessContent content = fileObject.getContent()
+                    .getRandomAccessContent(RandomAccessMode.READ);
+            try {
+                for (long offset : offsets) {
+                    content.seek(offset);
+                    content.readFully(buffer);
+                    hasher.update(buffer, 0, buffer.length);
+                }
+            } finally {
+                content.close();
+            }
+        } else {
+            try (InputStream is = fileObject.getContent().getInputStream()) {
+                long position = 0;
+                for (long offset : offsets) {
+                    IOUtils.skipFully(is, offset - position);
+                    int read = IOUtils.read(is, buffer);
+                    hasher.update(buffer, 0, read);
+                    position = offset + read;
+                }
+            }
+        }
+        byte[] sizeBytes = ByteBuffer.allocate(8).putLong(size).array();
+        hasher.update(sizeBytes, 0, sizeBytes.length);
+        return hasher.digest();
+    }
+
+    private byte[] hashStream(InputStream is) throws IOException {
+        List<byte[]> chunkDigests = new ArrayList<>();
+        byte[] buffer = new byte[bufferSize];
+        Hasher hasher = newHasher();
+        long inChunk = 0;
+        int read;
+        while ((read = is.read(buffer, 0, (int) Math.min(
+                buffer.length, chunkSize - inChunk))) != -1) {
+            hasher.update(buffer, 0, read);
+            inChunk += read;
+            if (inChunk == chunkSize) {
+                chunkDigests.add(hasher.digest());
+                hasher = newHasher();
+                inChunk = 0;
+            }
+        }
+        if (inChunk > 0 || chunkDigests.isEmpty()) {
+            chunkDigests.add(hasher.digest());
+        }
+        return combine(chunkDigests);
+    }
+
+    private byte[] hashLocalFile(File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(
+                    1, (size + chunkSize - 1) / chunkSize);
+            List<byte[]> chunkDigests = new ArrayList<>(chunkCount);
+            if (threads <= 1 || chunkCount == 1 || size < parallelThreshold) {
+                for (int i = 0; i < chunkCount; i++) {
+                    long start = i * chunkSize;
+                    chunkDigests.add(hashRange(channel,
+                            start, Math.min(size, start + chunkSize)));
+                }
+                return combine(chunkDigests);
+            }
+
+            List<Future<byte[]>> futures = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                final long start = i * chunkSize;
+                final long end = Math.min(size, start + chunkSize);
+                futures.add(getExecutor().submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return hashRange(channel, start, end);
+                    }
+                }));
+            }
+            try {
+                for (Future<byte[]> future : futures) {
+                    chunkDigests.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while hashing: " + file, e);
+            } catch (ExecutionException e) {
+                throw new IOException("Could not hash: " + file, e.getCause());
+            } finally {
+                for (Future<byte[]> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return combine(chunkDigests);
+        }
+    }
+
+    // Positional reads so several threads can share the same channel.
+    private byte[] hashRange(FileChannel channel, long start, long end)
+            throws IOException {
+        Hasher hasher = newHasher();
+        byte[] array = new byte[(int) Math.max(1, Math.min(
+                bufferSize, end - start))];
+        ByteBuffer buffer = ByteBuffer.wrap(array);
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(array.length, end - position));
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                break;
+            }
+            hasher.update(array, 0, read);
+            position += read;
+        }
+        return hasher.digest();
+    }
+
+    private byte[] combine(List<byte[]> chunkDigests) {
+        if (chunkDigests.size() == 1) {
+            return chunkDigests.get(0);
+        }
+        Hasher hasher = newHasher();
+        for (byte[] digest : chunkDigests) {
+            hasher.update(digest, 0, digest.length);
+        }
+        return hasher.digest();
+    }
+
+    private Hasher newHasher() {
+        if (ALGORITHM_CRC32.equalsIgnoreCase(algorithm)) {
+            return new ChecksumHasher(new CRC32());
+        }
+        if (ALGORITHM_ADLER32.equalsIgnoreCase(algorithm)) {
+            return new ChecksumHasher(new Adler32());
+        }
+        try {
+            return new DigestHasher(MessageDigest.getInstance(algorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new CollectorException(
+                    "Unsupported checksum algorithm: " + algorithm, e);
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads,
+                    new BasicThreadFactory.Builder()
+                            .namingPattern("content-checksum-%d")
+                            .daemon(true)
+                            .build());
+        }
+        return executor;
+    }
+    private synchronized void resetExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder b = new StringBuilder(bytes.length * 2);
+        for (byte bt : bytes) {
+            b.append(Character.forDigit((bt >> 4) & 0xF, 16));
+            b.append(Character.forDigit(bt & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    /**
+     * Gets the hashing algorithm.
+     * @return algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    /**
+     * Sets the hashing algorithm. One of <code>CRC32</code>,
+     * <code>ADLER32</code>, or a {@link MessageDigest} algorithm name.
+     * @param algorithm algorithm
+     */
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Gets the size of the buffer used to read content.
+     * @return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    /**
+     * Sets the size of the buffer used to read content.
+     * @param bufferSize buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Gets the size of content chunks hashed independently.
+     * @return chunk size in bytes
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+    /**
+     * Sets the size of content chunks hashed independently.
+     * Changing it changes the checksum of files bigger than the chunk size.
+     * @param chunkSize chunk size in bytes
+     */
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Gets the minimum size a local file must have to have its chunks
+     * hashed in parallel.
+     * @return size in bytes
+     */
+    public long getParallelThreshold() {
+        return parallelThreshold;
+    }
+    /**
+     * Sets the minimum size a local file must have to have its chunks
+     * hashed in parallel.
+     * @param parallelThreshold size in bytes
+     */
+    public void setParallelThreshold(long parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Gets the maximum number of threads hashing chunks in parallel.
+     * @return number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Sets the maximum number of threads hashing chunks in parallel.
+     * A value of 1 or less disables parallel hashing.
+     * @param threads number of threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+        resetExecutor();
+    }
+
+    /**
+     * Gets whether only sampled blocks of content are hashed.
+     * @return <code>true</code> if sampled
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+    /**
+     * Sets whether only sampled blocks of content are hashed.
+     * @param sampled <code>true</code> if sampled
+     */
+    public void setSampled(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    /**
+     * Gets the number of blocks sampled between the head and tail blocks.
+     * @return number of blocks
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+    /**
+     * Sets the number of blocks sampled between the head and tail blocks.
+     * @param sampleCount number of blocks
+     */
+    public void setSampleCount(int sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Gets the size of each sampled block.
+     * @return size in bytes
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+    /**
+     * Sets the size of each sampled block.
+     * @param sampleSize size in bytes
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    @Override
+    protected void loadChecksummerFromXML(XMLConfiguration xml) {
+        setAlgorithm(xml.getString("[@algorithm]", algorithm));
+        setBufferSize(xml.getInt("[@bufferSize]", bufferSize));
+        setChunkSize(xml.getLong("[@chunkSize]", chunkSize));
+        setParallelThreshold(
+                xml.getLong("[@parallelThreshold]", parallelThreshold));
+        setThreads(xml.getInt("[@threads]", threads));
+        setSampled(xml.getBoolean("[@sampled]", sampled));
+        setSampleCount(xml.getInt("[@sampleCount]", sampleCount));
+        setSampleSize(xml.getInt("[@sampleSize]", sampleSize));
+    }
+
+    @Override
+    protected void saveChecksummerToXML(EnhancedXMLStreamWriter writer)
+            throws XMLStreamException {
+        writer.writeAttributeString("algorithm", algorithm);
+        writer.writeAttributeInteger("bufferSize", bufferSize);
+        writer.writeAttributeLong("chunkSize", chunkSize);
+        writer.writeAttributeLong("parallelThreshold", parallelThreshold);
+        writer.writeAttributeInteger("threads", threads);
+        writer.writeAttributeBoolean("sampled", sampled);
+        writer.writeAttributeInteger("sampleCount", sampleCount);
+        writer.writeAttributeInteger("sampleSize", sampleSize);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof FileContentChecksummer)) {
+            return false;
+        }
+        FileContentChecksummer castOther = (FileContentChecksummer) other;
+        return new EqualsBuilder()
+                .appendSuper(super.equals(castOther))
+                .append(algorithm, castOther.algorithm)
+                .append(bufferSize, castOther.bufferSize)
+                .append(chunkSize, castOther.chunkSize)
+                .append(parallelThreshold, castOther.parallelThreshold)
+                .append(threads, castOther.threads)
+                .append(sampled, castOther.sampled)
+                .append(sampleCount, castOther.sampleCount)
+                .append(sampleSize, castOther.sampleSize)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(super.hashCode())
+                .append(algorithm)
+                .append(bufferSize)
+                .append(chunkSize)
+                .append(parallelThreshold)
+                .append(threads)
+                .append(sampled)
+                .append(sampleCount)
+                .append(sampleSize)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .appendSuper(super.toString())
+                .append("algorithm", algorithm)
+                .append("bufferSize", bufferSize)
+                .append("chunkSize", chunkSize)
+                .append("parallelThreshold", parallelThreshold)
+                .append("threads", threads)
+                .append("sampled", sampled)
+                .append("sampleCount", sampleCount)
+                .append("sampleSize", sampleSize)
+                .toString();
+    }
+
+    private abstract static class Hasher {
+        abstract void update(byte[] bytes, int offset, int length);
+        abstract byte[] digest();
+    }
+    private static class ChecksumHasher extends Hasher {
+        private final Checksum checksum;
+        ChecksumHasher(Checksum checksum) {
+            this.checksum = checksum;
+        }
+        @Override
+        void update(byte[] bytes, int offset, int length) {
+            checksum.update(bytes, offset, length);
+        }
+        @Override
+        byte[] digest() {
+            long value = checksum.getValue();
+            return new byte[] {
+                    (byte) (value >>> 24), (byte) (value >>> 16),
+                    (byte) (value >>> 8), (byte) value };
+        }
+    }
+    private static class DigestHasher extends Hasher {
+        private final MessageDigest digest;
+        DigestHasher(MessageDigest digest) {
+            this.digest = digest;
+        }
+        @Override
+        void update(byte[] bytes, int offset, int length) {
+            digest.update(bytes, offset, length);
+        }
+        @Override
+        byte[] digest() {
+            return digest.digest();
+        }
+    }
+}
@@ -15,43 +15,64 @@
 package com.norconex.collector.fs.crawler;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemManager;
+import org.apache.commons.vfs2.impl.DefaultFileReplicator;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
 import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.apache.commons.vfs2.provider.FileProvider;
 import org.apache.commons.vfs2.provider.UriParser;
+import org.apache.commons.vfs2.provider.ftp.FtpFileProvider;
+import org.apache.commons.vfs2.provider.sftp.SftpFileProvider;
+import org.apache.commons.vfs2.provider.zip.ZipFileProvider;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import com.norconex.collector.core.CollectorException;
 import com.norconex.collector.core.crawler.AbstractCrawler;
 import com.norconex.collector.core.crawler.ICrawler;
+import com.norconex.collector.core.crawler.ICrawlerConfig.OrphansStrategy;
+import com.norconex.collector.core.crawler.event.CrawlerEvent;
 import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
 import com.norconex.collector.core.data.ICrawlData;
 import com.norconex.collector.core.data.store.ICrawlDataStore;
 import com.norconex.collector.core.pipeline.BasePipelineContext;
 import com.norconex.collector.core.pipeline.importer.ImporterPipelineContext;
+import com.norconex.collector.fs.data.store.OffHeapBloomFilter;
 import com.norconex.collector.fs.doc.FileDocument;
+import com.norconex.collector.fs.option.IFileNameOptionsProvider;
 import com.norconex.collector.fs.option.IFilesystemOptionsProvider;
 import com.norconex.collector.fs.pipeline.committer.FileCommitterPipeline;
 import com.norconex.collector.fs.pipeline.committer.FileCommitterPipelineContext;
 import com.norconex.collector.fs.pipeline.importer.FileImporterPipeline;
 import com.norconex.collector.fs.pipeline.importer.FileImporterPipelineContext;
 import com.norconex.collector.fs.pipeline.queue.FileQueuePipeline;
+import com.norconex.collector.fs.vfs2.impl.CachingFileReplicator;
+import com.norconex.collector.fs.vfs2.impl.LazyFileSystemManager;
+import com.norconex.collector.fs.vfs2.provider.ftp.ExtendedFtpFileProvider;
+import com.norconex.collector.fs.vfs2.provider.sftp.ExtendedSftpFileProvider;
+import com.norconex.collector.fs.vfs2.provider.zip.RandomAccessZipFileProvider;
+import com.norconex.commons.lang.file.FileUtil;
 import com.norconex.importer.doc.ImporterDocument;
 import com.norconex.importer.response.ImporterResponse;
 import com.norconex.jef4.status.JobStatusUpdater;
@@ -67,8 +88,15 @@ public class FilesystemCrawler extends AbstractCrawler {
     private static final Logger LOG =
             LogManager.getLogger(FilesystemCrawler.class);
 
-    private StandardFileSystemManager fileManager;
+    private DefaultFileSystemManager fileManager;
     private IFilesystemOptionsProvider optionsProvider;
+    private OffHeapBloomFilter referenceBloomFilter;
+    private StartPathsSeeder startPathsSeeder;
+    private ShardResolver shardResolver;
+    // States of archive roots streamed or found unchanged during this
+    // execution, used to resolve their entries left as orphans.
+    private final Map<String, CrawlState> archiveStates =
+            new ConcurrentHashMap<>();
 
     /**
      * Constructor.
@@ -90,106 +118,257 @@ public class FilesystemCrawler extends AbstractCrawler {
         return fileManager;
     }
 
+    /**
+     * Gets the Bloom filter of references queued so far during this
+     * execution, if enabled.
+     * @return reference Bloom filter or <code>null</code>
+     * @since 2.9.2
+     */
+    public OffHeapBloomFilter getReferenceBloomFilter() {
+        return referenceBloomFilter;
+    }
+
+    /**
+     * Gets the resolver telling which files belong to this collector
+     * node, when sharding is enabled.
+     * @return shard resolver or <code>null</code>
+     * @since 2.9.2
+     */
+    public ShardResolver getShardResolver() {
+        return shardResolver;
+    }
+
     @Override
     protected void prepareExecution(
             JobStatusUpdater statusUpdater, JobSuite suite,
             ICrawlDataStore crawlDataStore, boolean resume) {
 
         initializeFileSystemManager();
+        initializeReferenceBloomFilter(resume);
+        initializeShardResolver();
+        archiveStates.clear();
 
         if (!resume) {
             queueStartPaths(crawlDataStore);
+        } else if (getCrawlerConfig().isStartPathsStreaming()) {
+            // Seeding progress is not kept: paths not yet queued when the
+            // crawl stopped are queued again, others being ignored.
+            startStartPathsSeeder(crawlDataStore);
+        }
+        if (startPathsSeeder != null) {
+            // So crawler threads do not start with an empty queue
+            startPathsSeeder.awaitQueued();
         }
     }
 
     private void initializeFileSystemManager() {
         try {
             optionsProvider = getCrawlerConfig().getOptionsProvider();
-            fileManager = new StandardFileSystemManager();
-            fileManager.setClassLoader(getClass().getClassLoader());
-//            if (getCrawlerConfig().getWorkDir() != null) {
-//                fileManager.setTemporaryFileStore(new DefaultFileReplicator(
-//                       new File(getCrawlerConfig().getWorkDir(), "fvs_cache")));
-//            }
+            final DefaultFileReplicator replicator = createFileReplicator();
+            if (getCrawlerConfig().isLazyProviders()) {
+                LazyFileSystemManager manager = new LazyFileSystemManager(
+                        getStartPathsSchemes()) {
+                    @Override
+                    protected DefaultFileReplicator
+                            createDefaultFileReplicator() {
+                        return replicator != null ? replicator
+                                : super.createDefaultFileReplicator();
+                    }
+                    @Override
+                    public void addProvider(String[] urlSchemes,
+                            FileProvider provider) throws FileSystemException {
+                        super.addProvider(urlSchemes, adaptProvider(provider));
+                    }
+                };
+                manager.setClassLoader(getClass().getClassLoader());
+                fileManager = manager;
+            } else {
+                StandardFileSystemManager manager =
+                        new StandardFileSystemManager() {
+                    @Override
+                    protected DefaultFileReplicator
+                            createDefaultFileReplicator() {
+                        return replicator != null ? replicator
+                                : super.createDefaultFileReplicator();
+                    }
+                    @Override
+                    public void addProvider(String[] urlSchemes,
+                            FileProvider provider) throws FileSystemException {
+                        super.addProvider(urlSchemes, adaptProvider(provider));
+                    }
+                };
+                manager.setClassLoader(getClass().getClassLoader());
+                fileManager = manager;
+            }
             fileManager.init();
         } catch (FileSystemException e) {
             throw new CollectorException("Could not initialize filesystem.", e);
         }
     }
 
-    private void queueStartPaths(ICrawlDataStore crawlDataStore) {
-        int urlCount = 0;
-        urlCount += queueStartPathsRegular(crawlDataStore);
-        urlCount += queueStartPathsSeedFiles(crawlDataStore);
-        urlCount += queueStartPathsProviders(crawlDataStore);
-        LOG.info(NumberFormat.getNumberInstance().format(urlCount)
-                + " start paths identified.");
+    // Returns null when the replication cache is disabled
+    private DefaultFileReplicator createFileReplicator() {
+        long maxSize = getCrawlerConfig().getReplicationCacheSize();
+        if (maxSize <= 0) {
+            return null;
+        }
+        File dir = new File(getCrawlerConfig().getWorkDir(), "replication/"
+                + FileUtil.toSafeFileName(getCrawlerConfig().getId()));
+        LOG.info("Replicated files cached under " + dir
+                + " (max " + FileUtils.byteCountToDisplaySize(maxSize) + ")");
+        return new CachingFileReplicator(dir, maxSize);
     }
-    private int queueStartPathsRegular(final ICrawlDataStore crawlDataStore) {
-        // Queue regular start urls
-        String[] startPaths = getCrawlerConfig().getStartPaths();
-        if (startPaths == null) {
-            return 0;
+
+    // Substitutes configured alternatives to standard providers
+    private FileProvider adaptProvider(FileProvider provider) {
+        if (getCrawlerConfig().isZipRandomAccess()
+                && provider.getClass() == ZipFileProvider.class) {
+            return new RandomAccessZipFileProvider();
         }
+        // MLSD and pooling only when enabled in file system options
+        if (provider.getClass() == FtpFileProvider.class) {
+            return new ExtendedFtpFileProvider();
+        }
+        if (provider.getClass() == SftpFileProvider.class) {
+            return new ExtendedSftpFileProvider();
+        }
+        return provider;
+    }
 
-        for (String startPath2 : startPaths) {
-            String startPath = startPath2;
-            // No protocol specified: we assume local file, and we get
-            // the absolute version.
-            if (!startPath.contains("://")) {
-                startPath = new File(startPath).getAbsolutePath();
+    private Set<String> getStartPathsSchemes() {
+        Set<String> schemes = new HashSet<>();
+        String[] startPaths = getCrawlerConfig().getStartPaths();
+        if (startPaths != null) {
+            for (String startPath : startPaths) {
+                String scheme = UriParser.extractScheme(
+                        toAbsoluteStartPath(startPath));
+                if (scheme != null) {
+                    schemes.add(scheme);
+                }
             }
-            executeQueuePipeline(new BaseCrawlData(startPath), crawlDataStore);
         }
-        return startPaths.length;
+        return schemes;
     }
-    private int queueStartPathsSeedFiles(final ICrawlDataStore crawlDataStore) {
-        String[] pathsFiles = getCrawlerConfig().getPathsFiles();
-        if (pathsFiles == null) {
-            return 0;
+
+    private void initializeShardResolver() {
+        shardResolver = null;
+        FilesystemCrawlerConfig config = getCrawlerConfig();
+        if (config.getShardNodeCount() <= 1) {
+            return;
         }
-        int pathCount = 0;
-        for (String pathsFile : pathsFiles) {
-            LineIterator it = null;
-            try (InputStream is = new FileInputStream(pathsFile)) {
-                it = IOUtils.lineIterator(is, StandardCharsets.UTF_8);
-                while (it.hasNext()) {
-                    String startPath = it.nextLine();
-                    executeQueuePipeline(
-                            new BaseCrawlData(startPath), crawlDataStore);
-                    pathCount++;
+        List<FileName> roots = new ArrayList<>();
+        String[] startPaths = config.getStartPaths();
+        if (startPaths != null) {
+            for (String startPath : startPaths) {
+                try {
+                    roots.add(fileManager.resolveURI(
+                            toAbsoluteStartPath(startPath)));
+                } catch (FileSystemException e) {
+                    LOG.warn("Start path files will be sharded on their "
+                            + "path: " + startPath, e);
                 }
-            } catch (IOException e) {
-                throw new CollectorException(
-                        "Could not process paths file: " + pathsFile, e);
-            } finally {
-                LineIterator.closeQuietly(it);
             }
         }
-        return pathCount;
+        shardResolver = new ShardResolver(
+                config.getShardNodeIndex(), config.getShardNodeCount(),
+                FilesystemCrawlerConfig.SHARD_BY_TOP_FOLDER.equals(
+                        config.getShardBy()), roots);
+        LOG.info("Sharding on " + config.getShardBy() + " as node "
+                + (config.getShardNodeIndex() + 1) + " of "
+                + config.getShardNodeCount() + ".");
+    }
+
+    private void initializeReferenceBloomFilter(boolean resume) {
+        referenceBloomFilter = null;
+        FilesystemCrawlerConfig config = getCrawlerConfig();
+        if (!config.isReferenceBloomFilterEnabled()) {
+            return;
+        }
+        if (resume) {
+            // References queued before resuming are not in the filter.
+            LOG.info("Reference Bloom filter is not used when resuming.");
+            return;
+        }
+        long size = Math.max(config.getReferenceBloomFilterSize(),
+                (long) (readPreviousReferenceCount() * 1.2));
+        referenceBloomFilter = new OffHeapBloomFilter(
+                size, config.getReferenceBloomFilterFalsePositiveRate());
+        LOG.info("Reference Bloom filter sized for "
+                + NumberFormat.getNumberInstance().format(size)
+                + " references (" + FileUtils.byteCountToDisplaySize(
+                        referenceBloomFilter.getByteSize()) + " off-heap).");
     }
 
-    private int queueStartPathsProviders(final ICrawlDataStore crawlDataStore) {
-        IStartPathsProvider[] providers =
-                getCrawlerConfig().getStartPathsProviders();
-        if (providers == null) {
+    private File getReferenceCountFile() {
+        return new File(getCrawlerConfig().getWorkDir(), "referencecount/"
+                + FileUtil.toSafeFileName(getCrawlerConfig().getId())
+                + ".txt");
+    }
+    private long readPreviousReferenceCount() {
+        File file = getReferenceCountFile();
+        if (!file.isFile()) {
             return 0;
         }
-        int count = 0;
-        for (IStartPathsProvider provider : providers) {
-            if (provider == null) {
-                continue;
-            }
-            Iterator<String> it = provider.provideStartPaths();
-            while (it.hasNext()) {
-                executeQueuePipeline(
-                        new BaseCrawlData(it.next()), crawlDataStore);
-                count++;
-            }
+        try {
+            return NumberUtils.toLong(StringUtils.trim(
+                    FileUtils.readFileToString(file, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            LOG.warn("Could not read previous reference count: " + file, e);
+            return 0;
+        }
+    }
+    private void writeReferenceCount(long count) {
+        File file = getReferenceCountFile();
+        try {
+            FileUtils.writeStringToFile(
+                    file, Long.toString(count), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOG.warn("Could not write reference count: " + file, e);
         }
-        return count;
     }
 
+    private void queueStartPaths(ICrawlDataStore crawlDataStore) {
+        if (getCrawlerConfig().isStartPathsStreaming()) {
+            startStartPathsSeeder(crawlDataStore);
+            LOG.info(NumberFormat.getNumberInstance().format(
+                    queueStartPathsRegular(crawlDataStore))
+                    + " start paths identified. Streaming the rest from "
+                    + "paths files and providers.");
+            return;
+        }
+        long urlCount = queueStartPathsRegular(crawlDataStore);
+        urlCount += new StartPathsSeeder(this, crawlDataStore, -1,
+                getCrawlerConfig().getStartPathsThreads()).seed();
+        LOG.info(NumberFormat.getNumberInstance().format(urlCount)
+                + " start paths identified.");
+    }
+    private void startStartPathsSeeder(ICrawlDataStore crawlDataStore) {
+        startPathsSeeder = new StartPathsSeeder(this, crawlDataStore,
+                getCrawlerConfig().getStartPathsMaxQueueSize(),
+                getCrawlerConfig().getStartPathsThreads());
+        startPathsSeeder.start();
+    }
+    private int queueStartPathsRegular(final ICrawlDataStore crawlDataStore) {
+        // Queue regular start urls
+        String[] startPaths = getCrawlerConfig().getStartPaths();
+        if (startPaths == null) {
+            return 0;
+        }
+
+        for (String startPath : startPaths) {
+            executeQueuePipeline(new BaseCrawlData(
+                    toAbsoluteStartPath(startPath)), crawlDataStore);
+        }
+        return startPaths.length;
+    }
+    private String toAbsoluteStartPath(String startPath) {
+        // No protocol specified: we assume local file, and we get
+        // the absolute version.
+        if (!startPath.contains("://")) {
+            return new File(startPath).getAbsolutePath();
+        }
+        return startPath;
+    }
     @Override
     protected void executeQueuePipeline(
             ICrawlData crawlData, ICrawlDataStore crawlDataStore) {
@@ -210,26 +389,110 @@ public class FilesystemCrawler extends AbstractCrawler {
     protected ImporterResponse executeImporterPipeline(
             ImporterPipelineContext importerContext) {
 
+        try {
+            return doExecuteImporterPipeline(importerContext);
+        } finally {
+            // Keeps this reference active while start paths are still
+            // being streamed, so crawler threads do not stop for lack
+            // of queued references.
+            StartPathsSeeder seeder = startPathsSeeder;
+            if (seeder != null && seeder.isSeeding()) {
+                seeder.awaitQueued();
+            }
+        }
+    }
+    private ImporterResponse doExecuteImporterPipeline(
+            ImporterPipelineContext importerContext) {
+
         ICrawlData crawlData = importerContext.getCrawlData();
+        FileImporterPipelineContext fileContext =
+                new FileImporterPipelineContext(importerContext);
+
+        if (isStreamedArchive(crawlData)) {
+            // Metadata and checksum are those of the archive file
+            fileContext.setFileObject(resolveFile(StreamingArchiveImporter
+                    .getArchiveFileReference(crawlData.getReference())));
+            new FileImporterPipeline(
+                    new StreamingArchiveImporter()).execute(fileContext);
+            CrawlState state = crawlData.getState();
+            if (state != null && state.isOneOf(CrawlState.UNMODIFIED)
+                    && !isProcessingOrphans()) {
+                // Entries of unchanged archives are otherwise only
+                // resolved when processing orphans.
+                new StreamingArchiveImporter().execute(fileContext);
+            }
+            if (state != null && (state.isNewOrModified() || state.isOneOf(
+                    CrawlState.UNMODIFIED, CrawlState.NOT_FOUND))) {
+                archiveStates.put(crawlData.getReference(), state);
+            }
+            return fileContext.getImporterResponse();
+        }
+        CrawlState archiveState = getArchiveState(crawlData);
+        if (archiveState != null) {
+            resolveArchiveOrphan((BaseCrawlData) crawlData, archiveState);
+            return null;
+        }
 
-        String ref = fixEncoding(crawlData.getReference());
+        fileContext.setFileObject(resolveFile(crawlData.getReference()));
+        new FileImporterPipeline(
+                getCrawlerConfig().isKeepDownloads()).execute(fileContext);
+        return fileContext.getImporterResponse();
+    }
+
+    private boolean isStreamedArchive(ICrawlData crawlData) {
+        return getCrawlerConfig().isArchiveStreaming()
+                && StreamingArchiveImporter.isArchiveRoot(
+                        crawlData.getReference());
+    }
+
+    private boolean isProcessingOrphans() {
+        OrphansStrategy strategy = getCrawlerConfig().getOrphansStrategy();
+        return strategy == null || strategy == OrphansStrategy.PROCESS;
+    }
+
+    // State of the archive an entry was streamed from, if that archive
+    // was processed during this execution.
+    private CrawlState getArchiveState(ICrawlData crawlData) {
+        String archiveRef = crawlData.getParentRootReference();
+        if (archiveRef == null || !getCrawlerConfig().isArchiveStreaming()) {
+            return null;
+        }
+        return archiveStates.get(archiveRef);
+    }
+
+    // Entries are processed while streaming their archive, so an entry
+    // reaching here was not found in its modified archive, or the archive
+    // itself is gone. If the archive is unchanged, so is the entry.
+    private void resolveArchiveOrphan(
+            BaseCrawlData crawlData, CrawlState archiveState) {
+        if (archiveState.isOneOf(CrawlState.UNMODIFIED)) {
+            crawlData.setState(CrawlState.UNMODIFIED);
+            fireCrawlerEvent(CrawlerEvent.REJECTED_UNMODIFIED, crawlData, null);
+        } else {
+            crawlData.setState(CrawlState.NOT_FOUND);
+            fireCrawlerEvent(CrawlerEvent.REJECTED_NOTFOUND, crawlData, null);
+        }
+    }
+
+    private FileObject resolveFile(String reference) {
+        String ref = fixEncoding(reference);
         FileObject fileObject = null;
         try {
             if (optionsProvider == null) {
                 fileObject = fileManager.resolveFile(ref);
+            } else if (optionsProvider instanceof IFileNameOptionsProvider) {
+                fileObject = fileManager.resolveFile(ref,
+                        ((IFileNameOptionsProvider) optionsProvider)
+                                .getFilesystemOptions(
+                                        fileManager.resolveURI(ref)));
             } else {
                 fileObject = fileManager.resolveFile(ref,
                         optionsProvider.getFilesystemOptions(fileObject));
             }
         } catch (FileSystemException e) {
-            resolveFileException(crawlData.getReference(), e);
+            resolveFileException(reference, e);
         }
-        FileImporterPipelineContext fileContext =
-                new FileImporterPipelineContext(importerContext);
-        fileContext.setFileObject(fileObject);
-        new FileImporterPipeline(
-                getCrawlerConfig().isKeepDownloads()).execute(fileContext);
-        return fileContext.getImporterResponse();
+        return fileObject;
     }
 
     // Trick-method to ensure reference can be converted to a valid URI if
@@ -285,6 +548,10 @@ public class FilesystemCrawler extends AbstractCrawler {
             ImporterDocument doc, ICrawlDataStore crawlDataStore,
             BaseCrawlData crawlData, BaseCrawlData cachedCrawlData) {
 
+        if (isStreamedArchive(crawlData)) {
+            // Entries were committed while streaming, not the archive
+            return;
+        }
         FileCommitterPipelineContext context = new FileCommitterPipelineContext(
                 (FilesystemCrawler) crawler, crawlDataStore, (FileDocument) doc,
                 crawlData, cachedCrawlData);
@@ -300,6 +567,12 @@ public class FilesystemCrawler extends AbstractCrawler {
     @Override
     protected void cleanupExecution(JobStatusUpdater statusUpdater,
             JobSuite suite, ICrawlDataStore refStore) {
+        if (startPathsSeeder != null) {
+            startPathsSeeder.stop();
+            startPathsSeeder = null;
+        }
+        writeReferenceCount(refStore.getProcessedCount());
+        referenceBloomFilter = null;
         fileManager.close();
     }
 
@@ -41,6 +41,7 @@ import com.norconex.collector.fs.fetch.impl.GenericFileDocumentFetcher;
 import com.norconex.collector.fs.fetch.impl.GenericFileMetadataFetcher;
 import com.norconex.collector.fs.option.IFilesystemOptionsProvider;
 import com.norconex.collector.fs.option.impl.GenericFilesystemOptionsProvider;
+import com.norconex.collector.fs.throttle.IHostThrottler;
 import com.norconex.commons.lang.config.XMLConfigurationUtil;
 import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
 
@@ -53,15 +54,40 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
 
     private static final Logger LOG = 
             LogManager.getLogger(FilesystemCrawlerConfig.class);
+
+    /** @since 2.9.2 */
+    public static final long DEFAULT_REFERENCE_BLOOM_FILTER_SIZE = 1000000;
+    /** @since 2.9.2 */
+    public static final double
+            DEFAULT_REFERENCE_BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    /** @since 2.9.2 */
+    public static final int DEFAULT_START_PATHS_MAX_QUEUE_SIZE = 100000;
+    /** @since 2.9.2 */
+    public static final int DEFAULT_START_PATHS_THREADS = 4;
+    /** @since 2.9.2 */
+    public static final String SHARD_BY_PATH = "path";
+    /** @since 2.9.2 */
+    public static final String SHARD_BY_TOP_FOLDER = "topFolder";
     
     private String[] startPaths;
     private String[] pathsFiles;
     private IStartPathsProvider[] startPathsProviders;
+    private boolean startPathsStreaming;
+    private int startPathsMaxQueueSize = DEFAULT_START_PATHS_MAX_QUEUE_SIZE;
+    private int startPathsThreads = DEFAULT_START_PATHS_THREADS;
+    private int shardNodeIndex;
+    private int shardNodeCount = 1;
+    private String shardBy = SHARD_BY_PATH;
     
     private boolean keepDownloads;
+    private boolean lazyProviders;
+    private boolean archiveStreaming;
+    private long replicationCacheSize;
+    private boolean zipRandomAccess;
 
     private IFilesystemOptionsProvider optionsProvider = 
             new GenericFilesystemOptionsProvider();
+    private IHostThrottler throttler;
 
     private IFileMetadataFetcher metadataFetcher =
             new GenericFileMetadataFetcher();
@@ -74,6 +100,12 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
     
     private IFileDocumentProcessor[] preImportProcessors;
     private IFileDocumentProcessor[] postImportProcessors;
+
+    private boolean referenceBloomFilterEnabled;
+    private long referenceBloomFilterSize =
+            DEFAULT_REFERENCE_BLOOM_FILTER_SIZE;
+    private double referenceBloomFilterFalsePositiveRate =
+            DEFAULT_REFERENCE_BLOOM_FILTER_FALSE_POSITIVE_RATE;
     
     public FilesystemCrawlerConfig() {
         super();
@@ -114,6 +146,122 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
             IStartPathsProvider... startPathsProviders) {
         this.startPathsProviders = startPathsProviders;
     }    
+    /**
+     * Gets whether paths from paths files and start paths providers
+     * are queued in the background while crawling, instead of all being
+     * queued before crawling starts.
+     * @return <code>true</code> if streaming start paths
+     * @since 2.9.2
+     */
+    public boolean isStartPathsStreaming() {
+        return startPathsStreaming;
+    }
+    /**
+     * Sets whether paths from paths files and start paths providers
+     * are queued in the background while crawling, instead of all being
+     * queued before crawling starts.  Recommended for very large paths
+     * files or providers.
+     * @param startPathsStreaming <code>true</code> to stream start paths
+     * @since 2.9.2
+     */
+    public void setStartPathsStreaming(boolean startPathsStreaming) {
+        this.startPathsStreaming = startPathsStreaming;
+    }
+    /**
+     * Gets the queue size at which streaming of start paths is paused
+     * until crawler threads catch up.
+     * @return maximum queue size
+     * @since 2.9.2
+     */
+    public int getStartPathsMaxQueueSize() {
+        return startPathsMaxQueueSize;
+    }
+    /**
+     * Sets the queue size at which streaming of start paths is paused
+     * until crawler threads catch up. Only applies when streaming
+     * start paths. Zero or less means no maximum.
+     * @param startPathsMaxQueueSize maximum queue size
+     * @since 2.9.2
+     */
+    public void setStartPathsMaxQueueSize(int startPathsMaxQueueSize) {
+        this.startPathsMaxQueueSize = startPathsMaxQueueSize;
+    }
+    /**
+     * Gets the maximum number of paths files and start paths providers
+     * read at the same time.
+     * @return maximum number of threads
+     * @since 2.9.2
+     */
+    public int getStartPathsThreads() {
+        return startPathsThreads;
+    }
+    /**
+     * Sets the maximum number of paths files and start paths providers
+     * read at the same time. Paths obtained from different sources
+     * are still queued only once.
+     * @param startPathsThreads maximum number of threads
+     * @since 2.9.2
+     */
+    public void setStartPathsThreads(int startPathsThreads) {
+        this.startPathsThreads = startPathsThreads;
+    }
+    /**
+     * Gets the zero-based index of this collector node when sharding
+     * the crawl across several nodes.
+     * @return node index
+     * @since 2.9.2
+     */
+    public int getShardNodeIndex() {
+        return shardNodeIndex;
+    }
+    /**
+     * Sets the zero-based index of this collector node when sharding
+     * the crawl across several nodes. Each node must have a different
+     * index, lower than the node count.
+     * @param shardNodeIndex node index
+     * @since 2.9.2
+     */
+    public void setShardNodeIndex(int shardNodeIndex) {
+        this.shardNodeIndex = shardNodeIndex;
+    }
+    /**
+     * Gets the number of collector nodes sharing the crawl.
+     * @return node count
+     * @since 2.9.2
+     */
+    public int getShardNodeCount() {
+        return shardNodeCount;
+    }
+    /**
+     * Sets the number of collector nodes sharing the crawl.  When greater
+     * than one, each node crawls the same start paths and expands all
+     * folders, but only processes files assigned to it.
+     * Default is 1 (no sharding).
+     * @param shardNodeCount node count
+     * @since 2.9.2
+     */
+    public void setShardNodeCount(int shardNodeCount) {
+        this.shardNodeCount = shardNodeCount;
+    }
+    /**
+     * Gets what files are assigned to nodes by, when sharding.
+     * @return {@link #SHARD_BY_PATH} or {@link #SHARD_BY_TOP_FOLDER}
+     * @since 2.9.2
+     */
+    public String getShardBy() {
+        return shardBy;
+    }
+    /**
+     * Sets what files are assigned to nodes by, when sharding.
+     * Either {@link #SHARD_BY_PATH} (default) to spread files evenly, or
+     * {@link #SHARD_BY_TOP_FOLDER} to keep all files under the same
+     * top-level folder of a start path on the same node.
+     * @param shardBy {@link #SHARD_BY_PATH} or {@link #SHARD_BY_TOP_FOLDER}
+     * @since 2.9.2
+     */
+    public void setShardBy(String shardBy) {
+        this.shardBy = shardBy;
+    }
     public boolean isKeepDownloads() {
         return keepDownloads;
     }
@@ -121,6 +269,103 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         this.keepDownloads = keepDownloads;
     }
 
+    /**
+     * Gets whether file system providers are only created when first
+     * needed, except for those of start paths schemes.
+     * @return <code>true</code> if providers are created lazily
+     * @since 2.9.2
+     */
+    public boolean isLazyProviders() {
+        return lazyProviders;
+    }
+    /**
+     * Sets whether file system providers are only created when first
+     * needed, except for those of start paths schemes. This reduces
+     * crawler startup time. Providers for schemes only obtained from
+     * start paths providers or paths files are created as files
+     * using them are resolved.
+     * @param lazyProviders <code>true</code> to create providers lazily
+     * @since 2.9.2
+     */
+    public void setLazyProviders(boolean lazyProviders) {
+        this.lazyProviders = lazyProviders;
+    }
+
+    /**
+     * Gets whether archive start paths (zip, jar, tar, tgz, tbz2)
+     * are read sequentially in a single pass instead of being replicated
+     * locally and listed by Apache Commons VFS.
+     * @return <code>true</code> if streaming archives
+     * @since 2.9.2
+     */
+    public boolean isArchiveStreaming() {
+        return archiveStreaming;
+    }
+    /**
+     * Sets whether archive start paths (zip, jar, tar, tgz, tbz2)
+     * are read sequentially in a single pass instead of being replicated
+     * locally and listed by Apache Commons VFS. When enabled, references
+     * to the root of an archive (e.g. <code>zip:/path/file.zip!/</code>)
+     * produce one embedded document per archive file entry, committed as
+     * it is read. Archives themselves are not committed, but their
+     * metadata checksum is kept so unchanged archives are skipped.
+     * Entries no longer in an archive are handled as orphans. Unchanged
+     * archives are only skipped with the <code>PROCESS</code> orphans
+     * strategy, which resolves their entries without reading them.
+     * @param archiveStreaming <code>true</code> to stream archives
+     * @since 2.9.2
+     */
+    public void setArchiveStreaming(boolean archiveStreaming) {
+        this.archiveStreaming = archiveStreaming;
+    }
+
+    /**
+     * Gets the maximum total size in bytes of local copies kept by the
+     * replication cache. Zero (default) disables the cache.
+     * @return maximum cache size in bytes
+     * @since 2.9.2
+     */
+    public long getReplicationCacheSize() {
+        return replicationCacheSize;
+    }
+    /**
+     * Sets the maximum total size in bytes of local copies kept by the
+     * replication cache. Layered providers (zip, tar, mime, etc.) need
+     * a local copy of the file they read.  When greater than zero, copies
+     * are kept under the working directory and reused for as long as
+     * the source file is unchanged, deleting the least recently used
+     * copies when the maximum is exceeded. Zero (default) disables the
+     * cache, and a new copy is made every time one is needed.
+     * @param replicationCacheSize maximum cache size in bytes
+     * @since 2.9.2
+     */
+    public void setReplicationCacheSize(long replicationCacheSize) {
+        this.replicationCacheSize = replicationCacheSize;
+    }
+
+    /**
+     * Gets whether <code>zip:</code> references on file systems supporting
+     * random access reads are read in place.
+     * @return <code>true</code> if reading ZIP files in place
+     * @since 2.9.2
+     */
+    public boolean isZipRandomAccess() {
+        return zipRandomAccess;
+    }
+    /**
+     * Sets whether <code>zip:</code> references on file systems supporting
+     * random access reads (e.g., local, SMB, HDFS) are read in place.
+     * When enabled, only the ZIP central directory is read to list entries
+     * and reading an entry seeks directly to it, instead of first copying
+     * the whole archive locally. ZIP files on other file systems
+     * are still copied.
+     * @param zipRandomAccess <code>true</code> to read ZIP files in place
+     * @since 2.9.2
+     */
+    public void setZipRandomAccess(boolean zipRandomAccess) {
+        this.zipRandomAccess = zipRandomAccess;
+    }
+
     /**
      * Gets the file system options provider. Default is
      * {@link GenericFilesystemOptionsProvider}.
@@ -140,6 +385,25 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         this.optionsProvider = filesystemOptionsProvider;
     }
 
+    /**
+     * Gets the throttler controlling the pace of file system operations
+     * on each file server. Default is <code>null</code> (no throttling).
+     * @return host throttler
+     * @since 2.9.2
+     */
+    public IHostThrottler getThrottler() {
+        return throttler;
+    }
+    /**
+     * Sets the throttler controlling the pace of file system operations
+     * on each file server.
+     * @param throttler host throttler or <code>null</code>
+     * @since 2.9.2
+     */
+    public void setThrottler(IHostThrottler throttler) {
+        this.throttler = throttler;
+    }
+
     /**
      * Gets the document metadata fetcher. Default is 
      * {@link GenericFileMetadataFetcher}.
@@ -199,13 +463,86 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         this.postImportProcessors = ArrayUtils.clone(filePostProcessors);
     }
 
+    /**
+     * Gets whether to use an off-heap Bloom filter of queued references
+     * to avoid looking up the crawl data store for references never
+     * seen before. Not used when resuming a crawl.
+     * @return <code>true</code> if enabled
+     * @since 2.9.2
+     */
+    public boolean isReferenceBloomFilterEnabled() {
+        return referenceBloomFilterEnabled;
+    }
+    /**
+     * Sets whether to use an off-heap Bloom filter of queued references
+     * to avoid looking up the crawl data store for references never
+     * seen before. Not used when resuming a crawl.
+     * @param referenceBloomFilterEnabled <code>true</code> if enabled
+     * @since 2.9.2
+     */
+    public void setReferenceBloomFilterEnabled(
+            boolean referenceBloomFilterEnabled) {
+        this.referenceBloomFilterEnabled = referenceBloomFilterEnabled;
+    }
+    /**
+     * Gets the minimum number of references the reference Bloom filter
+     * is sized for. The filter is sized for more references when the
+     * previous crawl had more.
+     * @return minimum number of references
+     * @since 2.9.2
+     */
+    public long getReferenceBloomFilterSize() {
+        return referenceBloomFilterSize;
+    }
+    /**
+     * Sets the minimum number of references the reference Bloom filter
+     * is sized for. The filter is sized for more references when the
+     * previous crawl had more.
+     * @param referenceBloomFilterSize minimum number of references
+     * @since 2.9.2
+     */
+    public void setReferenceBloomFilterSize(long referenceBloomFilterSize) {
+        this.referenceBloomFilterSize = referenceBloomFilterSize;
+    }
+    /**
+     * Gets the reference Bloom filter false positive probability.
+     * @return false positive probability
+     * @since 2.9.2
+     */
+    public double getReferenceBloomFilterFalsePositiveRate() {
+        return referenceBloomFilterFalsePositiveRate;
+    }
+    /**
+     * Sets the reference Bloom filter false positive probability
+     * (between 0 and 1 exclusively). A lower probability uses more memory.
+     * @param referenceBloomFilterFalsePositiveRate false positive
+     *        probability
+     * @since 2.9.2
+     */
+    public void setReferenceBloomFilterFalsePositiveRate(
+            double referenceBloomFilterFalsePositiveRate) {
+        this.referenceBloomFilterFalsePositiveRate =
+                referenceBloomFilterFalsePositiveRate;
+    }
+
     @Override
     protected void saveCrawlerConfigToXML(Writer out) throws IOException {
         try {
             EnhancedXMLStreamWriter writer = new EnhancedXMLStreamWriter(out);
 
             writer.writeElementBoolean("keepDownloads", isKeepDownloads());
+            writer.writeElementBoolean("lazyProviders", isLazyProviders());
+            writer.writeElementBoolean(
+                    "archiveStreaming", isArchiveStreaming());
+            writer.writeElementLong(
+                    "replicationCacheSize", getReplicationCacheSize());
+            writer.writeElementBoolean(
+                    "zipRandomAccess", isZipRandomAccess());
             writer.writeStartElement("startPaths");
+            writer.writeAttributeBoolean("streaming", startPathsStreaming);
+            writer.writeAttributeInteger(
+                    "maxQueueSize", startPathsMaxQueueSize);
+            writer.writeAttributeInteger("threads", startPathsThreads);
             
             String[] paths = getStartPaths();
             if (ArrayUtils.isNotEmpty(paths)) {
@@ -229,9 +566,24 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
             out.flush();
             
             writer.writeEndElement();
+
+            writer.writeStartElement("sharding");
+            writer.writeAttributeInteger("nodeIndex", shardNodeIndex);
+            writer.writeAttributeInteger("nodeCount", shardNodeCount);
+            writer.writeAttributeString("by", shardBy);
+            writer.writeEndElement();
+
+            writer.writeStartElement("referenceBloomFilter");
+            writer.writeAttributeBoolean(
+                    "enabled", referenceBloomFilterEnabled);
+            writer.writeAttributeLong("size", referenceBloomFilterSize);
+            writer.writeAttributeString("falsePositiveRate",
+                    Double.toString(referenceBloomFilterFalsePositiveRate));
+            writer.writeEndElement();
             writer.flush();
             
             writeObject(out, "optionsProvider", getOptionsProvider());
+            writeObject(out, "throttler", getThrottler());
             writeObject(out, "metadataFetcher", getMetadataFetcher());
             writeObject(out, "metadataChecksummer", getMetadataChecksummer());
             writeObject(out, "documentFetcher", getDocumentFetcher());
@@ -254,6 +606,10 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         //--- FilesystemManager Factory ----------------------------------------
         setOptionsProvider(XMLConfigurationUtil.newInstance(xml,
                 "optionsProvider", getOptionsProvider()));
+
+        //--- Host Throttler ---------------------------------------------------
+        setThrottler(XMLConfigurationUtil.newInstance(xml,
+                "throttler", getThrottler()));
         
         //--- Metadata Fetcher -------------------------------------------------
         setMetadataFetcher(XMLConfigurationUtil.newInstance(xml,
@@ -282,6 +638,13 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
     
     private void loadSimpleSettings(XMLConfiguration xml) {
         setKeepDownloads(xml.getBoolean("keepDownloads", isKeepDownloads()));
+        setLazyProviders(xml.getBoolean("lazyProviders", isLazyProviders()));
+        setArchiveStreaming(xml.getBoolean(
+                "archiveStreaming", isArchiveStreaming()));
+        setReplicationCacheSize(xml.getLong(
+                "replicationCacheSize", getReplicationCacheSize()));
+        setZipRandomAccess(xml.getBoolean(
+                "zipRandomAccess", isZipRandomAccess()));
 
         String[] startPathsArray = xml.getStringArray("startPaths.path");
         setStartPaths(defaultIfEmpty(startPathsArray, getStartPaths()));
@@ -293,6 +656,27 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
                 loadStartPathsProviders(xml);
         setStartPathsProviders(
                 defaultIfEmpty(startPathsProviders, getStartPathsProviders()));        
+        setStartPathsStreaming(xml.getBoolean(
+                "startPaths[@streaming]", startPathsStreaming));
+        setStartPathsMaxQueueSize(xml.getInt(
+                "startPaths[@maxQueueSize]", startPathsMaxQueueSize));
+        setStartPathsThreads(xml.getInt(
+                "startPaths[@threads]", startPathsThreads));
+
+        setShardNodeIndex(xml.getInt(
+                "sharding[@nodeIndex]", shardNodeIndex));
+        setShardNodeCount(xml.getInt(
+                "sharding[@nodeCount]", shardNodeCount));
+        setShardBy(xml.getString("sharding[@by]", shardBy));
+
+        setReferenceBloomFilterEnabled(xml.getBoolean(
+                "referenceBloomFilter[@enabled]",
+                referenceBloomFilterEnabled));
+        setReferenceBloomFilterSize(xml.getLong(
+                "referenceBloomFilter[@size]", referenceBloomFilterSize));
+        setReferenceBloomFilterFalsePositiveRate(xml.getDouble(
+                "referenceBloomFilter[@falsePositiveRate]",
+                referenceBloomFilterFalsePositiveRate));
     }
     
     private IStartPathsProvider[] loadStartPathsProviders(
@@ -331,15 +715,33 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         return new EqualsBuilder()
                 .appendSuper(super.equals(castOther))
                 .append(keepDownloads, castOther.keepDownloads)
+                .append(lazyProviders, castOther.lazyProviders)
+                .append(archiveStreaming, castOther.archiveStreaming)
+                .append(replicationCacheSize, castOther.replicationCacheSize)
+                .append(zipRandomAccess, castOther.zipRandomAccess)
                 .append(startPaths, castOther.startPaths)
                 .append(pathsFiles, castOther.pathsFiles)
                 .append(startPathsProviders, castOther.startPathsProviders)
+                .append(startPathsStreaming, castOther.startPathsStreaming)
+                .append(startPathsMaxQueueSize,
+                        castOther.startPathsMaxQueueSize)
+                .append(startPathsThreads, castOther.startPathsThreads)
+                .append(shardNodeIndex, castOther.shardNodeIndex)
+                .append(shardNodeCount, castOther.shardNodeCount)
+                .append(shardBy, castOther.shardBy)
                 .append(optionsProvider, castOther.optionsProvider)
+                .append(throttler, castOther.throttler)
                 .append(metadataFetcher, castOther.metadataFetcher)
                 .append(metadataChecksummer, castOther.metadataChecksummer)
                 .append(documentFetcher, castOther.documentFetcher)
                 .append(preImportProcessors, castOther.preImportProcessors)
                 .append(postImportProcessors, castOther.postImportProcessors)
+                .append(referenceBloomFilterEnabled,
+                        castOther.referenceBloomFilterEnabled)
+                .append(referenceBloomFilterSize,
+                        castOther.referenceBloomFilterSize)
+                .append(referenceBloomFilterFalsePositiveRate,
+                        castOther.referenceBloomFilterFalsePositiveRate)
                 .isEquals();
     }
 
@@ -348,15 +750,29 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         return new HashCodeBuilder()
                 .appendSuper(super.hashCode())
                 .append(keepDownloads)
+                .append(lazyProviders)
+                .append(archiveStreaming)
+                .append(replicationCacheSize)
+                .append(zipRandomAccess)
                 .append(startPaths)
                 .append(pathsFiles)
                 .append(startPathsProviders)
+                .append(startPathsStreaming)
+                .append(startPathsMaxQueueSize)
+                .append(startPathsThreads)
+                .append(shardNodeIndex)
+                .append(shardNodeCount)
+                .append(shardBy)
                 .append(optionsProvider)
+                .append(throttler)
                 .append(metadataFetcher)
                 .append(metadataChecksummer)
                 .append(documentFetcher)
                 .append(preImportProcessors)
                 .append(postImportProcessors)
+                .append(referenceBloomFilterEnabled)
+                .append(referenceBloomFilterSize)
+                .append(referenceBloomFilterFalsePositiveRate)
                 .toHashCode();
     }
 
@@ -365,15 +781,31 @@ public class FilesystemCrawlerConfig extends AbstractCrawlerConfig {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
                 .appendSuper(super.toString())
                 .append("keepDownloads", keepDownloads)
+                .append("lazyProviders", lazyProviders)
+                .append("archiveStreaming", archiveStreaming)
+                .append("replicationCacheSize", replicationCacheSize)
+                .append("zipRandomAccess", zipRandomAccess)
                 .append("startPaths", startPaths)
                 .append("pathsFiles", pathsFiles)
                 .append("startPathsProviders", startPathsProviders)
+                .append("startPathsStreaming", startPathsStreaming)
+                .append("startPathsMaxQueueSize", startPathsMaxQueueSize)
+                .append("startPathsThreads", startPathsThreads)
+                .append("shardNodeIndex", shardNodeIndex)
+                .append("shardNodeCount", shardNodeCount)
+                .append("shardBy", shardBy)
                 .append("optionsProvider", optionsProvider)
+                .append("throttler", throttler)
                 .append("metadataFetcher", metadataFetcher)
                 .append("metadataChecksummer", metadataChecksummer)
                 .append("documentFetcher", documentFetcher)
                 .append("preImportProcessors", preImportProcessors)
                 .append("postImportProcessors", postImportProcessors)
+                .append("referenceBloomFilterEnabled",
+                        referenceBloomFilterEnabled)
+                .append("referenceBloomFilterSize", referenceBloomFilterSize)
+                .append("referenceBloomFilterFalsePositiveRate",
+                        referenceBloomFilterFalsePositiveRate)
                 .toString();
     }  
 }
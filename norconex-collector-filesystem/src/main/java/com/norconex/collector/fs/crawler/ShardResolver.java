@@ -0,0 +1,150 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.commons.vfs2.FileName;
+
+import com.norconex.collector.core.CollectorException;
+
+/**
+ * Tells whether a file belongs to the shard of the current collector node
+ * when a crawl is distributed across several nodes.  Files are assigned
+ * to nodes using consistent hashing, either on their full path or
+ * on the top-level folder they are in (relative to the start path
+ * they were found under). Consistent hashing ensures only a small portion
+ * of files change node when the number of nodes changes.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class ShardResolver {
+
+    /** Number of points each node occupies on the hash ring. */
+    public static final int VIRTUAL_NODES = 160;
+
+    private final int nodeIndex;
+    private final int nodeCount;
+    private final boolean byTopFolder;
+    private final List<FileName> roots;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    /**
+     * Constructor.
+     * @param nodeIndex index of the current node (zero-based)
+     * @param nodeCount total number of nodes
+     * @param byTopFolder <code>true</code> to shard on top-level folders
+     *        instead of full paths
+     * @param roots start paths top-level folders are relative to
+     *        (files not under any of them are sharded on their path)
+     */
+    public ShardResolver(int nodeIndex, int nodeCount,
+            boolean byTopFolder, List<FileName> roots) {
+        super();
+        if (nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new CollectorException("Invalid shard node index "
+                    + nodeIndex + " for node count " + nodeCount + ".");
+        }
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+        this.byTopFolder = byTopFolder;
+        this.roots = roots == null
+                ? new ArrayList<FileName>() : new ArrayList<>(roots);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash("node-" + node + "#" + i), node);
+            }
+        }
+    }
+
+    public int getNodeIndex() {
+        return nodeIndex;
+    }
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    public boolean isByTopFolder() {
+        return byTopFolder;
+    }
+
+    /**
+     * Gets whether a file belongs to the current node shard.
+     * @param fileName the file name
+     * @return <code>true</code> if the file is to be processed by
+     *         the current node
+     */
+    public boolean isInShard(FileName fileName) {
+        return getNode(getShardKey(fileName)) == nodeIndex;
+    }
+
+    /**
+     * Gets the node a shard key is assigned to.
+     * @param key shard key
+     * @return node index
+     */
+    public int getNode(String key) {
+        Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    /*default*/ String getShardKey(FileName fileName) {
+        if (byTopFolder) {
+            for (FileName root : roots) {
+                FileName topFolder = getTopFolder(root, fileName);
+                if (topFolder != null) {
+                    return topFolder.getURI();
+                }
+            }
+        }
+        return fileName.getURI();
+    }
+
+    private FileName getTopFolder(FileName root, FileName fileName) {
+        if (!root.isDescendent(fileName)) {
+            return null;
+        }
+        FileName name = fileName;
+        FileName parent = name.getParent();
+        while (parent != null && !parent.equals(root)) {
+            name = parent;
+            parent = name.getParent();
+        }
+        return name;
+    }
+
+    private static long hash(String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(
+                    key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new CollectorException("MD5 not supported.", e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,313 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.LineIterator;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+
+/**
+ * Queues start paths from paths files and providers.  Each paths file
+ * and provider is read by its own thread from a bounded pool, while
+ * queuing itself is done one path at a time so paths obtained from
+ * more than one source are queued only once.
+ * When started in the background, queuing happens while crawling is
+ * already under way and pauses whenever the queue holds a maximum
+ * number of references (checked before queuing each path).
+ * The crawler calls {@link #awaitQueued()} so its threads do not
+ * consider the crawl finished while start paths are still being queued.
+ * Seeding is not saved: when resuming, it is started over and paths
+ * already queued or processed are ignored.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+/*default*/ final class StartPathsSeeder implements Runnable {
+
+    private static final Logger LOG =
+            LogManager.getLogger(StartPathsSeeder.class);
+
+    private static final long QUEUE_WAIT = 100;
+    private static final long SHUTDOWN_WAIT = 30;
+
+    private final FilesystemCrawler crawler;
+    private final ICrawlDataStore crawlDataStore;
+    private final int maxQueueSize;
+    private final int threads;
+    private final Object queueLock = new Object();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Thread thread;
+
+    /**
+     * Constructor.
+     * @param crawler the crawler
+     * @param crawlDataStore crawl data store
+     * @param maxQueueSize queue size pausing queuing, zero or less for
+     *        unlimited
+     * @param threads maximum number of sources read at once
+     */
+    /*default*/ StartPathsSeeder(FilesystemCrawler crawler,
+            ICrawlDataStore crawlDataStore, int maxQueueSize, int threads) {
+        super();
+        this.crawler = crawler;
+        this.crawlDataStore = crawlDataStore;
+        this.maxQueueSize = maxQueueSize;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Starts seeding in the background.
+     */
+    /*default*/ void start() {
+        thread = new Thread(this,
+                crawler.getCrawlerConfig().getId() + "-seeder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops seeding if not already done and waits for it to end.
+     */
+    /*default*/ void stop() {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Gets whether seeding started in the background is still under way.
+     * @return <code>true</code> if seeding
+     */
+    /*default*/ boolean isSeeding() {
+        return done.getCount() > 0;
+    }
+
+    /**
+     * Waits while the queue is empty and seeding is still under way,
+     * so crawler threads keep running until all start paths are queued.
+     */
+    /*default*/ void awaitQueued() {
+        try {
+            while (crawlDataStore.isQueueEmpty()
+                    && !done.await(QUEUE_WAIT, TimeUnit.MILLISECONDS)) {
+                // wait for paths or end of seeding
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            long count = seed();
+            LOG.info(NumberFormat.getNumberInstance().format(count)
+                    + " start paths read from paths files and providers.");
+        } catch (Exception e) {
+            LOG.error("Could not queue all start paths.", e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Queues start paths from all paths files and providers, returning
+     * when they are all queued.
+     * @return number of start paths read (including duplicates)
+     */
+    /*default*/ long seed() {
+        List<Callable<Long>> tasks = createTasks();
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(threads, tasks.size()),
+                new BasicThreadFactory.Builder()
+                        .namingPattern(crawler.getCrawlerConfig().getId()
+                                + "-seeder-%d")
+                        .daemon(true)
+                        .build());
+        try {
+            long count = 0;
+            for (Future<Long> future : pool.invokeAll(tasks)) {
+                count += future.get();
+            }
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CollectorException(
+                    "Interrupted while queuing start paths.", e);
+        } catch (ExecutionException e) {
+            throw new CollectorException(
+                    "Could not queue start paths.", e.getCause());
+        } finally {
+            shutdown(pool);
+        }
+    }
+
+    private List<Callable<Long>> createTasks() {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        FilesystemCrawlerConfig config = crawler.getCrawlerConfig();
+        String[] pathsFiles = config.getPathsFiles();
+        if (pathsFiles != null) {
+            for (final String pathsFile : pathsFiles) {
+                tasks.add(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        return seedPathsFile(pathsFile);
+                    }
+                });
+            }
+        }
+        IStartPathsProvider[] providers = config.getStartPathsProviders();
+        if (providers != null) {
+            for (int i = 0; i < providers.length; i++) {
+                final IStartPathsProvider provider = providers[i];
+                if (provider == null) {
+                    continue;
+                }
+                final String name = provider.getClass().getSimpleName()
+                        + "#" + (i + 1);
+                tasks.add(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return seed(provider.provideStartPaths(), name);
+                    }
+                });
+            }
+        }
+        return tasks;
+    }
+
+    private void shutdown(ExecutorService pool) {
+        pool.shutdownNow();
+        // Clear interrupted flag while waiting so sources in the middle
+        // of queuing a path do it before the crawl data store is closed.
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_WAIT, TimeUnit.SECONDS)) {
+                LOG.warn("Start paths sources still running after "
+                        + SHUTDOWN_WAIT + " seconds.");
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long seedPathsFile(String pathsFile) throws IOException {
+        LineIterator it = null;
+        try {
+            it = openPathsFile(pathsFile);
+            return seed(it, pathsFile);
+        } finally {
+            LineIterator.closeQuietly(it);
+        }
+    }
+
+    private long seed(Iterator<String> it, String source) {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        while (it.hasNext()) {
+            String path = it.next();
+            if (StringUtils.isBlank(path)) {
+                continue;
+            }
+            // Checked under the lock so sources together never go over
+            synchronized (queueLock) {
+                if (!waitForQueueRoom()) {
+                    LOG.info("Start paths seeding interrupted: " + source);
+                    break;
+                }
+                crawler.executeQueuePipeline(
+                        new BaseCrawlData(path), crawlDataStore);
+            }
+            count++;
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        LOG.info(source + ": "
+                + NumberFormat.getNumberInstance().format(count)
+                + " start paths read in " + elapsed + "ms ("
+                + NumberFormat.getNumberInstance().format(
+                        count * 1000 / elapsed) + "/s).");
+        return count;
+    }
+
+    private boolean waitForQueueRoom() {
+        try {
+            while (maxQueueSize > 0
+                    && crawlDataStore.getQueueSize() >= maxQueueSize) {
+                Thread.sleep(QUEUE_WAIT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Opens a paths file for reading, one path per line.  Files ending
+     * with ".gz" are decompressed while being read.
+     * @param pathsFile paths file
+     * @return line iterator to be closed by the caller
+     * @throws IOException problem opening the file
+     */
+    /*default*/ static LineIterator openPathsFile(String pathsFile)
+            throws IOException {
+        InputStream is = new FileInputStream(new File(pathsFile));
+        try {
+            if (StringUtils.endsWithIgnoreCase(pathsFile, ".gz")) {
+                is = new GZIPInputStream(is);
+            }
+            return IOUtils.lineIterator(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(is);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.provider.UriParser;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.core.crawler.event.CrawlerEvent;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.core.pipeline.BasePipelineContext;
+import com.norconex.collector.core.pipeline.importer.ImporterPipelineContext;
+import com.norconex.collector.core.pipeline.queue.ReferenceFiltersStage;
+import com.norconex.collector.core.spoil.ISpoiledReferenceStrategizer;
+import com.norconex.collector.core.spoil.SpoiledReferenceStrategy;
+import com.norconex.collector.fs.data.store.OffHeapBloomFilter;
+import com.norconex.collector.fs.doc.FileDocument;
+import com.norconex.collector.fs.doc.FileMetadata;
+import com.norconex.collector.fs.pipeline.importer.FileImporterPipeline;
+import com.norconex.collector.fs.pipeline.importer.FileImporterPipelineContext;
+import com.norconex.collector.fs.throttle.IHostThrottler;
+import com.norconex.collector.fs.throttle.IHostThrottler.Operation;
+import com.norconex.committer.core.ICommitter;
+import com.norconex.commons.lang.io.CachedInputStream;
+import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.pipeline.IPipelineStage;
+import com.norconex.importer.doc.ImporterDocument;
+import com.norconex.importer.response.ImporterResponse;
+
+/**
+ * Imports all entries of an archive (zip, jar, tar, tgz, tbz2) in a
+ * single sequential read of the archive file, without having
+ * Apache Commons VFS replicate the archive locally first. Each entry
+ * is imported and committed as soon as it is read, as an embedded
+ * document of the archive with the same reference it would have when
+ * listed by VFS (e.g.
+ * <code>zip:smb://host/share/file.zip!/dir/entry.txt</code>).
+ * Entries go through reference filters, metadata filters, document
+ * filters and pre-import processors, are committed unless their content
+ * is unchanged, and are recorded as processed.
+ * Entries no longer found in a modified or deleted archive are left to
+ * the crawler orphan handling.
+ * Used as the last stage of the importer pipeline of an archive root
+ * reference, once metadata of the archive file itself was fetched
+ * and found new or modified.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+/*default*/ final class StreamingArchiveImporter
+        implements IPipelineStage<ImporterPipelineContext> {
+
+    private static final Logger LOG =
+            LogManager.getLogger(StreamingArchiveImporter.class);
+
+    private static final String[] ZIP_SCHEMES = { "zip", "jar" };
+    private static final String[] TAR_SCHEMES = { "tar", "tgz", "tbz2" };
+
+    /**
+     * Whether a reference is the root of an archive that can be streamed.
+     * @param ref the reference
+     * @return <code>true</code> if an archive root
+     */
+    /*default*/ static boolean isArchiveRoot(String ref) {
+        String scheme = UriParser.extractScheme(ref);
+        if (!ArrayUtils.contains(ZIP_SCHEMES, scheme)
+                && !ArrayUtils.contains(TAR_SCHEMES, scheme)) {
+            return false;
+        }
+        int bang = ref.lastIndexOf('!');
+        return bang == -1 || StringUtils.strip(
+                ref.substring(bang + 1), "/").isEmpty();
+    }
+
+    /**
+     * Gets the reference of the archive file itself.
+     * @param ref archive root reference
+     * @return archive file reference
+     */
+    /*default*/ static String getArchiveFileReference(String ref) {
+        String archiveRef = StringUtils.substringAfter(ref, ":");
+        int bang = archiveRef.lastIndexOf('!');
+        if (bang != -1) {
+            archiveRef = archiveRef.substring(0, bang);
+        }
+        return archiveRef;
+    }
+
+    /**
+     * Imports and commits every file entry of the archive file
+     * of the given context.  The archive root itself is given a
+     * successful importer response so it is kept for the next
+     * incremental run, but it is not committed.
+     * @param context importer context of the archive root reference
+     * @return <code>true</code>
+     */
+    @Override
+    public boolean execute(ImporterPipelineContext context) {
+        FileImporterPipelineContext ctx =
+                (FileImporterPipelineContext) context;
+        String ref = ctx.getCrawlData().getReference();
+        IHostThrottler throttler = ctx.getConfig().getThrottler();
+        long token = throttler == null
+                ? 0 : throttler.acquire(ctx.getFileObject());
+        Throwable error = null;
+        int count = 0;
+        try {
+            count = importEntries(ctx);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            ctx.getCrawlData().setState(CrawlState.ERROR);
+            ctx.fireCrawlerEvent(CrawlerEvent.REJECTED_ERROR,
+                    ctx.getCrawlData(), ctx.getFileObject());
+            throw new CollectorException(
+                    "Could not stream archive: " + ref, e);
+        } finally {
+            if (throttler != null) {
+                throttler.release(ctx.getFileObject(),
+                        Operation.ARCHIVE, token, error);
+            }
+        }
+        ctx.getCrawlData().setCrawlDate(new Date());
+        LOG.debug(count + " entries streamed from archive: " + ref);
+        ctx.setImporterResponse(new ImporterResponse(ctx.getDocument()));
+        return true;
+    }
+
+    private int importEntries(FileImporterPipelineContext ctx)
+            throws IOException {
+        String ref = ctx.getCrawlData().getReference();
+        String scheme = UriParser.extractScheme(ref);
+        String entryPrefix = scheme + ":"
+                + getArchiveFileReference(ref) + "!/";
+        int count = 0;
+        try (ArchiveInputStream archive = openArchive(scheme,
+                ctx.getFileObject().getContent().getInputStream())) {
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                if (entry.isDirectory() || !archive.canReadEntryData(entry)) {
+                    continue;
+                }
+                importEntry(ctx, entryPrefix + entry.getName(),
+                        entry, archive);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Imported while the archive is positioned on the entry, only caching
+    // what the importer reads, and released before moving on.
+    private void importEntry(FileImporterPipelineContext ctx,
+            String entryRef, ArchiveEntry entry, InputStream archive)
+                    throws IOException {
+        FilesystemCrawler crawler = ctx.getCrawler();
+        ICrawlDataStore store = ctx.getCrawlDataStore();
+        BaseCrawlData crawlData = createEntryCrawlData(ctx, entryRef);
+        BaseCrawlData cachedCrawlData =
+                (BaseCrawlData) store.getCached(entryRef);
+        if (!new ReferenceFiltersStage().execute(
+                new BasePipelineContext(crawler, store, crawlData))) {
+            finalizeEntry(ctx, crawlData, cachedCrawlData, null);
+            return;
+        }
+        CachedInputStream content = ctx.getDocument().getContent()
+                .getStreamFactory().newInputStream(
+                        new CloseShieldInputStream(archive));
+        try {
+            FileDocument doc = new FileDocument(entryRef, content);
+            FileMetadata metadata = doc.getMetadata();
+            if (entry.getSize() >= 0) {
+                metadata.addLong(FileMetadata.COLLECTOR_SIZE, entry.getSize());
+            }
+            if (entry.getLastModifiedDate() != null) {
+                metadata.addLong(FileMetadata.COLLECTOR_LASTMODIFIED,
+                        entry.getLastModifiedDate().getTime());
+            }
+            // Entries have no file object of their own
+            FileImporterPipelineContext entryCtx =
+                    new FileImporterPipelineContext(crawler, store, doc,
+                            crawlData, cachedCrawlData, null);
+            FileImporterPipeline.createFetchedDocumentPipeline()
+                    .execute(entryCtx);
+            ImporterResponse response = entryCtx.getImporterResponse();
+            if (response != null) {
+                processResponse(ctx, response, crawlData, cachedCrawlData);
+            } else {
+                finalizeEntry(ctx, crawlData, cachedCrawlData, doc);
+            }
+        } finally {
+            content.dispose();
+        }
+    }
+
+    // Same as what the crawler does with importer responses.
+    private void processResponse(FileImporterPipelineContext ctx,
+            ImporterResponse response, BaseCrawlData crawlData,
+            BaseCrawlData cachedCrawlData) {
+        FilesystemCrawler crawler = ctx.getCrawler();
+        ICrawlDataStore store = ctx.getCrawlDataStore();
+        for (ImporterResponse nested : response.getNestedResponses()) {
+            String ref = nested.getReference();
+            processResponse(ctx, nested, createEntryCrawlData(ctx, ref),
+                    (BaseCrawlData) store.getCached(ref));
+        }
+        ImporterDocument doc = response.getDocument();
+        try {
+            if (response.isSuccess()) {
+                crawlData.setContentType(doc.getContentType());
+                crawler.fireCrawlerEvent(
+                        CrawlerEvent.DOCUMENT_IMPORTED, crawlData, response);
+                crawler.executeCommitterPipeline(crawler,
+                        crawler.wrapDocument(crawlData, doc),
+                        store, crawlData, cachedCrawlData);
+            } else {
+                crawlData.setState(CrawlState.REJECTED);
+                crawler.fireCrawlerEvent(
+                        CrawlerEvent.REJECTED_IMPORT, crawlData, response);
+            }
+            finalizeEntry(ctx, crawlData, cachedCrawlData, doc);
+        } finally {
+            if (doc != null) {
+                doc.getContent().dispose();
+            }
+        }
+    }
+
+    // Same as what the crawler does once a document is processed:
+    // handles spoiled entries and records the entry as processed so it
+    // is cached for the next run. Entries no longer in the archive are
+    // not processed and are handled as orphans.
+    private void finalizeEntry(FileImporterPipelineContext ctx,
+            BaseCrawlData crawlData, BaseCrawlData cachedCrawlData,
+            ImporterDocument doc) {
+        CrawlState state = crawlData.getState();
+        if (state == null || state.isNewOrModified()) {
+            // Rejected before being imported
+            state = CrawlState.REJECTED;
+            crawlData.setState(state);
+        }
+        if (!state.isGoodState() && cachedCrawlData != null
+                && !cachedCrawlData.getState().isOneOf(CrawlState.DELETED)
+                && isDeleteSpoiled(ctx, crawlData, cachedCrawlData)) {
+            ICommitter committer = ctx.getConfig().getCommitter();
+            crawlData.setState(CrawlState.DELETED);
+            if (committer != null) {
+                committer.remove(crawlData.getReference(), doc == null
+                        ? new Properties() : doc.getMetadata());
+            }
+            ctx.getCrawler().fireCrawlerEvent(
+                    CrawlerEvent.DOCUMENT_COMMITTED_REMOVE, crawlData, doc);
+        }
+        // Entries are not queued, so the Bloom filter of queued references
+        // must know them for orphans to be told apart.
+        OffHeapBloomFilter filter = ctx.getCrawler().getReferenceBloomFilter();
+        if (filter != null) {
+            synchronized (filter) {
+                filter.put(crawlData.getReference());
+            }
+        }
+        ctx.getCrawlDataStore().processed(crawlData);
+    }
+
+    private boolean isDeleteSpoiled(FileImporterPipelineContext ctx,
+            BaseCrawlData crawlData, BaseCrawlData cachedCrawlData) {
+        ISpoiledReferenceStrategizer strategizer =
+                ctx.getConfig().getSpoiledReferenceStrategizer();
+        SpoiledReferenceStrategy strategy = null;
+        if (strategizer != null) {
+            strategy = strategizer.resolveSpoiledReferenceStrategy(
+                    crawlData.getReference(), crawlData.getState());
+        }
+        if (strategy == null || strategy == SpoiledReferenceStrategy.DELETE) {
+            return true;
+        }
+        return strategy == SpoiledReferenceStrategy.GRACE_ONCE
+                && !cachedCrawlData.getState().isGoodState();
+    }
+
+    private BaseCrawlData createEntryCrawlData(
+            FileImporterPipelineContext ctx, String ref) {
+        BaseCrawlData crawlData = ctx.getCrawler().createEmbeddedCrawlData(
+                ref, ctx.getCrawlData());
+        crawlData.setState(CrawlState.NEW);
+        crawlData.setCrawlDate(new Date());
+        crawlData.setParentRootReference(ctx.getCrawlData().getReference());
+        return crawlData;
+    }
+
+    private static ArchiveInputStream openArchive(
+            String scheme, InputStream is) throws IOException {
+        InputStream in = new BufferedInputStream(is);
+        if (ArrayUtils.contains(ZIP_SCHEMES, scheme)) {
+            return new ZipArchiveInputStream(in);
+        }
+        if ("tgz".equals(scheme)) {
+            in = new GzipCompressorInputStream(in);
+        } else if ("tbz2".equals(scheme)) {
+            in = new BZip2CompressorInputStream(in);
+        }
+        return new TarArchiveInputStream(in);
+    }
+}
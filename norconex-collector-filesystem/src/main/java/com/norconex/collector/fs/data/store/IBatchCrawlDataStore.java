@@ -0,0 +1,37 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store;
+
+import java.util.Collection;
+
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+
+/**
+ * A crawl data store able to queue many references in a single
+ * operation.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public interface IBatchCrawlDataStore extends ICrawlDataStore {
+
+    /**
+     * Queues all supplied crawl data not already active, queued,
+     * or processed.
+     * @param crawlDataList crawl data to queue
+     * @return the number of crawl data actually queued
+     */
+    int queueAllNew(Collection<? extends ICrawlData> crawlDataList);
+}
@@ -0,0 +1,140 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter of strings, with its bits held in a direct (off-heap)
+ * {@link ByteBuffer} so large filters do not add to garbage collection
+ * pressure. A Bloom filter can tell with certainty a value was never
+ * added, but may wrongly report a value as added, at a rate controlled
+ * by the false positive probability it is created with.
+ * Methods are synchronized on this instance.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class OffHeapBloomFilter {
+
+    private static final long MAX_BITS = (long) Integer.MAX_VALUE * 8;
+
+    private final ByteBuffer bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a Bloom filter.
+     * @param expectedInsertions expected number of values to be added
+     * @param falsePositiveRate wanted false positive probability
+     *        (between 0 and 1 exclusively) once the expected number of
+     *        values has been added
+     */
+    public OffHeapBloomFilter(
+            long expectedInsertions, double falsePositiveRate) {
+        super();
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    "False positive rate must be between 0 and 1.");
+        }
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate)
+                / (Math.log(2) * Math.log(2)));
+        m = Math.min(MAX_BITS, Math.max(Byte.SIZE, m));
+        // Round up to whole bytes
+        m = (m + Byte.SIZE - 1) / Byte.SIZE * Byte.SIZE;
+        this.bitCount = m;
+        this.hashCount = (int) Math.max(
+                1, Math.round((double) m / n * Math.log(2)));
+        this.bits = ByteBuffer.allocateDirect((int) (m / Byte.SIZE));
+    }
+
+    /**
+     * Adds a value to this filter.
+     * @param value the value to add
+     * @return <code>true</code> if the value was definitely never added
+     *         before, <code>false</code> if it might have been
+     */
+    public synchronized boolean put(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hash1, hash2, i);
+            int byteIndex = (int) (bit >>> 3);
+            byte current = bits.get(byteIndex);
+            byte updated = (byte) (current | (1 << (bit & 7)));
+            if (updated != current) {
+                bits.put(byteIndex, updated);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets whether a value might have been added to this filter.
+     * @param value the value to check
+     * @return <code>false</code> if the value was definitely never added,
+     *         <code>true</code> if it might have been
+     */
+    public synchronized boolean mightContain(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hash1, hash2, i);
+            if ((bits.get((int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the off-heap memory used by this filter.
+     * @return size in bytes
+     */
+    public long getByteSize() {
+        return bitCount / Byte.SIZE;
+    }
+
+    /**
+     * Gets the number of hash functions used by this filter.
+     * @return number of hash functions
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        long combined = hash1 + i * hash2;
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    private static long hash(String value, long seed) {
+        long h = seed ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+            h = Long.rotateLeft(h, 23);
+        }
+        // MurmurHash3 finalizer
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
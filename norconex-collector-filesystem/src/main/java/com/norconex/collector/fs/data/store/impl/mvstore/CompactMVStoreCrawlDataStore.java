@@ -0,0 +1,299 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.fs.data.store.IBatchCrawlDataStore;
+
+/**
+ * <p>Embedded {@link ICrawlDataStore} backed by an H2 MVStore file,
+ * storing crawl data in a compact binary form.</p>
+ * <p>
+ * Queued references are kept in insertion order. Writes are buffered
+ * in memory and committed to disk in the background at a configurable
+ * interval, or sooner when the write buffer is full.
+ * </p>
+ * <p>
+ * References are stored with their parent folder replaced by a short
+ * identifier (see {@link ReferenceEncoder}), so long common path prefixes
+ * are only stored once.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ * @see CompactMVStoreCrawlDataStoreFactory
+ */
+public class CompactMVStoreCrawlDataStore implements IBatchCrawlDataStore {
+
+    private static final Logger LOG =
+            LogManager.getLogger(CompactMVStoreCrawlDataStore.class);
+
+    private static final String MAP_QUEUE = "queue";
+    private static final String MAP_QUEUE_INDEX = "queueIndex";
+    private static final String MAP_ACTIVE = "active";
+    private static final String MAP_PROCESSED_VALID = "processedValid";
+    private static final String MAP_PROCESSED_INVALID = "processedInvalid";
+    private static final String MAP_CACHED = "cached";
+
+    private final MVStore store;
+
+    // Queue: insertion sequence -> crawl data (with reference)
+    private final MVMap<Long, byte[]> mapQueue;
+    // Queue index: encoded reference -> insertion sequence
+    private final MVMap<String, Long> mapQueueIndex;
+    // Other maps: encoded reference -> crawl data (without reference)
+    private final MVMap<String, byte[]> mapActive;
+    private MVMap<String, byte[]> mapProcessedValid;
+    private final MVMap<String, byte[]> mapProcessedInvalid;
+    private MVMap<String, byte[]> mapCached;
+
+    private final ReferenceEncoder encoder;
+    private final CrawlDataSerializer serializer;
+
+    private long nextSequence;
+
+    /**
+     * Creates a new store.
+     * @param file the store file
+     * @param resume whether to resume a previous crawl
+     * @param cacheSize store read cache size, in MB
+     * @param commitDelay maximum delay before writes are committed,
+     *        in milliseconds
+     * @param commitBufferSize size of the write buffer triggering a
+     *        commit when full, in KB
+     * @param compress whether to compress stored data
+     */
+    public CompactMVStoreCrawlDataStore(File file, boolean resume,
+            int cacheSize, int commitDelay, int commitBufferSize,
+            boolean compress) {
+        super();
+        LOG.info("Initializing crawl data store: " + file);
+        MVStore.Builder builder = new MVStore.Builder()
+                .fileName(file.getAbsolutePath())
+                .cacheSize(cacheSize)
+                .autoCommitBufferSize(commitBufferSize);
+        if (compress) {
+            builder.compress();
+        }
+        store = builder.open();
+        store.setAutoCommitDelay(commitDelay);
+
+        encoder = new ReferenceEncoder(store);
+        serializer = new CrawlDataSerializer(encoder);
+
+        mapQueue = store.openMap(MAP_QUEUE);
+        mapQueueIndex = store.openMap(MAP_QUEUE_INDEX);
+        mapActive = store.openMap(MAP_ACTIVE);
+        mapProcessedValid = store.openMap(MAP_PROCESSED_VALID);
+        mapProcessedInvalid = store.openMap(MAP_PROCESSED_INVALID);
+        mapCached = store.openMap(MAP_CACHED);
+
+        if (resume) {
+            if (!mapQueue.isEmpty()) {
+                nextSequence = mapQueue.lastKey() + 1;
+            }
+            LOG.info("Resuming: putting active references back in queue.");
+            for (Entry<String, byte[]> entry : mapActive.entrySet()) {
+                queue(serializer.fromBytes(
+                        entry.getValue(), encoder.decode(entry.getKey())));
+            }
+            mapActive.clear();
+        } else {
+            // The valid references of the previous run become the cache.
+            // Renaming is much faster than copying every entry.
+            store.removeMap(mapCached);
+            store.renameMap(mapProcessedValid, MAP_CACHED);
+            mapCached = store.openMap(MAP_CACHED);
+            mapProcessedValid = store.openMap(MAP_PROCESSED_VALID);
+            mapProcessedInvalid.clear();
+            mapQueue.clear();
+            mapQueueIndex.clear();
+            mapActive.clear();
+        }
+        store.commit();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Crawl data store cache size: " + mapCached.size());
+        }
+    }
+
+    @Override
+    public synchronized void queue(ICrawlData crawlData) {
+        String key = encoder.encode(crawlData.getReference());
+        Long sequence = mapQueueIndex.get(key);
+        if (sequence == null) {
+            sequence = nextSequence++;
+            mapQueueIndex.put(key, sequence);
+        }
+        mapQueue.put(sequence, serializer.toBytes(crawlData, true));
+    }
+
+    @Override
+    public synchronized int queueAllNew(
+            Collection<? extends ICrawlData> crawlDataList) {
+        int count = 0;
+        for (ICrawlData crawlData : crawlDataList) {
+            String key = encoder.encodeIfKnown(crawlData.getReference());
+            if (key != null && (mapActive.containsKey(key)
+                    || mapQueueIndex.containsKey(key)
+                    || mapProcessedValid.containsKey(key)
+                    || mapProcessedInvalid.containsKey(key))) {
+                continue;
+            }
+            queue(crawlData);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isQueueEmpty() {
+        return mapQueue.isEmpty();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return mapQueue.size();
+    }
+
+    @Override
+    public boolean isQueued(String reference) {
+        String key = encoder.encodeIfKnown(reference);
+        return key != null && mapQueueIndex.containsKey(key);
+    }
+
+    @Override
+    public synchronized ICrawlData nextQueued() {
+        Long sequence = mapQueue.firstKey();
+        if (sequence == null) {
+            return null;
+        }
+        byte[] bytes = mapQueue.remove(sequence);
+        ICrawlData crawlData = serializer.fromBytes(bytes, null);
+        String key = encoder.encode(crawlData.getReference());
+        mapQueueIndex.remove(key);
+        mapActive.put(key, serializer.toBytes(crawlData, false));
+        return crawlData;
+    }
+
+    @Override
+    public boolean isActive(String reference) {
+        String key = encoder.encodeIfKnown(reference);
+        return key != null && mapActive.containsKey(key);
+    }
+
+    @Override
+    public int getActiveCount() {
+        return mapActive.size();
+    }
+
+    @Override
+    public ICrawlData getCached(String cacheReference) {
+        String key = encoder.encodeIfKnown(cacheReference);
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = mapCached.get(key);
+        if (bytes == null) {
+            return null;
+        }
+        return serializer.fromBytes(bytes, cacheReference);
+    }
+
+    @Override
+    public boolean isCacheEmpty() {
+        return mapCached.isEmpty();
+    }
+
+    @Override
+    public synchronized void processed(ICrawlData crawlData) {
+        String key = encoder.encode(crawlData.getReference());
+        byte[] bytes = serializer.toBytes(crawlData, false);
+        if (crawlData.getState().isGoodState()) {
+            mapProcessedValid.put(key, bytes);
+        } else {
+            mapProcessedInvalid.put(key, bytes);
+        }
+        mapActive.remove(key);
+        if (!mapCached.isEmpty()) {
+            mapCached.remove(key);
+        }
+    }
+
+    @Override
+    public boolean isProcessed(String referenceId) {
+        String key = encoder.encodeIfKnown(referenceId);
+        return key != null && (mapProcessedValid.containsKey(key)
+                || mapProcessedInvalid.containsKey(key));
+    }
+
+    @Override
+    public int getProcessedCount() {
+        return mapProcessedValid.size() + mapProcessedInvalid.size();
+    }
+
+    @Override
+    public Iterator<ICrawlData> getCacheIterator() {
+        final Iterator<Entry<String, byte[]>> it =
+                mapCached.entrySet().iterator();
+        return new Iterator<ICrawlData>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            @Override
+            public ICrawlData next() {
+                Entry<String, byte[]> entry = it.next();
+                return serializer.fromBytes(
+                        entry.getValue(), encoder.decode(entry.getKey()));
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean isVanished(ICrawlData crawlData) {
+        ICrawlData cachedData = getCached(crawlData.getReference());
+        if (cachedData == null) {
+            return false;
+        }
+        CrawlState current = crawlData.getState();
+        CrawlState last = cachedData.getState();
+        return !current.isGoodState() && last.isGoodState();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (store.isClosed()) {
+            return;
+        }
+        LOG.info("Closing crawl data store.");
+        store.commit();
+        store.close();
+    }
+}
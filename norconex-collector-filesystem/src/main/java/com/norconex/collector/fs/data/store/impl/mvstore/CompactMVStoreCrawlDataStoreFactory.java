@@ -0,0 +1,212 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.core.crawler.ICrawlerConfig;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.core.data.store.ICrawlDataStoreFactory;
+import com.norconex.commons.lang.config.IXMLConfigurable;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+import com.norconex.commons.lang.file.FileUtil;
+import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
+
+/**
+ * <p>Embedded, disk-backed implementation of {@link ICrawlDataStoreFactory}
+ * designed for crawls with a very large number of files.
+ * Crawl data is stored in an H2 MVStore file using a compact binary
+ * serialization, with writes committed in batches.</p>
+ * <p>
+ * The store is created under the crawler working directory, in
+ * <code>crawlstore/compact/&lt;crawlerId&gt;</code>.
+ * </p>
+ *
+ * <h3>XML configuration usage:</h3>
+ * <pre>
+ *  &lt;crawlDataStoreFactory
+ *      class="com.norconex.collector.fs.data.store.impl.mvstore.CompactMVStoreCrawlDataStoreFactory"&gt;
+ *      &lt;cacheSize&gt;(read cache size in MB, default 16)&lt;/cacheSize&gt;
+ *      &lt;commitDelay&gt;
+ *          (maximum delay before writes are committed, default is 1 second)
+ *      &lt;/commitDelay&gt;
+ *      &lt;commitBufferSize&gt;
+ *          (size in KB of unsaved changes triggering a commit,
+ *           default is 1024)
+ *      &lt;/commitBufferSize&gt;
+ *      &lt;compress&gt;[false|true]&lt;/compress&gt;
+ *  &lt;/crawlDataStoreFactory&gt;
+ * </pre>
+ * <h4>Usage example:</h4>
+ * <p>
+ * The following uses a 64MB cache and commits writes every 5 seconds.
+ * </p>
+ * <pre>
+ *  &lt;crawlDataStoreFactory
+ *      class="com.norconex.collector.fs.data.store.impl.mvstore.CompactMVStoreCrawlDataStoreFactory"&gt;
+ *      &lt;cacheSize&gt;64&lt;/cacheSize&gt;
+ *      &lt;commitDelay&gt;5 seconds&lt;/commitDelay&gt;
+ *  &lt;/crawlDataStoreFactory&gt;
+ * </pre>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class CompactMVStoreCrawlDataStoreFactory
+        implements ICrawlDataStoreFactory, IXMLConfigurable {
+
+    public static final int DEFAULT_CACHE_SIZE = 16;
+    public static final long DEFAULT_COMMIT_DELAY = 1000;
+    public static final int DEFAULT_COMMIT_BUFFER_SIZE = 1024;
+
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private long commitDelay = DEFAULT_COMMIT_DELAY;
+    private int commitBufferSize = DEFAULT_COMMIT_BUFFER_SIZE;
+    private boolean compress;
+
+    @Override
+    public ICrawlDataStore createCrawlDataStore(
+            ICrawlerConfig config, boolean resume) {
+        File dir = new File(config.getWorkDir(), "crawlstore/compact/"
+                + FileUtil.toSafeFileName(config.getId()));
+        try {
+            FileUtils.forceMkdir(dir);
+        } catch (IOException e) {
+            throw new CollectorException(
+                    "Cannot create crawl data store directory: " + dir, e);
+        }
+        return new CompactMVStoreCrawlDataStore(
+                new File(dir, "crawldata.mv.db"), resume, cacheSize,
+                (int) commitDelay, commitBufferSize, compress);
+    }
+
+    /**
+     * Gets the store read cache size, in MB.
+     * @return cache size
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+    /**
+     * Sets the store read cache size, in MB.
+     * @param cacheSize cache size
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Gets the maximum delay before writes are committed to disk.
+     * @return delay in milliseconds
+     */
+    public long getCommitDelay() {
+        return commitDelay;
+    }
+    /**
+     * Sets the maximum delay before writes are committed to disk.
+     * @param commitDelay delay in milliseconds
+     */
+    public void setCommitDelay(long commitDelay) {
+        this.commitDelay = commitDelay;
+    }
+
+    /**
+     * Gets the size of unsaved changes triggering a commit, in KB.
+     * @return buffer size
+     */
+    public int getCommitBufferSize() {
+        return commitBufferSize;
+    }
+    /**
+     * Sets the size of unsaved changes triggering a commit, in KB.
+     * @param commitBufferSize buffer size
+     */
+    public void setCommitBufferSize(int commitBufferSize) {
+        this.commitBufferSize = commitBufferSize;
+    }
+
+    /**
+     * Gets whether stored data is compressed.
+     * @return <code>true</code> if compressed
+     */
+    public boolean isCompress() {
+        return compress;
+    }
+    /**
+     * Sets whether stored data is compressed.
+     * @param compress <code>true</code> if compressed
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public void loadFromXML(Reader in) throws IOException {
+        XMLConfiguration xml = XMLConfigurationUtil.newXMLConfiguration(in);
+        setCacheSize(xml.getInt("cacheSize", cacheSize));
+        setCommitDelay(XMLConfigurationUtil.getDuration(
+                xml, "commitDelay", commitDelay));
+        setCommitBufferSize(xml.getInt("commitBufferSize", commitBufferSize));
+        setCompress(xml.getBoolean("compress", compress));
+    }
+
+    @Override
+    public void saveToXML(Writer out) throws IOException {
+        try {
+            EnhancedXMLStreamWriter writer = new EnhancedXMLStreamWriter(out);
+            writer.writeStartElement("crawlDataStoreFactory");
+            writer.writeAttribute("class", getClass().getCanonicalName());
+            writer.writeElementInteger("cacheSize", cacheSize);
+            writer.writeElementLong("commitDelay", commitDelay);
+            writer.writeElementInteger("commitBufferSize", commitBufferSize);
+            writer.writeElementBoolean("compress", compress);
+            writer.writeEndElement();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot save as XML.", e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return EqualsBuilder.reflectionEquals(this, other, false);
+    }
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this, false);
+    }
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("cacheSize", cacheSize)
+                .append("commitDelay", commitDelay)
+                .append("commitBufferSize", commitBufferSize)
+                .append("compress", compress)
+                .toString();
+    }
+}
@@ -0,0 +1,204 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.commons.lang.file.ContentType;
+
+/**
+ * Compact binary serialization of {@link BaseCrawlData}. Only fields
+ * having a value are written, preceded by a single byte of flags.
+ * Strings are written as UTF-8 with a variable-length size prefix.
+ * References are shortened using a {@link ReferenceEncoder}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+final class CrawlDataSerializer {
+
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_REFERENCE = 1;
+    private static final int FLAG_PARENT_ROOT_REFERENCE = 1 << 1;
+    private static final int FLAG_ROOT_PARENT = 1 << 2;
+    private static final int FLAG_STATE = 1 << 3;
+    private static final int FLAG_META_CHECKSUM = 1 << 4;
+    private static final int FLAG_CONTENT_CHECKSUM = 1 << 5;
+    private static final int FLAG_CONTENT_TYPE = 1 << 6;
+    private static final int FLAG_CRAWL_DATE = 1 << 7;
+
+    private final ReferenceEncoder encoder;
+
+    CrawlDataSerializer(ReferenceEncoder encoder) {
+        super();
+        this.encoder = encoder;
+    }
+
+    /**
+     * Serializes crawl data.
+     * @param crawlData crawl data
+     * @param withReference whether to include the reference (not needed
+     *        when the reference is the storage key)
+     * @return bytes
+     */
+    byte[] toBytes(ICrawlData crawlData, boolean withReference) {
+        BaseCrawlData data = (BaseCrawlData) crawlData;
+        int flags = 0;
+        if (withReference) {
+            flags |= FLAG_REFERENCE;
+        }
+        flags |= flag(data.getParentRootReference(),
+                FLAG_PARENT_ROOT_REFERENCE);
+        if (data.isRootParentReference()) {
+            flags |= FLAG_ROOT_PARENT;
+        }
+        flags |= flag(data.getState(), FLAG_STATE);
+        flags |= flag(data.getMetaChecksum(), FLAG_META_CHECKSUM);
+        flags |= flag(data.getContentChecksum(), FLAG_CONTENT_CHECKSUM);
+        flags |= flag(data.getContentType(), FLAG_CONTENT_TYPE);
+        flags |= flag(data.getCrawlDate(), FLAG_CRAWL_DATE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            if (withReference) {
+                writeString(out, encoder.encode(data.getReference()));
+            }
+            if (has(flags, FLAG_PARENT_ROOT_REFERENCE)) {
+                writeString(out,
+                        encoder.encode(data.getParentRootReference()));
+            }
+            if (has(flags, FLAG_STATE)) {
+                writeString(out, data.getState().toString());
+            }
+            if (has(flags, FLAG_META_CHECKSUM)) {
+                writeString(out, data.getMetaChecksum());
+            }
+            if (has(flags, FLAG_CONTENT_CHECKSUM)) {
+                writeString(out, data.getContentChecksum());
+            }
+            if (has(flags, FLAG_CONTENT_TYPE)) {
+                writeString(out, data.getContentType().toString());
+            }
+            if (has(flags, FLAG_CRAWL_DATE)) {
+                out.writeLong(data.getCrawlDate().getTime());
+            }
+        } catch (IOException e) {
+            throw new CollectorException(
+                    "Could not serialize: " + data.getReference(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes crawl data.
+     * @param bytes serialized crawl data
+     * @param reference the crawl data reference, or <code>null</code>
+     *        if it was serialized with the crawl data
+     * @return crawl data
+     */
+    BaseCrawlData fromBytes(byte[] bytes, String reference) {
+        BaseCrawlData data = new BaseCrawlData();
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new CollectorException(
+                        "Unsupported crawl data version: " + version);
+            }
+            int flags = in.readByte() & 0xFF;
+            if (has(flags, FLAG_REFERENCE)) {
+                data.setReference(encoder.decode(readString(in)));
+            } else {
+                data.setReference(reference);
+            }
+            if (has(flags, FLAG_PARENT_ROOT_REFERENCE)) {
+                data.setParentRootReference(
+                        encoder.decode(readString(in)));
+            }
+            data.setRootParentReference(has(flags, FLAG_ROOT_PARENT));
+            if (has(flags, FLAG_STATE)) {
+                data.setState(CrawlState.valueOf(readString(in)));
+            }
+            if (has(flags, FLAG_META_CHECKSUM)) {
+                data.setMetaChecksum(readString(in));
+            }
+            if (has(flags, FLAG_CONTENT_CHECKSUM)) {
+                data.setContentChecksum(readString(in));
+            }
+            if (has(flags, FLAG_CONTENT_TYPE)) {
+                data.setContentType(ContentType.valueOf(readString(in)));
+            }
+            if (has(flags, FLAG_CRAWL_DATE)) {
+                data.setCrawlDate(new Date(in.readLong()));
+            }
+        } catch (IOException e) {
+            throw new CollectorException(
+                    "Could not deserialize crawl data.", e);
+        }
+        return data;
+    }
+
+    private static int flag(Object value, int flag) {
+        return value == null ? 0 : flag;
+    }
+    private static boolean has(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value)
+            throws IOException {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,121 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import com.norconex.collector.core.CollectorException;
+
+/**
+ * Shortens file references by replacing their parent folder with a
+ * numeric identifier, kept in a dictionary persisted in the store.
+ * For instance, <code>smb://nas01/share/Finance/2019/report.docx</code>
+ * could be encoded as <code>2s7/report.docx</code>. Files sharing the same
+ * folder only store that folder once. References without a folder are
+ * encoded with a leading slash.
+ * Folder identifiers are never reassigned, so references encoded in a
+ * previous run can still be decoded.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+final class ReferenceEncoder {
+
+    private static final String MAP_FOLDER_IDS = "folderIds";
+    private static final String MAP_FOLDERS = "folders";
+    private static final char SEPARATOR = '/';
+    private static final int RADIX = Character.MAX_RADIX;
+
+    private final MVMap<String, Long> folderIds;
+    private final MVMap<Long, String> folders;
+    private long nextFolderId;
+
+    ReferenceEncoder(MVStore store) {
+        super();
+        folderIds = store.openMap(MAP_FOLDER_IDS);
+        folders = store.openMap(MAP_FOLDERS);
+        if (!folders.isEmpty()) {
+            nextFolderId = folders.lastKey() + 1;
+        }
+    }
+
+    /**
+     * Encodes a reference, registering its folder if new.
+     * @param reference reference to encode
+     * @return encoded reference
+     */
+    String encode(String reference) {
+        return encode(reference, true);
+    }
+
+    /**
+     * Encodes a reference only if its folder is already known.
+     * A reference with an unknown folder cannot have been stored.
+     * @param reference reference to encode
+     * @return encoded reference or <code>null</code>
+     */
+    String encodeIfKnown(String reference) {
+        return encode(reference, false);
+    }
+
+    /**
+     * Decodes a reference.
+     * @param encoded encoded reference
+     * @return original reference
+     */
+    String decode(String encoded) {
+        int index = encoded.indexOf(SEPARATOR);
+        if (index == 0) {
+            return encoded.substring(1);
+        }
+        long id = Long.parseLong(encoded.substring(0, index), RADIX);
+        String folder = folders.get(id);
+        if (folder == null) {
+            throw new CollectorException(
+                    "Unknown folder identifier in reference: " + encoded);
+        }
+        return folder + encoded.substring(index + 1);
+    }
+
+    private String encode(String reference, boolean create) {
+        if (reference == null) {
+            return null;
+        }
+        int index = reference.lastIndexOf(SEPARATOR);
+        if (index <= 0) {
+            return SEPARATOR + reference;
+        }
+        String folder = reference.substring(0, index + 1);
+        Long id = folderIds.get(folder);
+        if (id == null) {
+            if (!create) {
+                return null;
+            }
+            id = registerFolder(folder);
+        }
+        return Long.toString(id, RADIX) + SEPARATOR
+                + reference.substring(index + 1);
+    }
+
+    private synchronized Long registerFolder(String folder) {
+        Long id = folderIds.get(folder);
+        if (id == null) {
+            id = nextFolderId++;
+            folders.put(id, folder);
+            folderIds.put(folder, id);
+        }
+        return id;
+    }
+}
@@ -58,6 +58,9 @@ public class GenericFileMetadataFetcher implements IFileMetadataFetcher {
         FILE_SPECIFICS.put(LocalFile.class, new SpecificLocalFileFetcher());
     }
 
+    private static final MetadataPool ATTRIBUTE_KEYS =
+            new MetadataPool(FileMetadata.COLLECTOR_PREFIX + "attribute.");
+
     @Override
     public CrawlState fetchMetadada(
             FileObject fileObject, Properties metadata) {
@@ -84,16 +87,15 @@ public class GenericFileMetadataFetcher implements IFileMetadataFetcher {
             FileContentInfo info = content.getContentInfo();
             if (info != null) {
                 metadata.addString(FileMetadata.COLLECTOR_CONTENT_ENCODING,
-                        info.getContentEncoding());
+                        MetadataPool.intern(info.getContentEncoding()));
                 metadata.addString(FileMetadata.COLLECTOR_CONTENT_TYPE,
-                        info.getContentType());
+                        MetadataPool.intern(info.getContentType()));
             }
             for (String attrName: content.getAttributeNames()) {
                 Object obj = content.getAttribute(attrName);
                 if (obj != null) {
-                    metadata.addString(FileMetadata.COLLECTOR_PREFIX
-                            + "attribute." + attrName,
-                                    Objects.toString(obj));
+                    metadata.addString(ATTRIBUTE_KEYS.key(attrName),
+                            Objects.toString(obj));
                 }
             }
 
@@ -0,0 +1,88 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.fetch.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares metadata keys and frequently repeated metadata values
+ * (e.g., ACL principals) across documents, so documents being processed
+ * at the same time do not each hold their own copy.
+ * Each instance builds and caches keys made of a fixed prefix and a name,
+ * so cached keys are obtained without creating new strings.
+ * Key pools are bounded: once full, keys are created as needed.
+ * Values are weakly referenced, so they are released once no longer
+ * held by any document.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+/*default*/ final class MetadataPool {
+
+    private static final int MAX_KEYS = 10000;
+
+    private static final Map<String, WeakReference<String>> VALUES =
+            new WeakHashMap<>();
+
+    private final String prefix;
+    private final ConcurrentMap<String, String> keys =
+            new ConcurrentHashMap<>();
+
+    /*default*/ MetadataPool(String prefix) {
+        super();
+        this.prefix = prefix;
+    }
+
+    /**
+     * Gets the key made of this pool prefix and the given name.
+     * @param name key name
+     * @return pooled key
+     */
+    /*default*/ String key(String name) {
+        String key = keys.get(name);
+        if (key != null) {
+            return key;
+        }
+        key = intern(prefix + name);
+        if (keys.size() < MAX_KEYS) {
+            keys.putIfAbsent(name, key);
+        }
+        return key;
+    }
+
+    /**
+     * Gets a shared instance of the given value.
+     * Only use for values likely to be repeated across many documents.
+     * @param value value to intern
+     * @return pooled value
+     */
+    /*default*/ static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        synchronized (VALUES) {
+            WeakReference<String> ref = VALUES.get(value);
+            String pooled = ref == null ? null : ref.get();
+            if (pooled != null) {
+                return pooled;
+            }
+            VALUES.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+}
@@ -42,6 +42,10 @@ public class SpecificCmisAtomFetcher implements IFileSpecificMetaFetcher {
 
     private static final String CMIS_PREFIX =
             FileMetadata.COLLECTOR_PREFIX + "cmis.";
+    private static final MetadataPool CMIS_KEYS =
+            new MetadataPool(CMIS_PREFIX);
+    private static final String ACL_LINK_REL =
+            "http://docs.oasis-open.org/ns/cmis/link/200908/acl";
 
     @Override
     public void fetchFileSpecificMeta(
@@ -56,7 +60,9 @@ public class SpecificCmisAtomFetcher implements IFileSpecificMetaFetcher {
         if (ctx.document != null) {
             fetchCoreMeta(ctx);
             fetchProperties(ctx);
-            fetchAcl(ctx);
+            if (!ctx.cfg.isAclDisabled(ctx.vfsOptions)) {
+                fetchAcl(ctx);
+            }
         }
 
         if (LOG.isTraceEnabled()) {
@@ -111,8 +117,21 @@ public class SpecificCmisAtomFetcher implements IFileSpecificMetaFetcher {
     private void fetchAcl(Context ctx) {
         try {
             Properties permissions = new Properties();
-            NodeList aclNl = ctx.session.getNodeList(ctx.document,
-                    "/entry/object/acl/permission");
+            NodeList aclNl;
+            if (ctx.fileObject.isAclIncluded()) {
+                aclNl = ctx.session.getNodeList(ctx.document,
+                        "/entry/object/acl/permission");
+            } else {
+                // Entries obtained from a folder listing or query do not
+                // hold ACL, so we get it separately.
+                String aclURL = ctx.session.getString(ctx.document,
+                        "/entry/link[@rel='" + ACL_LINK_REL + "']/@href");
+                if (StringUtils.isBlank(aclURL)) {
+                    return;
+                }
+                aclNl = ctx.session.getNodeList(
+                        ctx.session.getDocument(aclURL), "/acl/permission");
+            }
             for (int i = 0; i < aclNl.getLength(); i++) {
                 Node aclNode = aclNl.item(i);
                 String principalId = ctx.session.getString(
@@ -124,7 +143,8 @@ public class SpecificCmisAtomFetcher implements IFileSpecificMetaFetcher {
                     Node permNode = permNl.item(j);
                     String val = permNode.getNodeValue();
                     if (StringUtils.isNotBlank(val)) {
-                        permissions.addString("acl." + val, principalId);
+                        permissions.addString("acl." + val,
+                                MetadataPool.intern(principalId));
                     }
                 }
             }
@@ -160,7 +180,7 @@ public class SpecificCmisAtomFetcher implements IFileSpecificMetaFetcher {
             if (StringUtils.isBlank(val)) {
                 return;
             }
-            metadata.addString(CMIS_PREFIX + key, val);
+            metadata.addString(CMIS_KEYS.key(key), val);
         }
         private void addMetaXpath(String key, String exp) {
             try {
@@ -43,6 +43,7 @@ public class SpecificLocalFileFetcher implements IFileSpecificMetaFetcher {
     private static final String LOCAL_FILE_PREFIX =
             CollectorMetadata.COLLECTOR_PREFIX + "localFile.";
     private static final String ACL_PREFIX = LOCAL_FILE_PREFIX + "acl.";
+    private static final MetadataPool ACL_KEYS = new MetadataPool(ACL_PREFIX);
 
     @Override
     public void fetchFileSpecificMeta(
@@ -80,20 +81,21 @@ public class SpecificLocalFileFetcher implements IFileSpecificMetaFetcher {
 
             if (aclFileAttributes.getOwner() != null
                     && aclFileAttributes.getOwner().getName() != null) {
-                metadata.addString(ACL_PREFIX + "owner",
-                        aclFileAttributes.getOwner().getName());
+                metadata.addString(ACL_KEYS.key("owner"), MetadataPool.intern(
+                        aclFileAttributes.getOwner().getName()));
             }
 
             for (AclEntry aclEntry : aclFileAttributes.getAcl()) {
                 String type = Objects.toString(aclEntry.type(), "[NOTYPE]");
-                String principal = aclEntry.principal().getName();
+                String principal = MetadataPool.intern(
+                        aclEntry.principal().getName());
                 for (AclEntryPermission perm : aclEntry.permissions()) {
-                    metadata.addString(ACL_PREFIX + type
-                            + "." + perm.name(), principal);
+                    metadata.addString(ACL_KEYS.key(
+                            type + "." + perm.name()), principal);
                 }
                 for (AclEntryFlag flag : aclEntry.flags()) {
-                    metadata.addString(ACL_PREFIX + type
-                            + ".flag." + flag.name(), principal);
+                    metadata.addString(ACL_KEYS.key(
+                            type + ".flag." + flag.name()), principal);
                 }
             }
         } catch (IOException e) {
@@ -15,6 +15,7 @@
 package com.norconex.collector.fs.fetch.impl;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.UserAuthenticationData;
@@ -55,6 +56,22 @@ import jcifs.smb.SmbFile;
     private static final String DOMAIN_NAME = ".domainName";
     private static final String ACCOUNT_NAME = ".accountName";
 
+    private static final int KEY_ACE = 0;
+    private static final int KEY_SID = 1;
+    private static final int KEY_SID_TEXT = 2;
+    private static final int KEY_TYPE = 3;
+    private static final int KEY_TYPE_TEXT = 4;
+    private static final int KEY_DOMAIN_SID = 5;
+    private static final int KEY_DOMAIN_NAME = 6;
+    private static final int KEY_ACCOUNT_NAME = 7;
+    private static final String[] KEY_SUFFIXES = {
+        ACE, SID, SID_TEXT, TYPE, TYPE_TEXT,
+        DOMAIN_SID, DOMAIN_NAME, ACCOUNT_NAME
+    };
+
+    // ACL keys for each ACE index, grown as needed.
+    private volatile String[][] aclKeys = new String[0][];
+
     /*default*/ SpecificSmbFetcher() {
         super();
     }
@@ -66,10 +83,7 @@ import jcifs.smb.SmbFile;
             SmbFileObject smbFileObject = (SmbFileObject) fileObject;
             try {
                 SmbFile f = createSmbFile(smbFileObject);
-                ACE[] acl = f.getSecurity();
-                for (int i = 0; i < acl.length; i++) {
-                    storeSID(acl, metadata);
-                }
+                storeSID(f.getSecurity(), metadata);
             } catch (IOException e) {
                 LOG.error("Could not retreive SMB ACL data.", e);
             }
@@ -80,19 +94,45 @@ import jcifs.smb.SmbFile;
         for (int i = 0; i < acls.length; i++) {
             ACE acl = acls[i];
             SID sid = acl.getSID();
-            metadata.setString(key(i, ACE), acl.toString());
-            metadata.setString(key(i, SID), sid.toString());
-            metadata.setString(key(i, SID_TEXT), sid.toDisplayString());
-            metadata.setInt(key(i, TYPE), sid.getType());
-            metadata.setString(key(i, TYPE_TEXT), sid.getTypeText());
-            metadata.setString(
-                    key(i, DOMAIN_SID), sid.getDomainSid().toString());
-            metadata.setString(key(i, DOMAIN_NAME), sid.getDomainName());
-            metadata.setString(key(i, ACCOUNT_NAME), sid.getAccountName());
+            String[] keys = keys(i);
+            metadata.setString(keys[KEY_ACE],
+                    MetadataPool.intern(acl.toString()));
+            metadata.setString(keys[KEY_SID],
+                    MetadataPool.intern(sid.toString()));
+            metadata.setString(keys[KEY_SID_TEXT],
+                    MetadataPool.intern(sid.toDisplayString()));
+            metadata.setInt(keys[KEY_TYPE], sid.getType());
+            metadata.setString(keys[KEY_TYPE_TEXT],
+                    MetadataPool.intern(sid.getTypeText()));
+            metadata.setString(keys[KEY_DOMAIN_SID],
+                    MetadataPool.intern(sid.getDomainSid().toString()));
+            metadata.setString(keys[KEY_DOMAIN_NAME],
+                    MetadataPool.intern(sid.getDomainName()));
+            metadata.setString(keys[KEY_ACCOUNT_NAME],
+                    MetadataPool.intern(sid.getAccountName()));
         }
     }
-    private String key(int index, String suffix) {
-        return ACL_PREFIX + "[" + index + "]" + suffix;
+    private String[] keys(int index) {
+        String[][] keys = aclKeys;
+        if (index < keys.length) {
+            return keys[index];
+        }
+        synchronized (this) {
+            keys = aclKeys;
+            if (index >= keys.length) {
+                String[][] newKeys = Arrays.copyOf(keys, index + 1);
+                for (int i = keys.length; i < newKeys.length; i++) {
+                    newKeys[i] = new String[KEY_SUFFIXES.length];
+                    for (int j = 0; j < KEY_SUFFIXES.length; j++) {
+                        newKeys[i][j] = MetadataPool.intern(ACL_PREFIX
+                                + "[" + i + "]" + KEY_SUFFIXES[j]);
+                    }
+                }
+                aclKeys = newKeys;
+                keys = newKeys;
+            }
+            return keys[index];
+        }
     }
 
     /*
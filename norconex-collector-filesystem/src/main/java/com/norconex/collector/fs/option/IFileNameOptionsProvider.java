@@ -0,0 +1,36 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.option;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystemOptions;
+
+/**
+ * Provides Apache Commons VFS {@link FileSystemOptions} for a file name,
+ * before the file is resolved. When the configured options provider
+ * implements this interface, the crawler obtains options from
+ * {@link #getFilesystemOptions(FileName)} for every file it resolves.
+ * @since 2.9.2
+ * @author Pascal Essiembre
+ */
+public interface IFileNameOptionsProvider extends IFilesystemOptionsProvider {
+
+    /**
+     * Provide file system options associated with a file name.
+     * @param fileName the name of the file for which to get options
+     * @return options
+     */
+    FileSystemOptions getFilesystemOptions(FileName fileName);
+}
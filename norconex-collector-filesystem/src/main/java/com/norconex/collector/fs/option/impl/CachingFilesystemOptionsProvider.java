@@ -0,0 +1,191 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.option.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+
+import com.norconex.collector.fs.option.IFileNameOptionsProvider;
+import com.norconex.collector.fs.option.IFilesystemOptionsProvider;
+import com.norconex.commons.lang.config.IXMLConfigurable;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
+
+/**
+ * <p>
+ * Wraps another options provider and obtains options from it only once
+ * per file system root (e.g., scheme and host, plus share for SMB),
+ * returning the same {@link FileSystemOptions} instance for every file
+ * under the same root afterwards. Reusing the same options allows
+ * Apache Commons VFS to reuse the same file system (and its connections)
+ * for all these files. Use it with options providers that are
+ * expensive to invoke or that create new options every time.
+ * </p>
+ * <p>
+ * When the wrapped provider implements {@link IFileNameOptionsProvider},
+ * it is given the root file name. Otherwise, it is invoked with a
+ * <code>null</code> file object. Default wrapped provider is
+ * {@link GenericFilesystemOptionsProvider}.
+ * </p>
+ * <h3>XML configuration usage:</h3>
+ * <pre>
+ *  &lt;optionsProvider class="com.norconex.collector.fs.option.impl.CachingFilesystemOptionsProvider"&gt;
+ *      &lt;optionsProvider class="(options provider to cache)"&gt;
+ *          (options provider configuration)
+ *      &lt;/optionsProvider&gt;
+ *  &lt;/optionsProvider&gt;
+ * </pre>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class CachingFilesystemOptionsProvider
+        implements IFileNameOptionsProvider, IXMLConfigurable {
+
+    private IFilesystemOptionsProvider optionsProvider;
+
+    private final transient ConcurrentMap<String, FileSystemOptions> cache =
+            new ConcurrentHashMap<>();
+
+    public CachingFilesystemOptionsProvider() {
+        this(new GenericFilesystemOptionsProvider());
+    }
+    public CachingFilesystemOptionsProvider(
+            IFilesystemOptionsProvider optionsProvider) {
+        super();
+        this.optionsProvider = optionsProvider;
+    }
+
+    /**
+     * Gets the options provider options are obtained from.
+     * @return options provider
+     */
+    public IFilesystemOptionsProvider getOptionsProvider() {
+        return optionsProvider;
+    }
+    /**
+     * Sets the options provider options are obtained from.
+     * @param optionsProvider options provider
+     */
+    public void setOptionsProvider(
+            IFilesystemOptionsProvider optionsProvider) {
+        this.optionsProvider = optionsProvider;
+        cache.clear();
+    }
+
+    @Override
+    public FileSystemOptions getFilesystemOptions(FileName fileName) {
+        FileName root = fileName.getRoot();
+        String key = root.getURI();
+        FileSystemOptions options = cache.get(key);
+        if (options == null) {
+            options = createOptions(root);
+            if (options == null) {
+                return null;
+            }
+            FileSystemOptions existing = cache.putIfAbsent(key, options);
+            if (existing != null) {
+                options = existing;
+            }
+        }
+        return options;
+    }
+
+    @Override
+    public FileSystemOptions getFilesystemOptions(FileObject fileObject) {
+        if (fileObject == null) {
+            return createOptions(null);
+        }
+        return getFilesystemOptions(fileObject.getName());
+    }
+
+    private FileSystemOptions createOptions(FileName root) {
+        if (optionsProvider == null) {
+            return null;
+        }
+        if (root != null
+                && optionsProvider instanceof IFileNameOptionsProvider) {
+            return ((IFileNameOptionsProvider)
+                    optionsProvider).getFilesystemOptions(root);
+        }
+        return optionsProvider.getFilesystemOptions((FileObject) null);
+    }
+
+    @Override
+    public void loadFromXML(Reader in) throws IOException {
+        XMLConfiguration xml = XMLConfigurationUtil.newXMLConfiguration(in);
+        setOptionsProvider(XMLConfigurationUtil.newInstance(
+                xml, "optionsProvider", optionsProvider));
+    }
+
+    @Override
+    public void saveToXML(Writer out) throws IOException {
+        try {
+            EnhancedXMLStreamWriter writer = new EnhancedXMLStreamWriter(out);
+            writer.writeStartElement("optionsProvider");
+            writer.writeAttribute("class", getClass().getCanonicalName());
+            writer.flush();
+            if (optionsProvider instanceof IXMLConfigurable) {
+                StringWriter w = new StringWriter();
+                ((IXMLConfigurable) optionsProvider).saveToXML(w);
+                out.write(w.toString());
+                out.flush();
+            }
+            writer.writeEndElement();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot save as XML.", e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof CachingFilesystemOptionsProvider)) {
+            return false;
+        }
+        CachingFilesystemOptionsProvider castOther =
+                (CachingFilesystemOptionsProvider) other;
+        return new EqualsBuilder()
+                .append(optionsProvider, castOther.optionsProvider)
+                .isEquals();
+    }
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(optionsProvider)
+                .toHashCode();
+    }
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("optionsProvider", optionsProvider)
+                .toString();
+    }
+}
@@ -40,6 +40,7 @@ import org.apache.commons.vfs2.provider.ftp.FtpFileType;
 import org.apache.commons.vfs2.provider.ftps.FtpsFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.hdfs.HdfsFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.http.HttpFileSystemConfigBuilder;
+import org.apache.commons.vfs2.provider.mime.MimeFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.ram.RamFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.sftp.SftpFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.webdav.WebdavFileSystemConfigBuilder;
@@ -49,6 +50,8 @@ import org.apache.hadoop.fs.Path;
 import com.norconex.collector.core.CollectorException;
 import com.norconex.collector.fs.option.IFilesystemOptionsProvider;
 import com.norconex.collector.fs.vfs2.provider.cmis.atom.CmisAtomFileSystemConfigBuilder;
+import com.norconex.collector.fs.vfs2.provider.ftp.ExtendedFtpFileSystemConfigBuilder;
+import com.norconex.collector.fs.vfs2.provider.sftp.ExtendedSftpFileSystemConfigBuilder;
 import com.norconex.commons.lang.config.IXMLConfigurable;
 import com.norconex.commons.lang.config.XMLConfigurationUtil;
 import com.norconex.commons.lang.encrypt.EncryptionKey;
@@ -154,6 +157,12 @@ import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
  *      &lt;ftpDataTimeout&gt;(milliseconds)&lt;/ftpDataTimeout&gt;
  *      &lt;ftpDefaultDateFormat&gt;...&lt;/ftpDefaultDateFormat&gt;
  *      &lt;ftpFileType&gt;[ASCII|BINARY|LOCAL|EBCDIC]&lt;/ftpFileType&gt;
+ *      &lt;ftpMlsd&gt;
+ *          (Whether to list FTP folders with MLSD when the server supports
+ *           it, to get exact file types, sizes and dates without
+ *           depending on date formats. Not applicable to FTPS.
+ *           Default is false.)
+ *      &lt;/ftpMlsd&gt;
  *      &lt;ftpPassiveMode&gt;[false|true]&lt;/ftpPassiveMode&gt;
  *      &lt;ftpRecentDateFormat&gt;...&lt;/ftpRecentDateFormat&gt;
  *      &lt;ftpRemoteVerification&gt;[false|true]&lt;/ftpRemoteVerification&gt;
@@ -162,6 +171,25 @@ import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
  *      &lt;ftpShortMonthNames&gt;(comma-separated list)&lt;/ftpShortMonthNames&gt;
  *      &lt;ftpSoTimeout&gt;(milliseconds)&lt;/ftpSoTimeout&gt;
  *      &lt;ftpUserDirIsRoot&gt;[false|true]&lt;/ftpUserDirIsRoot&gt;
+ *      &lt;ftpMaxConnections&gt;
+ *          (Maximum number of pooled connections to an FTP server,
+ *           letting many threads list and download from it at once.
+ *           Default is 0, which does not pool connections.
+ *           Not applicable to FTPS.)
+ *      &lt;/ftpMaxConnections&gt;
+ *      &lt;ftpMinIdleConnections&gt;
+ *          (Minimum number of idle pooled connections kept open when
+ *           closing idle ones. Connections are only opened when needed.
+ *           Default is 1.)
+ *      &lt;/ftpMinIdleConnections&gt;
+ *      &lt;ftpIdleTimeout&gt;
+ *          (How long a pooled connection can be idle before being
+ *           closed. Default is 60 seconds.)
+ *      &lt;/ftpIdleTimeout&gt;
+ *      &lt;ftpConnectionHealthCheckDisabled&gt;
+ *          (Whether to stop checking idle pooled connections are still
+ *           usable before reusing them. Default is false.)
+ *      &lt;/ftpConnectionHealthCheckDisabled&gt;
  *
  *      &lt;!-- HDFS --&gt;
  *      &lt;hdfsConfigName&gt;...&lt;/hdfsConfigName&gt;
@@ -181,6 +209,14 @@ import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
  *      &lt;httpWebdavCreatorName&gt;...&lt;/httpWebdavCreatorName&gt;
  *      &lt;httpWebdavVersioning&gt;[false|true]&lt;/httpWebdavVersioning&gt;
  *
+ *      &lt;!-- MIME --&gt;
+ *      &lt;mimeStreaming&gt;
+ *          (Whether to locate MIME message parts in a single pass and
+ *           read them by ranges instead of loading them in memory.
+ *           MIME files on file systems without random access are
+ *           first copied locally. Default is false.)
+ *      &lt;/mimeStreaming&gt;
+ *
  *      &lt;!-- RAM --&gt;
  *      &lt;ramMaxSize&gt;(number of bytes)&lt;/ramMaxSize&gt;
  *
@@ -192,6 +228,30 @@ import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
  *      &lt;sftpStrictHostKeyChecking&gt;[no|yes|ask]&lt;/sftpStrictHostKeyChecking&gt;
  *      &lt;sftpTimeout&gt;(milliseconds)&lt;/sftpTimeout&gt;
  *      &lt;sftpUserDirIsRoot&gt;[false|true]&lt;/sftpUserDirIsRoot&gt;
+ *      &lt;sftpMaxChannels&gt;
+ *          (Maximum number of pooled SFTP channels opened on the SSH
+ *           session to a server, letting many threads list and download
+ *           from it at once. Default is 0, which does not pool channels.)
+ *      &lt;/sftpMaxChannels&gt;
+ *      &lt;sftpMinIdleChannels&gt;
+ *          (Minimum number of idle pooled channels kept open when
+ *           closing idle ones. Channels are only opened when needed.
+ *           Default is 1.)
+ *      &lt;/sftpMinIdleChannels&gt;
+ *      &lt;sftpIdleTimeout&gt;
+ *          (How long a pooled channel can be idle before being
+ *           closed. Default is 60 seconds.)
+ *      &lt;/sftpIdleTimeout&gt;
+ *      &lt;sftpChannelHealthCheckDisabled&gt;
+ *          (Whether to stop checking idle pooled channels are still
+ *           connected before reusing them. Default is false.)
+ *      &lt;/sftpChannelHealthCheckDisabled&gt;
+ *      &lt;sftpOutstandingReads&gt;
+ *          (Maximum number of read requests sent without waiting for
+ *           their responses when downloading a file. Higher values
+ *           speed up downloads on high-latency links. Default is 0,
+ *           which uses the SSH library default of 16.)
+ *      &lt;/sftpOutstandingReads&gt;
  *
  *      &lt;!-- CMIS --&gt;
  *      &lt;cmisRepositoryId&gt;
@@ -201,6 +261,30 @@ import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
  *          (Optional target field name where to store the raw CMIS REST API
  *           XML. Default does not store the raw XML in a field.)
  *      &lt;/cmisXmlTargetField&gt;
+ *      &lt;cmisEntryCacheSize&gt;
+ *          (Maximum number of entries obtained from folder listings kept
+ *           in memory so their files are not fetched again. Listing
+ *           entries have no ACLs: unless cmisAclDisabled is true, ACLs
+ *           are then fetched separately and cmisXmlTargetField gets the
+ *           listing XML. Default is 0, which fetches each file
+ *           individually.)
+ *      &lt;/cmisEntryCacheSize&gt;
+ *      &lt;cmisQueryBatchSize&gt;
+ *          (Optional maximum number of documents to obtain per CMIS query
+ *           when fetching document properties of a folder in bulk,
+ *           instead of from the folder listing. Useful for very large
+ *           folders. Default is 0, which does not use queries.)
+ *      &lt;/cmisQueryBatchSize&gt;
+ *      &lt;cmisAclDisabled&gt;[false|true]&lt;/cmisAclDisabled&gt;
+ *      &lt;cmisMaxTotalConnections&gt;...&lt;/cmisMaxTotalConnections&gt;
+ *      &lt;cmisMaxConnectionsPerHost&gt;...&lt;/cmisMaxConnectionsPerHost&gt;
+ *      &lt;cmisConnectionTimeout&gt;(milliseconds)&lt;/cmisConnectionTimeout&gt;
+ *      &lt;cmisSoTimeout&gt;(milliseconds)&lt;/cmisSoTimeout&gt;
+ *      &lt;cmisConnectionRequestTimeout&gt;
+ *          (milliseconds)
+ *      &lt;/cmisConnectionRequestTimeout&gt;
+ *      &lt;cmisKeepAliveTimeout&gt;(milliseconds)&lt;/cmisKeepAliveTimeout&gt;
+ *      &lt;cmisCompressionDisabled&gt;[false|true]&lt;/cmisCompressionDisabled&gt;
  *
  *  &lt;/optionsProvider&gt;
  * </pre>
@@ -237,6 +321,7 @@ public class GenericFilesystemOptionsProvider
     private Integer ftpDataTimeout;
     private String ftpDefaultDateFormat;
     private FtpFileType ftpFileType;
+    private boolean ftpMlsd;
     private boolean ftpPassiveMode;
     private String ftpRecentDateFormat;
     private boolean ftpRemoteVerification;
@@ -245,6 +330,12 @@ public class GenericFilesystemOptionsProvider
     private String[] ftpShortMonthNames;
     private Integer ftpSoTimeout;
     private boolean ftpUserDirIsRoot;
+    private int ftpMaxConnections;
+    private int ftpMinIdleConnections =
+            ExtendedFtpFileSystemConfigBuilder.DEFAULT_MIN_IDLE_CONNECTIONS;
+    private long ftpIdleTimeout =
+            ExtendedFtpFileSystemConfigBuilder.DEFAULT_IDLE_TIMEOUT;
+    private boolean ftpConnectionHealthCheckDisabled;
 
     // HDFS
     private String hdfsConfigName;
@@ -264,6 +355,9 @@ public class GenericFilesystemOptionsProvider
     private String httpWebdavCreatorName;
     private boolean httpWebdavVersioning;
 
+    // MIME
+    private boolean mimeStreaming;
+
     // RAM
     private long ramMaxSize = Integer.MAX_VALUE;
 
@@ -275,10 +369,30 @@ public class GenericFilesystemOptionsProvider
     private String sftpStrictHostKeyChecking = "no";
     private int sftpTimeout;
     private boolean sftpUserDirIsRoot;
+    private int sftpMaxChannels;
+    private int sftpMinIdleChannels =
+            ExtendedSftpFileSystemConfigBuilder.DEFAULT_MIN_IDLE_CHANNELS;
+    private long sftpIdleTimeout =
+            ExtendedSftpFileSystemConfigBuilder.DEFAULT_IDLE_TIMEOUT;
+    private boolean sftpChannelHealthCheckDisabled;
+    private int sftpOutstandingReads;
 
     // CMIS
     private String cmisRepositoryId;
     private String cmisXmlTargetField;
+    private int cmisEntryCacheSize =
+            CmisAtomFileSystemConfigBuilder.DEFAULT_ENTRY_CACHE_SIZE;
+    private int cmisQueryBatchSize;
+    private boolean cmisAclDisabled;
+    private int cmisMaxTotalConnections =
+            CmisAtomFileSystemConfigBuilder.DEFAULT_MAX_TOTAL_CONNECTIONS;
+    private int cmisMaxConnectionsPerHost =
+            CmisAtomFileSystemConfigBuilder.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int cmisConnectionTimeout;
+    private int cmisSoTimeout;
+    private int cmisConnectionRequestTimeout;
+    private long cmisKeepAliveTimeout;
+    private boolean cmisCompressionDisabled;
 
     public GenericFilesystemOptionsProvider() {
         super();
@@ -331,6 +445,13 @@ public class GenericFilesystemOptionsProvider
         ftp.setShortMonthNames(opts, ftpShortMonthNames);
         ftp.setSoTimeout(opts, ftpSoTimeout);
         ftp.setUserDirIsRoot(opts, ftpUserDirIsRoot);
+        ExtendedFtpFileSystemConfigBuilder ftpExt =
+                ExtendedFtpFileSystemConfigBuilder.getInstance();
+        ftpExt.setMlsd(opts, ftpMlsd);
+        ftpExt.setMaxConnections(opts, ftpMaxConnections);
+        ftpExt.setMinIdleConnections(opts, ftpMinIdleConnections);
+        ftpExt.setIdleTimeout(opts, ftpIdleTimeout);
+        ftpExt.setHealthCheck(opts, !ftpConnectionHealthCheckDisabled);
 
         // HDFS
         HdfsFileSystemConfigBuilder hdfs =
@@ -360,6 +481,10 @@ public class GenericFilesystemOptionsProvider
         http.setUrlCharset(opts, httpUrlCharset);
         http.setUserAgent(opts, httpUserAgent);
 
+        // MIME
+        MimeFileSystemConfigBuilder.getInstance().setStreaming(
+                opts, mimeStreaming);
+
         // RAM
         RamFileSystemConfigBuilder ram =
                 RamFileSystemConfigBuilder.getInstance();
@@ -375,12 +500,29 @@ public class GenericFilesystemOptionsProvider
         sftp.setStrictHostKeyChecking(opts, sftpStrictHostKeyChecking);
         sftp.setTimeout(opts, sftpTimeout);
         sftp.setUserDirIsRoot(opts, sftpUserDirIsRoot);
+        ExtendedSftpFileSystemConfigBuilder sftpExt =
+                ExtendedSftpFileSystemConfigBuilder.getInstance();
+        sftpExt.setMaxChannels(opts, sftpMaxChannels);
+        sftpExt.setMinIdleChannels(opts, sftpMinIdleChannels);
+        sftpExt.setIdleTimeout(opts, sftpIdleTimeout);
+        sftpExt.setHealthCheck(opts, !sftpChannelHealthCheckDisabled);
+        sftpExt.setOutstandingReads(opts, sftpOutstandingReads);
 
         // CMIS
         CmisAtomFileSystemConfigBuilder cmis =
                 CmisAtomFileSystemConfigBuilder.getInstance();
         cmis.setRepositoryId(opts, cmisRepositoryId);
         cmis.setXmlTargetField(opts, cmisXmlTargetField);
+        cmis.setEntryCacheSize(opts, cmisEntryCacheSize);
+        cmis.setQueryBatchSize(opts, cmisQueryBatchSize);
+        cmis.setAclDisabled(opts, cmisAclDisabled);
+        cmis.setMaxTotalConnections(opts, cmisMaxTotalConnections);
+        cmis.setMaxConnectionsPerHost(opts, cmisMaxConnectionsPerHost);
+        cmis.setConnectionTimeout(opts, cmisConnectionTimeout);
+        cmis.setSoTimeout(opts, cmisSoTimeout);
+        cmis.setConnectionRequestTimeout(opts, cmisConnectionRequestTimeout);
+        cmis.setKeepAliveTimeout(opts, cmisKeepAliveTimeout);
+        cmis.setCompressionDisabled(opts, cmisCompressionDisabled);
 
         buildOptions(opts);
         this.options = opts;
@@ -487,6 +629,28 @@ public class GenericFilesystemOptionsProvider
     public void setFtpFileType(FtpFileType ftpFileType) {
         this.ftpFileType = ftpFileType;
     }
+    /**
+     * Gets whether FTP folders are listed with <code>MLSD</code> when
+     * supported by the server.
+     * @return <code>true</code> if listing with <code>MLSD</code>
+     * @since 2.9.2
+     */
+    public boolean isFtpMlsd() {
+        return ftpMlsd;
+    }
+    /**
+     * Sets whether FTP folders are listed with <code>MLSD</code> when
+     * supported by the server. Files listed with <code>MLSD</code>
+     * get their exact type, size and modification date from
+     * the listing itself, without depending on date formats.
+     * Servers not supporting it are listed with <code>LIST</code>.
+     * Not applicable to FTPS.
+     * @param ftpMlsd <code>true</code> to list with <code>MLSD</code>
+     * @since 2.9.2
+     */
+    public void setFtpMlsd(boolean ftpMlsd) {
+        this.ftpMlsd = ftpMlsd;
+    }
     public boolean isFtpPassiveMode() {
         return ftpPassiveMode;
     }
@@ -535,6 +699,81 @@ public class GenericFilesystemOptionsProvider
     public void setFtpUserDirIsRoot(boolean ftpUserDirIsRoot) {
         this.ftpUserDirIsRoot = ftpUserDirIsRoot;
     }
+    /**
+     * Gets the maximum number of pooled connections to an FTP server.
+     * @return maximum number of connections
+     * @since 2.9.2
+     */
+    public int getFtpMaxConnections() {
+        return ftpMaxConnections;
+    }
+    /**
+     * Sets the maximum number of pooled connections to an FTP server,
+     * letting many threads list and download files from it at once.
+     * Zero (default) does not pool connections.
+     * Not applicable to FTPS.
+     * @param ftpMaxConnections maximum number of connections
+     * @since 2.9.2
+     */
+    public void setFtpMaxConnections(int ftpMaxConnections) {
+        this.ftpMaxConnections = ftpMaxConnections;
+    }
+    /**
+     * Gets the minimum number of idle pooled FTP connections kept open.
+     * @return minimum number of idle connections
+     * @since 2.9.2
+     */
+    public int getFtpMinIdleConnections() {
+        return ftpMinIdleConnections;
+    }
+    /**
+     * Sets the minimum number of idle pooled FTP connections kept open.
+     * @param ftpMinIdleConnections minimum number of idle connections
+     * @since 2.9.2
+     */
+    public void setFtpMinIdleConnections(int ftpMinIdleConnections) {
+        this.ftpMinIdleConnections = ftpMinIdleConnections;
+    }
+    /**
+     * Gets how long in milliseconds a pooled FTP connection can be idle
+     * before being closed.
+     * @return idle timeout in milliseconds
+     * @since 2.9.2
+     */
+    public long getFtpIdleTimeout() {
+        return ftpIdleTimeout;
+    }
+    /**
+     * Sets how long in milliseconds a pooled FTP connection can be idle
+     * before being closed.
+     * @param ftpIdleTimeout idle timeout in milliseconds
+     * @since 2.9.2
+     */
+    public void setFtpIdleTimeout(long ftpIdleTimeout) {
+        this.ftpIdleTimeout = ftpIdleTimeout;
+    }
+    /**
+     * Gets whether idle pooled FTP connections are reused without
+     * first checking they are still usable.
+     * @return <code>true</code> if health check is disabled
+     * @since 2.9.2
+     */
+    public boolean isFtpConnectionHealthCheckDisabled() {
+        return ftpConnectionHealthCheckDisabled;
+    }
+    /**
+     * Sets whether idle pooled FTP connections are reused without
+     * first checking they are still usable (with a <code>NOOP</code>
+     * command).
+     * @param ftpConnectionHealthCheckDisabled <code>true</code> to disable
+     *        health check
+     * @since 2.9.2
+     */
+    public void setFtpConnectionHealthCheckDisabled(
+            boolean ftpConnectionHealthCheckDisabled) {
+        this.ftpConnectionHealthCheckDisabled =
+                ftpConnectionHealthCheckDisabled;
+    }
     public boolean isFtpSecure() {
         return ftpSecure;
     }
@@ -628,6 +867,26 @@ public class GenericFilesystemOptionsProvider
         this.httpWebdavVersioning = httpWebdavVersioning;
     }
 
+    /**
+     * Gets whether MIME files are read in streaming mode.
+     * @return <code>true</code> if streaming MIME files
+     * @since 2.9.2
+     */
+    public boolean isMimeStreaming() {
+        return mimeStreaming;
+    }
+    /**
+     * Sets whether MIME files are read in streaming mode, locating
+     * message parts in a single pass and reading their content by ranges
+     * instead of loading them in memory. MIME files on file systems
+     * without random access are first copied locally.
+     * @param mimeStreaming <code>true</code> to stream MIME files
+     * @since 2.9.2
+     */
+    public void setMimeStreaming(boolean mimeStreaming) {
+        this.mimeStreaming = mimeStreaming;
+    }
+
     public long getRamMaxSize() {
         return ramMaxSize;
     }
@@ -678,6 +937,100 @@ public class GenericFilesystemOptionsProvider
     public void setSftpUserDirIsRoot(boolean sftpUserDirIsRoot) {
         this.sftpUserDirIsRoot = sftpUserDirIsRoot;
     }
+    /**
+     * Gets the maximum number of pooled SFTP channels per server.
+     * @return maximum number of channels
+     * @since 2.9.2
+     */
+    public int getSftpMaxChannels() {
+        return sftpMaxChannels;
+    }
+    /**
+     * Sets the maximum number of pooled SFTP channels opened on the
+     * SSH session to a server, letting many threads list and download
+     * files from it at once.
+     * Zero (default) does not pool channels.
+     * @param sftpMaxChannels maximum number of channels
+     * @since 2.9.2
+     */
+    public void setSftpMaxChannels(int sftpMaxChannels) {
+        this.sftpMaxChannels = sftpMaxChannels;
+    }
+    /**
+     * Gets the minimum number of idle pooled SFTP channels kept open.
+     * @return minimum number of idle channels
+     * @since 2.9.2
+     */
+    public int getSftpMinIdleChannels() {
+        return sftpMinIdleChannels;
+    }
+    /**
+     * Sets the minimum number of idle pooled SFTP channels kept open.
+     * @param sftpMinIdleChannels minimum number of idle channels
+     * @since 2.9.2
+     */
+    public void setSftpMinIdleChannels(int sftpMinIdleChannels) {
+        this.sftpMinIdleChannels = sftpMinIdleChannels;
+    }
+    /**
+     * Gets how long in milliseconds a pooled SFTP channel can be idle
+     * before being closed.
+     * @return idle timeout in milliseconds
+     * @since 2.9.2
+     */
+    public long getSftpIdleTimeout() {
+        return sftpIdleTimeout;
+    }
+    /**
+     * Sets how long in milliseconds a pooled SFTP channel can be idle
+     * before being closed.
+     * @param sftpIdleTimeout idle timeout in milliseconds
+     * @since 2.9.2
+     */
+    public void setSftpIdleTimeout(long sftpIdleTimeout) {
+        this.sftpIdleTimeout = sftpIdleTimeout;
+    }
+    /**
+     * Gets whether idle pooled SFTP channels are reused without
+     * first checking they are still connected.
+     * @return <code>true</code> if health check is disabled
+     * @since 2.9.2
+     */
+    public boolean isSftpChannelHealthCheckDisabled() {
+        return sftpChannelHealthCheckDisabled;
+    }
+    /**
+     * Sets whether idle pooled SFTP channels are reused without
+     * first checking they are still connected.
+     * @param sftpChannelHealthCheckDisabled <code>true</code> to disable
+     *        health check
+     * @since 2.9.2
+     */
+    public void setSftpChannelHealthCheckDisabled(
+            boolean sftpChannelHealthCheckDisabled) {
+        this.sftpChannelHealthCheckDisabled = sftpChannelHealthCheckDisabled;
+    }
+    /**
+     * Gets the maximum number of read requests sent without waiting
+     * for their responses when downloading a file over SFTP.
+     * @return maximum number of outstanding read requests
+     * @since 2.9.2
+     */
+    public int getSftpOutstandingReads() {
+        return sftpOutstandingReads;
+    }
+    /**
+     * Sets the maximum number of read requests sent without waiting
+     * for their responses when downloading a file over SFTP.
+     * Higher values speed up downloads on high-latency links.
+     * Zero (default) uses the SSH library default (16).
+     * @param sftpOutstandingReads maximum number of outstanding
+     *        read requests
+     * @since 2.9.2
+     */
+    public void setSftpOutstandingReads(int sftpOutstandingReads) {
+        this.sftpOutstandingReads = sftpOutstandingReads;
+    }
 
     /**
      * Gets CMIS repository ID.
@@ -714,6 +1067,199 @@ public class GenericFilesystemOptionsProvider
     public void setCmisXmlTargetField(String cmisXmlTargetField) {
         this.cmisXmlTargetField = cmisXmlTargetField;
     }
+    /**
+     * Gets the maximum number of entries obtained from CMIS folder listings
+     * (or queries) kept in memory until their file is processed.
+     * @return maximum number of entries
+     * @since 2.9.2
+     */
+    public int getCmisEntryCacheSize() {
+        return cmisEntryCacheSize;
+    }
+    /**
+     * Sets the maximum number of entries obtained from CMIS folder listings
+     * (or queries) kept in memory until their file is processed.
+     * Files with a kept entry are not fetched again. Listing entries
+     * do not hold ACLs, so this only halves the number of requests
+     * made to the CMIS server when ACLs are disabled (otherwise
+     * each ACL is fetched separately). The raw XML stored with
+     * {@link #setCmisXmlTargetField(String)} is then the listing entry.
+     * Zero or less fetches each file individually. Default is
+     * {@value CmisAtomFileSystemConfigBuilder#DEFAULT_ENTRY_CACHE_SIZE}.
+     * @param cmisEntryCacheSize maximum number of entries
+     * @since 2.9.2
+     */
+    public void setCmisEntryCacheSize(int cmisEntryCacheSize) {
+        this.cmisEntryCacheSize = cmisEntryCacheSize;
+    }
+    /**
+     * Gets the maximum number of documents to obtain per CMIS query
+     * when fetching document properties of a folder in bulk.
+     * Default is 0 (queries are not used).
+     * @return maximum number of documents per query
+     * @since 2.9.2
+     */
+    public int getCmisQueryBatchSize() {
+        return cmisQueryBatchSize;
+    }
+    /**
+     * Sets the maximum number of documents to obtain per CMIS query
+     * when fetching document properties of a folder in bulk.
+     * When enabled, documents are obtained from paged queries instead
+     * of from the (unpaged) folder listing, which is best for very large
+     * folders. Zero or less disables it.
+     * @param cmisQueryBatchSize maximum number of documents per query
+     * @since 2.9.2
+     */
+    public void setCmisQueryBatchSize(int cmisQueryBatchSize) {
+        this.cmisQueryBatchSize = cmisQueryBatchSize;
+    }
+    /**
+     * Gets whether CMIS document ACL extraction is disabled.
+     * @return <code>true</code> if disabled
+     * @since 2.9.2
+     */
+    public boolean isCmisAclDisabled() {
+        return cmisAclDisabled;
+    }
+    /**
+     * Sets whether CMIS document ACL extraction is disabled. Documents
+     * fetched in bulk do not hold their ACL, which then requires
+     * an extra request per document unless disabled.
+     * @param cmisAclDisabled <code>true</code> to disable ACL extraction
+     * @since 2.9.2
+     */
+    public void setCmisAclDisabled(boolean cmisAclDisabled) {
+        this.cmisAclDisabled = cmisAclDisabled;
+    }
+    /**
+     * Gets the maximum number of pooled HTTP connections to CMIS servers.
+     * @return maximum number of connections
+     * @since 2.9.2
+     */
+    public int getCmisMaxTotalConnections() {
+        return cmisMaxTotalConnections;
+    }
+    /**
+     * Sets the maximum number of pooled HTTP connections to CMIS servers.
+     * Default is
+     * {@value CmisAtomFileSystemConfigBuilder#DEFAULT_MAX_TOTAL_CONNECTIONS}.
+     * @param cmisMaxTotalConnections maximum number of connections
+     * @since 2.9.2
+     */
+    public void setCmisMaxTotalConnections(int cmisMaxTotalConnections) {
+        this.cmisMaxTotalConnections = cmisMaxTotalConnections;
+    }
+    /**
+     * Gets the maximum number of pooled HTTP connections to the same
+     * CMIS server.
+     * @return maximum number of connections per host
+     * @since 2.9.2
+     */
+    public int getCmisMaxConnectionsPerHost() {
+        return cmisMaxConnectionsPerHost;
+    }
+    /**
+     * Sets the maximum number of pooled HTTP connections to the same
+     * CMIS server. It should be at least the number of crawler threads.
+     * Default is
+     * {@value CmisAtomFileSystemConfigBuilder#DEFAULT_MAX_CONNECTIONS_PER_HOST}.
+     * @param cmisMaxConnectionsPerHost maximum number of connections per host
+     * @since 2.9.2
+     */
+    public void setCmisMaxConnectionsPerHost(int cmisMaxConnectionsPerHost) {
+        this.cmisMaxConnectionsPerHost = cmisMaxConnectionsPerHost;
+    }
+    /**
+     * Gets the CMIS HTTP connection timeout in milliseconds.
+     * @return connection timeout
+     * @since 2.9.2
+     */
+    public int getCmisConnectionTimeout() {
+        return cmisConnectionTimeout;
+    }
+    /**
+     * Sets the CMIS HTTP connection timeout in milliseconds.
+     * Zero (default) means no timeout.
+     * @param cmisConnectionTimeout connection timeout
+     * @since 2.9.2
+     */
+    public void setCmisConnectionTimeout(int cmisConnectionTimeout) {
+        this.cmisConnectionTimeout = cmisConnectionTimeout;
+    }
+    /**
+     * Gets the CMIS HTTP socket timeout in milliseconds.
+     * @return socket timeout
+     * @since 2.9.2
+     */
+    public int getCmisSoTimeout() {
+        return cmisSoTimeout;
+    }
+    /**
+     * Sets the CMIS HTTP socket timeout in milliseconds.
+     * Zero (default) means no timeout.
+     * @param cmisSoTimeout socket timeout
+     * @since 2.9.2
+     */
+    public void setCmisSoTimeout(int cmisSoTimeout) {
+        this.cmisSoTimeout = cmisSoTimeout;
+    }
+    /**
+     * Gets how long to wait in milliseconds for a pooled CMIS HTTP
+     * connection to become available.
+     * @return connection request timeout
+     * @since 2.9.2
+     */
+    public int getCmisConnectionRequestTimeout() {
+        return cmisConnectionRequestTimeout;
+    }
+    /**
+     * Sets how long to wait in milliseconds for a pooled CMIS HTTP
+     * connection to become available. Zero (default) waits indefinitely.
+     * @param cmisConnectionRequestTimeout connection request timeout
+     * @since 2.9.2
+     */
+    public void setCmisConnectionRequestTimeout(
+            int cmisConnectionRequestTimeout) {
+        this.cmisConnectionRequestTimeout = cmisConnectionRequestTimeout;
+    }
+    /**
+     * Gets how long in milliseconds idle CMIS HTTP connections are
+     * kept alive when the server does not specify it.
+     * @return keep-alive timeout
+     * @since 2.9.2
+     */
+    public long getCmisKeepAliveTimeout() {
+        return cmisKeepAliveTimeout;
+    }
+    /**
+     * Sets how long in milliseconds idle CMIS HTTP connections are
+     * kept alive when the server does not specify it.
+     * Zero (default) keeps them alive indefinitely.
+     * @param cmisKeepAliveTimeout keep-alive timeout
+     * @since 2.9.2
+     */
+    public void setCmisKeepAliveTimeout(long cmisKeepAliveTimeout) {
+        this.cmisKeepAliveTimeout = cmisKeepAliveTimeout;
+    }
+    /**
+     * Gets whether compression (e.g., gzip) of CMIS HTTP responses
+     * is disabled.
+     * @return <code>true</code> if compression is disabled
+     * @since 2.9.2
+     */
+    public boolean isCmisCompressionDisabled() {
+        return cmisCompressionDisabled;
+    }
+    /**
+     * Sets whether compression (e.g., gzip) of CMIS HTTP responses
+     * is disabled. Compressed Atom feeds are requested by default.
+     * @param cmisCompressionDisabled <code>true</code> to disable compression
+     * @since 2.9.2
+     */
+    public void setCmisCompressionDisabled(boolean cmisCompressionDisabled) {
+        this.cmisCompressionDisabled = cmisCompressionDisabled;
+    }
 
     @Override
     public synchronized FileSystemOptions getFilesystemOptions(
@@ -732,6 +1278,7 @@ public class GenericFilesystemOptionsProvider
         loadFTP(xml);
         loadHDFS(xml);
         loadHTTP(xml);
+        loadMIME(xml);
         loadRAM(xml);
         loadSFTP(xml);
         loadCMIS(xml);
@@ -763,6 +1310,7 @@ public class GenericFilesystemOptionsProvider
         if (StringUtils.isNotBlank(type)) {
             ftpFileType = FtpFileType.valueOf(type);
         }
+        ftpMlsd = xml.getBoolean("ftpMlsd", ftpMlsd);
         ftpPassiveMode = xml.getBoolean("ftpPassiveMode", ftpPassiveMode);
         ftpRecentDateFormat =
                 xml.getString("ftpRecentDateFormat", ftpRecentDateFormat);
@@ -779,6 +1327,15 @@ public class GenericFilesystemOptionsProvider
             ftpSoTimeout = (int) DurationParser.parse(timeout);
         }
         ftpUserDirIsRoot = xml.getBoolean("ftpUserDirIsRoot", ftpUserDirIsRoot);
+        ftpMaxConnections =
+                xml.getInteger("ftpMaxConnections", ftpMaxConnections);
+        ftpMinIdleConnections =
+                xml.getInteger("ftpMinIdleConnections", ftpMinIdleConnections);
+        ftpIdleTimeout = XMLConfigurationUtil.getDuration(
+                xml, "ftpIdleTimeout", ftpIdleTimeout);
+        ftpConnectionHealthCheckDisabled = xml.getBoolean(
+                "ftpConnectionHealthCheckDisabled",
+                ftpConnectionHealthCheckDisabled);
     }
     private void loadHDFS(XMLConfiguration xml) {
         hdfsConfigName = xml.getString("hdfsConfigName", hdfsConfigName);
@@ -817,6 +1374,9 @@ public class GenericFilesystemOptionsProvider
         httpWebdavVersioning =
                 xml.getBoolean("httpWebdavVersioning", httpWebdavVersioning);
     }
+    private void loadMIME(XMLConfiguration xml) {
+        mimeStreaming = xml.getBoolean("mimeStreaming", mimeStreaming);
+    }
     private void loadRAM(XMLConfiguration xml) {
         ramMaxSize = xml.getLong("ramMaxSize", ramMaxSize);
     }
@@ -836,11 +1396,41 @@ public class GenericFilesystemOptionsProvider
                 xml, "sftpTimeout", sftpTimeout);
         sftpUserDirIsRoot =
                 xml.getBoolean("sftpUserDirIsRoot", sftpUserDirIsRoot);
+        sftpMaxChannels = xml.getInteger("sftpMaxChannels", sftpMaxChannels);
+        sftpMinIdleChannels =
+                xml.getInteger("sftpMinIdleChannels", sftpMinIdleChannels);
+        sftpIdleTimeout = XMLConfigurationUtil.getDuration(
+                xml, "sftpIdleTimeout", sftpIdleTimeout);
+        sftpChannelHealthCheckDisabled = xml.getBoolean(
+                "sftpChannelHealthCheckDisabled",
+                sftpChannelHealthCheckDisabled);
+        sftpOutstandingReads =
+                xml.getInteger("sftpOutstandingReads", sftpOutstandingReads);
     }
     private void loadCMIS(XMLConfiguration xml) {
         cmisXmlTargetField =
                 xml.getString("cmisXmlTargetField", cmisXmlTargetField);
         cmisRepositoryId = xml.getString("cmisRepositoryId", cmisRepositoryId);
+        cmisEntryCacheSize =
+                xml.getInteger("cmisEntryCacheSize", cmisEntryCacheSize);
+        cmisQueryBatchSize =
+                xml.getInteger("cmisQueryBatchSize", cmisQueryBatchSize);
+        cmisAclDisabled = xml.getBoolean("cmisAclDisabled", cmisAclDisabled);
+        cmisMaxTotalConnections = xml.getInteger(
+                "cmisMaxTotalConnections", cmisMaxTotalConnections);
+        cmisMaxConnectionsPerHost = xml.getInteger(
+                "cmisMaxConnectionsPerHost", cmisMaxConnectionsPerHost);
+        cmisConnectionTimeout = (int) XMLConfigurationUtil.getDuration(
+                xml, "cmisConnectionTimeout", cmisConnectionTimeout);
+        cmisSoTimeout = (int) XMLConfigurationUtil.getDuration(
+                xml, "cmisSoTimeout", cmisSoTimeout);
+        cmisConnectionRequestTimeout = (int) XMLConfigurationUtil.getDuration(
+                xml, "cmisConnectionRequestTimeout",
+                cmisConnectionRequestTimeout);
+        cmisKeepAliveTimeout = XMLConfigurationUtil.getDuration(
+                xml, "cmisKeepAliveTimeout", cmisKeepAliveTimeout);
+        cmisCompressionDisabled = xml.getBoolean(
+                "cmisCompressionDisabled", cmisCompressionDisabled);
     }
 
     @Override
@@ -854,6 +1444,7 @@ public class GenericFilesystemOptionsProvider
             saveFTP(writer);
             saveHDFS(writer);
             saveHTTP(writer);
+            saveMIME(writer);
             saveRAM(writer);
             saveSFTP(writer);
             saveCMIS(writer);
@@ -889,6 +1480,7 @@ public class GenericFilesystemOptionsProvider
         writer.writeElementString("ftpDefaultDateFormat", ftpDefaultDateFormat);
         writer.writeElementString(
                 "ftpFileType", Objects.toString(ftpFileType, null));
+        writer.writeElementBoolean("ftpMlsd", ftpMlsd);
         writer.writeElementBoolean("ftpPassiveMode", ftpPassiveMode);
         writer.writeElementString("ftpRecentDateFormat", ftpRecentDateFormat);
         writer.writeElementBoolean(
@@ -900,6 +1492,12 @@ public class GenericFilesystemOptionsProvider
                 StringUtils.join(ftpShortMonthNames, ","));
         writer.writeElementInteger("ftpSoTimeout", ftpSoTimeout);
         writer.writeElementBoolean("ftpUserDirIsRoot", ftpUserDirIsRoot);
+        writer.writeElementInteger("ftpMaxConnections", ftpMaxConnections);
+        writer.writeElementInteger(
+                "ftpMinIdleConnections", ftpMinIdleConnections);
+        writer.writeElementLong("ftpIdleTimeout", ftpIdleTimeout);
+        writer.writeElementBoolean("ftpConnectionHealthCheckDisabled",
+                ftpConnectionHealthCheckDisabled);
     }
     private void saveHDFS(EnhancedXMLStreamWriter writer)
             throws XMLStreamException {
@@ -928,6 +1526,10 @@ public class GenericFilesystemOptionsProvider
         writer.writeElementBoolean(
                 "httpWebdavVersioning", httpWebdavVersioning);
     }
+    private void saveMIME(EnhancedXMLStreamWriter writer)
+            throws XMLStreamException {
+        writer.writeElementBoolean("mimeStreaming", mimeStreaming);
+    }
     private void saveRAM(EnhancedXMLStreamWriter writer)
             throws XMLStreamException {
         writer.writeElementLong("ramMaxSize", ramMaxSize);
@@ -946,11 +1548,34 @@ public class GenericFilesystemOptionsProvider
                 "sftpStrictHostKeyChecking", sftpStrictHostKeyChecking);
         writer.writeElementInteger("sftpTimeout", sftpTimeout);
         writer.writeElementBoolean("sftpUserDirIsRoot", sftpUserDirIsRoot);
+        writer.writeElementInteger("sftpMaxChannels", sftpMaxChannels);
+        writer.writeElementInteger(
+                "sftpMinIdleChannels", sftpMinIdleChannels);
+        writer.writeElementLong("sftpIdleTimeout", sftpIdleTimeout);
+        writer.writeElementBoolean("sftpChannelHealthCheckDisabled",
+                sftpChannelHealthCheckDisabled);
+        writer.writeElementInteger(
+                "sftpOutstandingReads", sftpOutstandingReads);
     }
     private void saveCMIS(EnhancedXMLStreamWriter writer)
             throws XMLStreamException {
         writer.writeElementString("cmisXmlTargetField", cmisXmlTargetField);
         writer.writeElementString("cmisRepositoryId", cmisRepositoryId);
+        writer.writeElementInteger("cmisEntryCacheSize", cmisEntryCacheSize);
+        writer.writeElementInteger("cmisQueryBatchSize", cmisQueryBatchSize);
+        writer.writeElementBoolean("cmisAclDisabled", cmisAclDisabled);
+        writer.writeElementInteger(
+                "cmisMaxTotalConnections", cmisMaxTotalConnections);
+        writer.writeElementInteger(
+                "cmisMaxConnectionsPerHost", cmisMaxConnectionsPerHost);
+        writer.writeElementInteger(
+                "cmisConnectionTimeout", cmisConnectionTimeout);
+        writer.writeElementInteger("cmisSoTimeout", cmisSoTimeout);
+        writer.writeElementInteger(
+                "cmisConnectionRequestTimeout", cmisConnectionRequestTimeout);
+        writer.writeElementLong("cmisKeepAliveTimeout", cmisKeepAliveTimeout);
+        writer.writeElementBoolean(
+                "cmisCompressionDisabled", cmisCompressionDisabled);
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.norconex.collector.fs.pipeline.importer;
 import java.util.Date;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.provider.local.LocalFile;
 
@@ -25,20 +26,24 @@ import com.norconex.collector.core.checksum.IMetadataChecksummer;
 import com.norconex.collector.core.crawler.event.CrawlerEvent;
 import com.norconex.collector.core.data.BaseCrawlData;
 import com.norconex.collector.core.data.CrawlState;
-import com.norconex.collector.core.pipeline.BasePipelineContext;
 import com.norconex.collector.core.pipeline.ChecksumStageUtil;
 import com.norconex.collector.core.pipeline.importer.DocumentFiltersStage;
 import com.norconex.collector.core.pipeline.importer.ImportModuleStage;
 import com.norconex.collector.core.pipeline.importer.ImporterPipelineContext;
 import com.norconex.collector.core.pipeline.importer.ImporterPipelineUtil;
 import com.norconex.collector.core.pipeline.importer.SaveDocumentStage;
+import com.norconex.collector.fs.checksum.IFileMetadataChecksummer;
+import com.norconex.collector.fs.crawler.ShardResolver;
 import com.norconex.collector.fs.doc.FileDocument;
 import com.norconex.collector.fs.doc.FileMetadata;
 import com.norconex.collector.fs.doc.IFileDocumentProcessor;
 import com.norconex.collector.fs.fetch.IFileMetadataFetcher;
-import com.norconex.collector.fs.pipeline.queue.FileQueuePipeline;
+import com.norconex.collector.fs.pipeline.queue.FileQueueBatch;
+import com.norconex.collector.fs.throttle.IHostThrottler;
+import com.norconex.collector.fs.throttle.IHostThrottler.Operation;
 import com.norconex.commons.lang.file.ContentType;
 import com.norconex.commons.lang.map.Properties;
+import com.norconex.commons.lang.pipeline.IPipelineStage;
 import com.norconex.commons.lang.pipeline.Pipeline;
 
 /**
@@ -48,10 +53,7 @@ import com.norconex.commons.lang.pipeline.Pipeline;
 public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
 
     public FileImporterPipeline(boolean isKeepDownloads) {
-        addStage(new FolderPathsExtractorStage());
-        addStage(new FileMetadataFetcherStage());
-        addStage(new FileMetadataFiltersStage());
-        addStage(new FileMetadataChecksumStage());
+        addMetadataStages();
         addStage(new DocumentFetchStage());
         if (isKeepDownloads) {
             addStage(new SaveDocumentStage());
@@ -61,6 +63,64 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
         addStage(new ImportModuleStage());
     }
 
+    /**
+     * Creates a pipeline processing file metadata like any other file,
+     * but having the given stage fetch and import the file content
+     * when new or modified.
+     * @param importStage stage fetching and importing the file content
+     * @since 2.9.2
+     */
+    public FileImporterPipeline(
+            IPipelineStage<ImporterPipelineContext> importStage) {
+        addMetadataStages();
+        addStage(importStage);
+    }
+
+    private FileImporterPipeline() {
+        super();
+    }
+
+    /**
+     * Creates a pipeline for a document whose content and metadata were
+     * obtained by other means (e.g., an entry read while streaming an
+     * archive). Metadata filters, document filters and pre-import
+     * processors are applied before importing it.
+     * @return importer pipeline
+     * @since 2.9.2
+     */
+    public static FileImporterPipeline createFetchedDocumentPipeline() {
+        FileImporterPipeline pipeline = new FileImporterPipeline();
+        pipeline.addStage(new FileMetadataFiltersStage());
+        pipeline.addStage(new DocumentFiltersStage());
+        pipeline.addStage(new DocumentPreProcessingStage());
+        pipeline.addStage(new ImportModuleStage());
+        return pipeline;
+    }
+
+    private void addMetadataStages() {
+        addStage(new FolderPathsExtractorStage());
+        addStage(new ShardStage());
+        addStage(new FileMetadataFetcherStage());
+        addStage(new FileMetadataFiltersStage());
+        addStage(new FileMetadataChecksumStage());
+    }
+
+    // Wait for the file server to accept one more operation, if throttled.
+    private static long acquireHost(FileImporterPipelineContext ctx) {
+        IHostThrottler throttler = ctx.getConfig().getThrottler();
+        if (throttler == null) {
+            return 0;
+        }
+        return throttler.acquire(ctx.getFileObject());
+    }
+    private static void releaseHost(FileImporterPipelineContext ctx,
+            Operation operation, long token, Throwable error) {
+        IHostThrottler throttler = ctx.getConfig().getThrottler();
+        if (throttler != null) {
+            throttler.release(ctx.getFileObject(), operation, token, error);
+        }
+    }
+
     //--- Folder Path Extractor ------------------------------------------------
     // Extract paths to queue them and stop processing this folder
     private static class FolderPathsExtractorStage
@@ -70,7 +130,9 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
             try {
                 FileObject file = ctx.getFileObject();
                 if (file.getType() == FileType.FOLDER) {
-                    FileObject[] files = file.getChildren();
+                    FileObject[] files = getChildren(ctx, file);
+                    FileQueueBatch batch = new FileQueueBatch(
+                            ctx.getCrawler(), ctx.getCrawlDataStore());
                     for (FileObject childFile : files) {
                         // Special chars such as # can be valid in local
                         // file names, so get path from toString on local files,
@@ -79,12 +141,9 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
                         if (childFile instanceof LocalFile) {
                             ref = childFile.getName().toString();
                         }
-                        BaseCrawlData crawlData = new BaseCrawlData(ref);
-                        BasePipelineContext newContext =
-                                new BasePipelineContext(ctx.getCrawler(),
-                                        ctx.getCrawlDataStore(), crawlData);
-                        new FileQueuePipeline().execute(newContext);
+                        batch.add(new BaseCrawlData(ref));
                     }
+                    batch.queue();
                     return false;
                 }
                 return true;
@@ -97,8 +156,39 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
                                 + ctx.getCrawlData().getReference(), e);
             }
         }
+        private FileObject[] getChildren(
+                FileImporterPipelineContext ctx, FileObject folder)
+                        throws FileSystemException {
+            long token = acquireHost(ctx);
+            Throwable error = null;
+            try {
+                return folder.getChildren();
+            } catch (FileSystemException | RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                releaseHost(ctx, Operation.LIST, token, error);
+            }
+        }
     }
 
+    //--- Shard ----------------------------------------------------------------
+    // Reject files belonging to another collector node. Folders are always
+    // expanded (previous stage) so each node discovers the entire tree.
+    private static class ShardStage extends AbstractImporterStage {
+        @Override
+        public boolean executeStage(FileImporterPipelineContext ctx) {
+            ShardResolver shard = ctx.getCrawler().getShardResolver();
+            if (shard == null
+                    || shard.isInShard(ctx.getFileObject().getName())) {
+                return true;
+            }
+            ctx.getCrawlData().setState(CrawlState.REJECTED);
+            ctx.fireCrawlerEvent(CrawlerEvent.REJECTED_FILTER,
+                    ctx.getCrawlData(), shard);
+            return false;
+        }
+    }
 
     //--- Metadata filters -----------------------------------------------------
     private static class FileMetadataFiltersStage
@@ -150,7 +240,17 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
                     metadata.isCaseInsensitiveKeys());
             FileObject fileObject = ctx.getFileObject();
 
-            CrawlState state = metaFetcher.fetchMetadada(fileObject, newMeta);
+            CrawlState state = null;
+            long token = acquireHost(ctx);
+            Throwable error = null;
+            try {
+                state = metaFetcher.fetchMetadada(fileObject, newMeta);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                releaseHost(ctx, Operation.METADATA, token, error);
+            }
 
             metadata.putAll(newMeta);
 
@@ -193,8 +293,23 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
             IMetadataChecksummer check =
                     ctx.getConfig().getMetadataChecksummer();
             if (check != null) {
-                String newChecksum =
-                        check.createMetadataChecksum(ctx.getMetadata());
+                String newChecksum;
+                if (check instanceof IFileMetadataChecksummer) {
+                    IFileMetadataChecksummer fileCheck =
+                            (IFileMetadataChecksummer) check;
+                    BaseCrawlData cached = ctx.getCachedCrawlData();
+                    newChecksum = fileCheck.createMetadataChecksum(
+                            ctx.getFileObject(), ctx.getMetadata(), cached);
+                    // Unmodified under a new checksum: compare against it
+                    // so the new one gets stored for the next run
+                    if (cached != null && fileCheck.isUnmodified(
+                            newChecksum, cached.getMetaChecksum())) {
+                        cached.setMetaChecksum(newChecksum);
+                    }
+                } else {
+                    newChecksum =
+                            check.createMetadataChecksum(ctx.getMetadata());
+                }
                 return ChecksumStageUtil.resolveMetaChecksum(
                         newChecksum, ctx, this);
             }
@@ -211,8 +326,18 @@ public class FileImporterPipeline extends Pipeline<ImporterPipelineContext> {
             BaseCrawlData crawlData = ctx.getCrawlData();
             FileDocument doc = ctx.getDocument();
             FileObject fileObject = ctx.getFileObject();
-            CrawlState state = ctx.getConfig().getDocumentFetcher()
-                    .fetchDocument(ctx.getFileObject(), doc);
+            CrawlState state = null;
+            long token = acquireHost(ctx);
+            Throwable error = null;
+            try {
+                state = ctx.getConfig().getDocumentFetcher()
+                        .fetchDocument(ctx.getFileObject(), doc);
+            } catch (RuntimeException e) {
+                error = e;
+                throw e;
+            } finally {
+                releaseHost(ctx, Operation.CONTENT, token, error);
+            }
             crawlData.setCrawlDate(new Date());
             crawlData.setContentType(doc.getContentType());
             crawlData.setState(state);
@@ -0,0 +1,144 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.pipeline.queue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.core.crawler.ICrawler;
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.core.pipeline.BasePipelineContext;
+import com.norconex.collector.core.pipeline.queue.QueueReferenceStage;
+import com.norconex.collector.core.pipeline.queue.ReferenceFiltersStage;
+import com.norconex.collector.fs.data.store.IBatchCrawlDataStore;
+import com.norconex.collector.fs.data.store.OffHeapBloomFilter;
+
+/**
+ * Queues many references at once (e.g., all children of a folder),
+ * applying the same logic as {@link FileQueuePipeline}.
+ * Duplicates are removed in memory and references are filtered before
+ * the crawl data store is accessed. When the crawl data store implements
+ * {@link IBatchCrawlDataStore}, accepted references are queued in a single
+ * operation. Otherwise, they are queued one by one. References the
+ * crawler reference Bloom filter has never seen are queued directly.
+ * Instances are not thread-safe.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class FileQueueBatch {
+
+    private static final Logger LOG =
+            LogManager.getLogger(FileQueueBatch.class);
+
+    private final ICrawler crawler;
+    private final ICrawlDataStore crawlDataStore;
+    private final Map<String, BaseCrawlData> batch = new LinkedHashMap<>();
+
+    public FileQueueBatch(ICrawler crawler, ICrawlDataStore crawlDataStore) {
+        super();
+        this.crawler = crawler;
+        this.crawlDataStore = crawlDataStore;
+    }
+
+    /**
+     * Adds crawl data to this batch. Crawl data with a reference
+     * already in this batch is ignored.
+     * @param crawlData crawl data
+     */
+    public void add(BaseCrawlData crawlData) {
+        if (!batch.containsKey(crawlData.getReference())) {
+            batch.put(crawlData.getReference(), crawlData);
+        }
+    }
+
+    /**
+     * Gets the number of crawl data added to this batch.
+     * @return batch size
+     */
+    public int size() {
+        return batch.size();
+    }
+
+    /**
+     * Filters and queues all crawl data added to this batch, then
+     * clears this batch.
+     */
+    public void queue() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ReferenceFiltersStage filtersStage = new ReferenceFiltersStage();
+        List<BaseCrawlData> accepted = new ArrayList<>(batch.size());
+        for (BaseCrawlData crawlData : batch.values()) {
+            if (filtersStage.execute(newContext(crawlData))) {
+                accepted.add(crawlData);
+            }
+        }
+        int batchSize = batch.size();
+        batch.clear();
+        accepted = queueNeverSeen(accepted);
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        if (crawlDataStore instanceof IBatchCrawlDataStore) {
+            int count = ((IBatchCrawlDataStore) crawlDataStore)
+                    .queueAllNew(accepted);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Queued " + count + " new references out of "
+                        + batchSize + " in batch.");
+            }
+        } else {
+            QueueReferenceStage queueStage = new QueueReferenceStage();
+            for (BaseCrawlData crawlData : accepted) {
+                queueStage.execute(newContext(crawlData));
+            }
+        }
+    }
+
+    // Queues references the reference Bloom filter has never seen and
+    // returns the others.
+    private List<BaseCrawlData> queueNeverSeen(List<BaseCrawlData> accepted) {
+        if (accepted.isEmpty()) {
+            return accepted;
+        }
+        OffHeapBloomFilter filter = FileQueueReferenceStage
+                .getReferenceBloomFilter(newContext(accepted.get(0)));
+        if (filter == null) {
+            return accepted;
+        }
+        List<BaseCrawlData> maybeSeen = new ArrayList<>();
+        synchronized (filter) {
+            for (BaseCrawlData crawlData : accepted) {
+                if (filter.put(crawlData.getReference())) {
+                    crawlDataStore.queue(crawlData);
+                } else {
+                    maybeSeen.add(crawlData);
+                }
+            }
+        }
+        return maybeSeen;
+    }
+
+    private BasePipelineContext newContext(BaseCrawlData crawlData) {
+        return new BasePipelineContext(crawler, crawlDataStore, crawlData);
+    }
+}
@@ -0,0 +1,63 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.pipeline.queue;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.norconex.collector.core.pipeline.BasePipelineContext;
+import com.norconex.collector.core.pipeline.queue.QueueReferenceStage;
+import com.norconex.collector.fs.crawler.FilesystemCrawler;
+import com.norconex.collector.fs.data.store.OffHeapBloomFilter;
+import com.norconex.commons.lang.pipeline.IPipelineStage;
+
+/**
+ * Queues a reference. When the crawler has a reference Bloom filter,
+ * references never seen before are queued without checking whether the
+ * crawl data store already has them. Other references are handled
+ * by {@link QueueReferenceStage}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class FileQueueReferenceStage
+        implements IPipelineStage<BasePipelineContext> {
+
+    private final QueueReferenceStage queueStage = new QueueReferenceStage();
+
+    @Override
+    public boolean execute(BasePipelineContext ctx) {
+        String ref = ctx.getCrawlData().getReference();
+        OffHeapBloomFilter filter = getReferenceBloomFilter(ctx);
+        if (filter != null && StringUtils.isNotBlank(ref)) {
+            // Queue while holding the filter lock so other threads finding
+            // the reference in the filter will find it in the store too.
+            synchronized (filter) {
+                if (filter.put(ref)) {
+                    ctx.getCrawlDataStore().queue(ctx.getCrawlData());
+                    return true;
+                }
+            }
+        }
+        return queueStage.execute(ctx);
+    }
+
+    /*default*/ static OffHeapBloomFilter getReferenceBloomFilter(
+            BasePipelineContext ctx) {
+        if (ctx.getCrawler() instanceof FilesystemCrawler) {
+            return ((FilesystemCrawler) ctx.getCrawler())
+                    .getReferenceBloomFilter();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.throttle;
+
+import org.apache.commons.vfs2.FileObject;
+
+import com.norconex.commons.lang.config.IXMLConfigurable;
+
+/**
+ * Controls the pace at which file system operations (folder listing,
+ * metadata and document fetching) are performed against each file server.
+ * Every operation on a file is preceded by a call to
+ * {@link #acquire(FileObject)} and followed by a call to
+ * {@link #release(FileObject, Operation, long, Throwable)}.
+ * Implementations are shared by all crawler threads and must be
+ * thread-safe.
+ *
+ * Implementors also implementing {@link IXMLConfigurable} must name their XML
+ * tag <code>throttler</code> to ensure it gets loaded properly.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public interface IHostThrottler {
+
+    /**
+     * Kind of operation performed on a file server. Operations of
+     * different kinds can take very different amounts of time.
+     */
+    enum Operation {
+        /** Listing the children of a folder. */
+        LIST,
+        /** Obtaining file metadata. */
+        METADATA,
+        /** Downloading the content of a file. */
+        CONTENT,
+        /** Reading all entries of an archive file in one pass. */
+        ARCHIVE
+    }
+
+    /**
+     * Waits until an operation on the server hosting the given file
+     * is allowed to start.
+     * @param fileObject file about to be accessed
+     * @return a value to be passed back to
+     *         {@link #release(FileObject, Operation, long, Throwable)}
+     */
+    long acquire(FileObject fileObject);
+
+    /**
+     * Signals an operation on the server hosting the given file has ended.
+     * @param fileObject file accessed
+     * @param operation kind of operation performed
+     * @param token value returned by {@link #acquire(FileObject)}
+     * @param error error thrown by the operation or <code>null</code>
+     */
+    void release(FileObject fileObject,
+            Operation operation, long token, Throwable error);
+}
@@ -0,0 +1,449 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.throttle.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.core.CollectorException;
+import com.norconex.collector.fs.throttle.IHostThrottler;
+import com.norconex.collector.fs.throttle.IHostThrottler.Operation;
+import com.norconex.commons.lang.config.IXMLConfigurable;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+import com.norconex.commons.lang.xml.EnhancedXMLStreamWriter;
+
+/**
+ * <p>
+ * Limits the number of concurrent operations performed against each
+ * file server, adjusting that limit to how the server responds.
+ * A server is identified by the root of file names (e.g., scheme, host
+ * and share for SMB).
+ * </p>
+ * <p>
+ * The concurrency limit of a server grows by about one every time
+ * that many operations succeed, up to <code>maxConcurrency</code>.
+ * It is cut in half, down to <code>minConcurrency</code>, whenever an
+ * operation fails with an error indicating the server is overloaded
+ * (e.g., SMB <code>STATUS_INSUFFICIENT_RESOURCES</code>, FTP 421,
+ * HTTP 429 or 503), which also pauses new operations on that server for
+ * an increasing amount of time (up to <code>maxBackoff</code>).
+ * The limit is also reduced slightly when recent operations take much
+ * longer than usual (<code>latencyFactor</code> times the long-term
+ * average). Latency averages are kept per kind of operation (folder
+ * listing, metadata, content or archive reads) so that downloading a
+ * large file is not mistaken for a slow server.  A minimum
+ * <code>delay</code> between the start of two operations on the same
+ * server can also be set.
+ * </p>
+ * <p>
+ * Overload errors are detected by matching
+ * <code>overloadPattern</code> against the messages of
+ * an exception and its causes, after removing URIs and quoted paths
+ * from them. This prevents file names from being taken for
+ * server replies.  The default pattern only considers status codes
+ * starting a line (e.g., FTP replies) or following words such as
+ * "status", "reply", "code" or "HTTP".
+ * </p>
+ *
+ * <h3>XML configuration usage:</h3>
+ * <pre>
+ *  &lt;throttler
+ *      class="com.norconex.collector.fs.throttle.impl.AdaptiveHostThrottler"&gt;
+ *      &lt;maxConcurrency&gt;(default: 4)&lt;/maxConcurrency&gt;
+ *      &lt;minConcurrency&gt;(default: 1)&lt;/minConcurrency&gt;
+ *      &lt;delay&gt;(minimum delay between operations, default: 0)&lt;/delay&gt;
+ *      &lt;maxBackoff&gt;(default: 30 seconds)&lt;/maxBackoff&gt;
+ *      &lt;latencyFactor&gt;(default: 3.0, 0 disables)&lt;/latencyFactor&gt;
+ *      &lt;overloadPattern&gt;(regular expression)&lt;/overloadPattern&gt;
+ *  &lt;/throttler&gt;
+ * </pre>
+ * <h4>Usage example:</h4>
+ * <p>
+ * The following allows up to 16 concurrent operations per server, with
+ * at least 10 milliseconds between each.
+ * </p>
+ * <pre>
+ *  &lt;throttler
+ *      class="com.norconex.collector.fs.throttle.impl.AdaptiveHostThrottler"&gt;
+ *      &lt;maxConcurrency&gt;16&lt;/maxConcurrency&gt;
+ *      &lt;delay&gt;10&lt;/delay&gt;
+ *  &lt;/throttler&gt;
+ * </pre>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class AdaptiveHostThrottler
+        implements IHostThrottler, IXMLConfigurable {
+
+    private static final Logger LOG =
+            LogManager.getLogger(AdaptiveHostThrottler.class);
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+    public static final int DEFAULT_MIN_CONCURRENCY = 1;
+    public static final long DEFAULT_MAX_BACKOFF = 30 * 1000;
+    public static final double DEFAULT_LATENCY_FACTOR = 3.0;
+    public static final String DEFAULT_OVERLOAD_PATTERN =
+            "(?im)STATUS_INSUFFICIENT_RESOURCES|insufficient.*resources"
+          + "|too many (connections|users|requests)|service unavailable"
+          + "|^(421|429|503)[ -]"
+          + "|\\b(status|reply|code|HTTP(/[\\d.]+)?)[ :=]*"
+          + "(421|429|503)\\b";
+
+    private static final long MIN_BACKOFF = 500;
+    private static final long MAX_WAIT = 1000;
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double SLOWDOWN_RATIO = 0.9;
+    // File URIs and quoted file paths found in exception messages
+    private static final Pattern FILE_NAMES = Pattern.compile(
+            "[a-zA-Z][\\w+.-]*://[^\\s\"']*|\"[^\"]*[/\\\\][^\"]*\"");
+    private static final double RECENT_LATENCY_WEIGHT = 0.2;
+    private static final double USUAL_LATENCY_WEIGHT = 0.01;
+
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int minConcurrency = DEFAULT_MIN_CONCURRENCY;
+    private long delay;
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+    private double latencyFactor = DEFAULT_LATENCY_FACTOR;
+    private String overloadPattern = DEFAULT_OVERLOAD_PATTERN;
+
+    private transient Pattern overloadRegex;
+    private final transient ConcurrentMap<String, Host> hosts =
+            new ConcurrentHashMap<>();
+
+    @Override
+    public long acquire(FileObject fileObject) {
+        Host host = getHost(fileObject);
+        synchronized (host) {
+            try {
+                long now = System.currentTimeMillis();
+                while (host.active >= (int) host.limit
+                        || now < host.nextStart) {
+                    long wait = MAX_WAIT;
+                    if (host.active < (int) host.limit) {
+                        wait = Math.min(wait, host.nextStart - now);
+                    }
+                    host.wait(wait);
+                    now = System.currentTimeMillis();
+                }
+                host.active++;
+                host.nextStart = now + Math.max(delay, host.backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CollectorException(
+                        "Interrupted while waiting for: " + host.name, e);
+            }
+        }
+        return System.nanoTime();
+    }
+
+    @Override
+    public void release(FileObject fileObject,
+            Operation operation, long token, Throwable error) {
+        long latency = TimeUnit.NANOSECONDS.toMillis(
+                System.nanoTime() - token);
+        Host host = getHost(fileObject);
+        synchronized (host) {
+            host.active--;
+            if (error != null) {
+                if (isOverloadError(error)) {
+                    host.limit = Math.max(
+                            minConcurrency, host.limit * BACKOFF_RATIO);
+                    host.backoff = Math.min(maxBackoff,
+                            Math.max(MIN_BACKOFF, host.backoff * 2));
+                    LOG.warn(host.name + " appears overloaded. Reducing to "
+                            + (int) host.limit + " concurrent operations "
+                            + "and pausing " + host.backoff + "ms. Cause: "
+                            + ExceptionUtils.getRootCauseMessage(error));
+                }
+            } else {
+                updateLimit(host, operation, latency);
+            }
+            host.notifyAll();
+        }
+    }
+
+    private void updateLimit(Host host, Operation operation, long latency) {
+        int i = operation.ordinal();
+        double[] recent = host.recentLatency;
+        double[] usual = host.usualLatency;
+        if (usual[i] < 0) {
+            usual[i] = latency;
+            recent[i] = latency;
+        } else {
+            recent[i] += RECENT_LATENCY_WEIGHT * (latency - recent[i]);
+            usual[i] += USUAL_LATENCY_WEIGHT * (latency - usual[i]);
+        }
+        if (latencyFactor > 0
+                && recent[i] > Math.max(1, usual[i]) * latencyFactor) {
+            host.limit = Math.max(minConcurrency, host.limit * SLOWDOWN_RATIO);
+        } else {
+            host.limit = Math.min(maxConcurrency, host.limit + 1 / host.limit);
+        }
+        host.backoff = host.backoff < MIN_BACKOFF ? 0 : host.backoff / 2;
+    }
+
+    private boolean isOverloadError(Throwable error) {
+        Pattern regex = getOverloadRegex();
+        if (regex == null) {
+            return false;
+        }
+        for (Throwable t : ExceptionUtils.getThrowableList(error)) {
+            String msg = t.getMessage();
+            if (msg != null && regex.matcher(
+                    FILE_NAMES.matcher(msg).replaceAll("")).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*default*/ int getConcurrencyLimit(FileObject fileObject) {
+        Host host = getHost(fileObject);
+        synchronized (host) {
+            return (int) host.limit;
+        }
+    }
+
+    private Host getHost(FileObject fileObject) {
+        String name = fileObject.getName().getRoot().getFriendlyURI();
+        Host host = hosts.get(name);
+        if (host == null) {
+            host = new Host(name, maxConcurrency);
+            Host existing = hosts.putIfAbsent(name, host);
+            if (existing != null) {
+                host = existing;
+            }
+        }
+        return host;
+    }
+
+    private synchronized Pattern getOverloadRegex() {
+        if (overloadRegex == null && StringUtils.isNotBlank(overloadPattern)) {
+            overloadRegex = Pattern.compile(overloadPattern);
+        }
+        return overloadRegex;
+    }
+
+    /**
+     * Gets the maximum number of concurrent operations per server.
+     * @return maximum concurrency
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+    /**
+     * Sets the maximum number of concurrent operations per server.
+     * @param maxConcurrency maximum concurrency
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Gets the number of concurrent operations per server the limit
+     * is never reduced below.
+     * @return minimum concurrency
+     */
+    public int getMinConcurrency() {
+        return minConcurrency;
+    }
+    /**
+     * Sets the number of concurrent operations per server the limit
+     * is never reduced below.
+     * @param minConcurrency minimum concurrency
+     */
+    public void setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = Math.max(1, minConcurrency);
+    }
+
+    /**
+     * Gets the minimum delay in milliseconds between the start of two
+     * operations on the same server.
+     * @return delay
+     */
+    public long getDelay() {
+        return delay;
+    }
+    /**
+     * Sets the minimum delay in milliseconds between the start of two
+     * operations on the same server.
+     * @param delay delay
+     */
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Gets the maximum time in milliseconds new operations on an
+     * overloaded server are paused.
+     * @return maximum backoff
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+    /**
+     * Sets the maximum time in milliseconds new operations on an
+     * overloaded server are paused.
+     * @param maxBackoff maximum backoff
+     */
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Gets how many times longer than usual recent operations must take
+     * for the concurrency limit to be reduced.
+     * @return latency factor
+     */
+    public double getLatencyFactor() {
+        return latencyFactor;
+    }
+    /**
+     * Sets how many times longer than usual recent operations must take
+     * for the concurrency limit to be reduced. Zero disables latency
+     * detection.
+     * @param latencyFactor latency factor
+     */
+    public void setLatencyFactor(double latencyFactor) {
+        this.latencyFactor = latencyFactor;
+    }
+
+    /**
+     * Gets the regular expression matched against error messages
+     * to detect overloaded servers.
+     * @return regular expression
+     */
+    public String getOverloadPattern() {
+        return overloadPattern;
+    }
+    /**
+     * Sets the regular expression matched against error messages
+     * to detect overloaded servers.
+     * @param overloadPattern regular expression
+     */
+    public synchronized void setOverloadPattern(String overloadPattern) {
+        this.overloadPattern = overloadPattern;
+        this.overloadRegex = null;
+    }
+
+    @Override
+    public void loadFromXML(Reader in) throws IOException {
+        XMLConfiguration xml = XMLConfigurationUtil.newXMLConfiguration(in);
+        setMaxConcurrency(xml.getInt("maxConcurrency", maxConcurrency));
+        setMinConcurrency(xml.getInt("minConcurrency", minConcurrency));
+        setDelay(XMLConfigurationUtil.getDuration(xml, "delay", delay));
+        setMaxBackoff(XMLConfigurationUtil.getDuration(
+                xml, "maxBackoff", maxBackoff));
+        setLatencyFactor(xml.getDouble("latencyFactor", latencyFactor));
+        setOverloadPattern(xml.getString("overloadPattern", overloadPattern));
+    }
+
+    @Override
+    public void saveToXML(Writer out) throws IOException {
+        try {
+            EnhancedXMLStreamWriter writer = new EnhancedXMLStreamWriter(out);
+            writer.writeStartElement("throttler");
+            writer.writeAttribute("class", getClass().getCanonicalName());
+            writer.writeElementInteger("maxConcurrency", maxConcurrency);
+            writer.writeElementInteger("minConcurrency", minConcurrency);
+            writer.writeElementLong("delay", delay);
+            writer.writeElementLong("maxBackoff", maxBackoff);
+            writer.writeElementString(
+                    "latencyFactor", Double.toString(latencyFactor));
+            writer.writeElementString("overloadPattern", overloadPattern);
+            writer.writeEndElement();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot save as XML.", e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof AdaptiveHostThrottler)) {
+            return false;
+        }
+        AdaptiveHostThrottler castOther = (AdaptiveHostThrottler) other;
+        return new EqualsBuilder()
+                .append(maxConcurrency, castOther.maxConcurrency)
+                .append(minConcurrency, castOther.minConcurrency)
+                .append(delay, castOther.delay)
+                .append(maxBackoff, castOther.maxBackoff)
+                .append(latencyFactor, castOther.latencyFactor)
+                .append(overloadPattern, castOther.overloadPattern)
+                .isEquals();
+    }
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(maxConcurrency)
+                .append(minConcurrency)
+                .append(delay)
+                .append(maxBackoff)
+                .append(latencyFactor)
+                .append(overloadPattern)
+                .toHashCode();
+    }
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("maxConcurrency", maxConcurrency)
+                .append("minConcurrency", minConcurrency)
+                .append("delay", delay)
+                .append("maxBackoff", maxBackoff)
+                .append("latencyFactor", latencyFactor)
+                .append("overloadPattern", overloadPattern)
+                .toString();
+    }
+
+    private static class Host {
+        private final String name;
+        private double limit;
+        private int active;
+        private long nextStart;
+        private long backoff;
+        // Latency averages, per kind of operation
+        private final double[] recentLatency =
+                new double[Operation.values().length];
+        private final double[] usualLatency =
+                new double[Operation.values().length];
+        Host(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+            Arrays.fill(recentLatency, -1);
+            Arrays.fill(usualLatency, -1);
+        }
+    }
+}
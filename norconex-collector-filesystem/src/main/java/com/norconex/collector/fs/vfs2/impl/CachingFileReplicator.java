@@ -0,0 +1,154 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.impl;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSelector;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.impl.DefaultFileReplicator;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * File replicator keeping local copies of replicated files (e.g.,
+ * archives or MIME files read by layered providers) in a given directory,
+ * so a file replicated again without having changed is not copied again.
+ * Least recently used copies are deleted when the total size of copies
+ * exceeds a maximum.  All copies are deleted when the replicator
+ * is closed.  Files without a last modified time or size are replicated
+ * every time, without being cached.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class CachingFileReplicator extends DefaultFileReplicator {
+
+    private static final Logger LOG =
+            LogManager.getLogger(CachingFileReplicator.class);
+
+    private final long maxSize;
+    // Access-ordered, least recently used first
+    private final Map<String, Replica> replicas =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor.
+     * @param dir directory where to store copies
+     * @param maxSize maximum total size in bytes of copies kept
+     */
+    public CachingFileReplicator(File dir, long maxSize) {
+        super(dir);
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public File replicateFile(FileObject srcFile, FileSelector selector)
+            throws FileSystemException {
+        if (srcFile.getType() != FileType.FILE) {
+            return super.replicateFile(srcFile, selector);
+        }
+        String key = srcFile.getName().getURI();
+        String version;
+        try {
+            FileContent content = srcFile.getContent();
+            version = content.getLastModifiedTime()
+                    + "_" + content.getSize();
+        } catch (FileSystemException e) {
+            LOG.debug("Cannot get last modified time or size, replicating "
+                    + "without caching: " + key, e);
+            return super.replicateFile(srcFile, selector);
+        }
+        synchronized (replicas) {
+            Replica replica = replicas.get(key);
+            if (replica != null && replica.version.equals(version)
+                    && replica.file.exists()) {
+                hits++;
+                return replica.file;
+            }
+            misses++;
+        }
+
+        File file = super.replicateFile(srcFile, selector);
+
+        synchronized (replicas) {
+            Replica replica = new Replica(file, version, file.length());
+            Replica old = replicas.put(key, replica);
+            if (old != null) {
+                delete(old);
+            }
+            totalSize += replica.size;
+            evict(replica);
+        }
+        return file;
+    }
+
+    // Delete least recently used copies (other than the one just made)
+    // until the total size fits.
+    private void evict(Replica keep) {
+        Iterator<Entry<String, Replica>> it = replicas.entrySet().iterator();
+        while (totalSize > maxSize && it.hasNext()) {
+            Replica replica = it.next().getValue();
+            if (replica != keep) {
+                it.remove();
+                delete(replica);
+            }
+        }
+    }
+
+    private void delete(Replica replica) {
+        totalSize -= replica.size;
+        if (!FileUtils.deleteQuietly(replica.file)) {
+            LOG.debug("Could not delete replicated file (may be in use, "
+                    + "will be deleted on close): " + replica.file);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (replicas) {
+            LOG.info("Replicated files cache hits: " + hits
+                    + ", misses: " + misses + ".");
+            replicas.clear();
+            totalSize = 0;
+        }
+        super.close();
+    }
+
+    private static class Replica {
+        private final File file;
+        private final String version;
+        private final long size;
+        Replica(File file, String version, long size) {
+            this.file = file;
+            this.version = version;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.impl;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemConfigBuilder;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.impl.DefaultFileReplicator;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.impl.PrivilegedFileReplicator;
+import org.apache.commons.vfs2.provider.FileProvider;
+import org.apache.commons.vfs2.provider.UriParser;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * <p>
+ * File system manager reading the same provider configuration files as
+ * {@link org.apache.commons.vfs2.impl.StandardFileSystemManager},
+ * but only creating the providers for a given set of schemes when
+ * initialized.  Other providers are created the first time a file with
+ * their scheme is resolved, and their dependencies are only looked up
+ * at that time.  This speeds up initialization when only a few
+ * schemes are used.
+ * </p>
+ * <p>
+ * Providers can be created at any time, so resolving files through this
+ * manager is guarded by a read/write lock.  A provider that is first
+ * needed while already resolving another file (e.g., an archive
+ * inside a remote file) cannot be created at that time. Such
+ * providers should be part of the schemes created on initialization.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class LazyFileSystemManager extends DefaultFileSystemManager {
+
+    private static final Logger LOG =
+            LogManager.getLogger(LazyFileSystemManager.class);
+
+    private static final String CONFIG_RESOURCE =
+            "org/apache/commons/vfs2/impl/providers.xml";
+    private static final String PLUGIN_CONFIG_RESOURCE =
+            "META-INF/vfs-providers.xml";
+
+    private final Set<String> initialSchemes = new HashSet<>();
+    // Scheme -> providers declared for it, in order of declaration
+    private final Map<String, List<ProviderDef>> pendingProviders =
+            new LinkedHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ClassLoader classLoader;
+
+    /**
+     * Creates a manager creating "file" provider and providers for
+     * the given schemes on initialization.
+     * @param initialSchemes schemes of providers to create on
+     *        initialization
+     */
+    public LazyFileSystemManager(Collection<String> initialSchemes) {
+        super();
+        this.initialSchemes.add("file");
+        if (initialSchemes != null) {
+            this.initialSchemes.addAll(initialSchemes);
+        }
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void init() throws FileSystemException {
+        if (classLoader == null) {
+            classLoader = getClass().getClassLoader();
+        }
+        DefaultFileReplicator replicator = createDefaultFileReplicator();
+        setReplicator(new PrivilegedFileReplicator(replicator));
+        setTemporaryFileStore(replicator);
+
+        readConfig(classLoader.getResource(CONFIG_RESOURCE));
+        try {
+            Enumeration<URL> plugins =
+                    classLoader.getResources(PLUGIN_CONFIG_RESOURCE);
+            while (plugins.hasMoreElements()) {
+                readConfig(plugins.nextElement());
+            }
+        } catch (Exception e) {
+            throw new FileSystemException(
+                    "Could not read VFS plugin configuration.", e);
+        }
+        super.init();
+
+        for (String scheme : initialSchemes) {
+            loadProvider(scheme);
+        }
+        LOG.debug("Providers created on initialization: "
+                + StringUtils.join(super.getSchemes(), ", "));
+    }
+
+    /**
+     * Creates the replicator used to make local copies of files
+     * read by layered providers, also used as temporary file store.
+     * @return file replicator
+     */
+    protected DefaultFileReplicator createDefaultFileReplicator() {
+        return new DefaultFileReplicator();
+    }
+
+    //--- Resolving methods making sure providers are created -----------------
+
+    @Override
+    public FileObject resolveFile(FileObject baseFile, String uri,
+            FileSystemOptions fileSystemOptions)
+                    throws FileSystemException {
+        ensureProviders(uri);
+        lock.readLock().lock();
+        try {
+            return super.resolveFile(baseFile, uri, fileSystemOptions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    @Override
+    public FileName resolveURI(String uri) throws FileSystemException {
+        ensureProviders(uri);
+        lock.readLock().lock();
+        try {
+            return super.resolveURI(uri);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    @Override
+    public FileObject createFileSystem(String scheme, FileObject file)
+            throws FileSystemException {
+        loadProvider(scheme);
+        lock.readLock().lock();
+        try {
+            return super.createFileSystem(scheme, file);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    @Override
+    public Collection<Capability> getProviderCapabilities(String scheme)
+            throws FileSystemException {
+        loadProvider(scheme);
+        return super.getProviderCapabilities(scheme);
+    }
+    @Override
+    public FileSystemConfigBuilder getFileSystemConfigBuilder(String scheme)
+            throws FileSystemException {
+        loadProvider(scheme);
+        return super.getFileSystemConfigBuilder(scheme);
+    }
+    @Override
+    public boolean hasProvider(String scheme) {
+        synchronized (pendingProviders) {
+            if (pendingProviders.containsKey(scheme)) {
+                return true;
+            }
+        }
+        return super.hasProvider(scheme);
+    }
+    @Override
+    public String[] getSchemes() {
+        Set<String> schemes = new HashSet<>();
+        synchronized (pendingProviders) {
+            schemes.addAll(pendingProviders.keySet());
+        }
+        lock.readLock().lock();
+        try {
+            for (String scheme : super.getSchemes()) {
+                schemes.add(scheme);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return schemes.toArray(new String[schemes.size()]);
+    }
+
+    /**
+     * Gets whether the provider for a scheme was created, as opposed
+     * to only being declared.
+     * @param scheme the scheme
+     * @return <code>true</code> if created
+     */
+    /*default*/ boolean isProviderCreated(String scheme) {
+        lock.readLock().lock();
+        try {
+            return super.hasProvider(scheme);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //--- Provider creation ---------------------------------------------------
+
+    // Layered URIs (e.g. zip:ftp://...) need every scheme they contain.
+    private void ensureProviders(String uri) throws FileSystemException {
+        String remainder = uri;
+        String scheme = UriParser.extractScheme(remainder);
+        while (scheme != null) {
+            loadProvider(scheme);
+            remainder = remainder.substring(scheme.length() + 1);
+            scheme = UriParser.extractScheme(remainder);
+        }
+    }
+
+    private void loadProvider(String scheme) throws FileSystemException {
+        List<ProviderDef> defs;
+        synchronized (pendingProviders) {
+            defs = pendingProviders.get(scheme);
+        }
+        if (defs == null) {
+            return;
+        }
+        if (lock.getReadHoldCount() > 0) {
+            LOG.warn("Provider for scheme \"" + scheme + "\" cannot be "
+                    + "created while resolving another file. Consider "
+                    + "having it created on initialization.");
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            synchronized (pendingProviders) {
+                if (pendingProviders.remove(scheme) == null) {
+                    return;
+                }
+            }
+            for (ProviderDef def : defs) {
+                if (createProvider(def)) {
+                    return;
+                }
+            }
+            LOG.debug("No provider available for scheme: " + scheme);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean createProvider(ProviderDef def)
+            throws FileSystemException {
+        for (String className : def.requiredClasses) {
+            if (!isClassAvailable(className)) {
+                LOG.debug("Skipping provider " + def.className
+                        + " (missing " + className + ").");
+                return false;
+            }
+        }
+        List<String> schemes = new ArrayList<>();
+        for (String scheme : def.schemes) {
+            if (!super.hasProvider(scheme)) {
+                schemes.add(scheme);
+            }
+        }
+        if (schemes.isEmpty()) {
+            return true;
+        }
+        addProvider(schemes.toArray(new String[schemes.size()]),
+                (FileProvider) createInstance(def.className));
+        synchronized (pendingProviders) {
+            pendingProviders.keySet().removeAll(schemes);
+        }
+        LOG.debug("Created provider " + def.className + " for schemes: "
+                + StringUtils.join(schemes, ", "));
+        return true;
+    }
+
+    private boolean isClassAvailable(String className) {
+        try {
+            classLoader.loadClass(className);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private Object createInstance(String className)
+            throws FileSystemException {
+        try {
+            return classLoader.loadClass(className).newInstance();
+        } catch (Exception e) {
+            throw new FileSystemException(
+                    "Could not create instance of: " + className, e);
+        }
+    }
+
+    //--- Configuration -------------------------------------------------------
+
+    private void readConfig(URL url) throws FileSystemException {
+        if (url == null) {
+            return;
+        }
+        InputStream is = null;
+        try {
+            is = url.openStream();
+            DocumentBuilderFactory factory =
+                    DocumentBuilderFactory.newInstance();
+            factory.setIgnoringComments(true);
+            Element root = factory.newDocumentBuilder()
+                    .parse(is).getDocumentElement();
+            readProviders(root);
+            readDefaultProvider(root);
+            readMaps(root);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FileSystemException(
+                    "Could not read VFS configuration: " + url, e);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    private void readProviders(Element root) {
+        NodeList providers = root.getElementsByTagName("provider");
+        for (int i = 0; i < providers.getLength(); i++) {
+            Element el = (Element) providers.item(i);
+            ProviderDef def = new ProviderDef(el.getAttribute("class-name"));
+            def.schemes.addAll(getAttributes(el, "scheme", "name"));
+            def.requiredClasses.addAll(
+                    getAttributes(el, "if-available", "class-name"));
+            synchronized (pendingProviders) {
+                for (String scheme : def.schemes) {
+                    List<ProviderDef> defs = pendingProviders.get(scheme);
+                    if (defs == null) {
+                        defs = new ArrayList<>();
+                        pendingProviders.put(scheme, defs);
+                    }
+                    defs.add(def);
+                }
+            }
+        }
+    }
+
+    private void readDefaultProvider(Element root)
+            throws FileSystemException {
+        NodeList defaults = root.getElementsByTagName("default-provider");
+        if (defaults.getLength() == 0) {
+            return;
+        }
+        Element el = (Element) defaults.item(0);
+        for (String className :
+                getAttributes(el, "if-available", "class-name")) {
+            if (!isClassAvailable(className)) {
+                return;
+            }
+        }
+        setDefaultProvider(
+                (FileProvider) createInstance(el.getAttribute("class-name")));
+    }
+
+    private void readMaps(Element root) {
+        NodeList maps = root.getElementsByTagName("extension-map");
+        for (int i = 0; i < maps.getLength(); i++) {
+            Element el = (Element) maps.item(i);
+            addExtensionMap(el.getAttribute("extension"),
+                    el.getAttribute("scheme"));
+        }
+        maps = root.getElementsByTagName("mime-type-map");
+        for (int i = 0; i < maps.getLength(); i++) {
+            Element el = (Element) maps.item(i);
+            addMimeTypeMap(el.getAttribute("mime-type"),
+                    el.getAttribute("scheme"));
+        }
+    }
+
+    private List<String> getAttributes(
+            Element parent, String tagName, String attribute) {
+        List<String> values = new ArrayList<>();
+        NodeList nodes = parent.getElementsByTagName(tagName);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            String value = ((Element) nodes.item(i)).getAttribute(attribute);
+            if (StringUtils.isNotBlank(value)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static class ProviderDef {
+        private final String className;
+        private final List<String> schemes = new ArrayList<>();
+        private final List<String> requiredClasses = new ArrayList<>();
+        ProviderDef(String className) {
+            this.className = className;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Pool of connections (or channels) to a single server, letting
+ * many threads use their own connection at once.  Idle connections
+ * are reused, most recently used first, and those idle for too long are
+ * closed, keeping a minimum number open.  Connections are only created
+ * when needed: the pool is not filled up to that minimum in advance.
+ * When the maximum number of connections is reached, threads wait for
+ * one to be released.
+ * @param <T> connection type
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public abstract class ConnectionPool<T> {
+
+    private static final Logger LOG =
+            LogManager.getLogger(ConnectionPool.class);
+
+    /** Maximum time to wait for a connection to be released. */
+    public static final long MAX_WAIT = TimeUnit.MINUTES.toMillis(5);
+
+    private final String name;
+    private final int minIdle;
+    private final int maxTotal;
+    private final long idleTimeout;
+    private final boolean healthCheck;
+
+    private final Deque<Idle<T>> idle = new ArrayDeque<>();
+    private int total;
+    private boolean closed;
+
+    /**
+     * Constructor.
+     * @param name name identifying the pool in logs (e.g., server)
+     * @param minIdle minimum number of idle connections kept open when
+     *        closing those idle for too long
+     * @param maxTotal maximum number of connections
+     * @param idleTimeout how long in milliseconds a connection can be idle
+     *        before being closed
+     * @param healthCheck whether to check idle connections are
+     *        still usable before handing them out
+     */
+    public ConnectionPool(String name, int minIdle, int maxTotal,
+            long idleTimeout, boolean healthCheck) {
+        super();
+        this.name = name;
+        this.minIdle = minIdle;
+        this.maxTotal = Math.max(1, maxTotal);
+        this.idleTimeout = idleTimeout;
+        this.healthCheck = healthCheck;
+    }
+
+    /**
+     * Creates a new connection.
+     * @return connection
+     * @throws FileSystemException could not connect
+     */
+    protected abstract T create() throws FileSystemException;
+    /**
+     * Whether a connection is still usable.
+     * @param connection the connection to check
+     * @return <code>true</code> if usable
+     */
+    protected abstract boolean isValid(T connection);
+    /**
+     * Closes a connection.
+     * @param connection the connection to close
+     */
+    protected abstract void destroy(T connection);
+
+    /**
+     * Gets an idle connection, or a new one if none are idle and the
+     * maximum is not reached.  Otherwise, waits for one to be released.
+     * @return connection
+     * @throws FileSystemException could not get a connection
+     */
+    public T borrow() throws FileSystemException {
+        long deadline = System.currentTimeMillis() + MAX_WAIT;
+        while (true) {
+            for (T expired : removeExpired()) {
+                destroyQuietly(expired);
+            }
+
+            T connection = null;
+            boolean create = false;
+            synchronized (this) {
+                if (closed) {
+                    throw new FileSystemException(
+                            "Connection pool closed: " + name);
+                }
+                Idle<T> entry = idle.pollFirst();
+                if (entry != null) {
+                    connection = entry.connection;
+                } else if (total < maxTotal) {
+                    total++;
+                    create = true;
+                } else {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new FileSystemException("Timeout waiting for "
+                                + "one of " + maxTotal + " connections "
+                                + "to be released: " + name);
+                    }
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new FileSystemException(
+                                "Interrupted waiting for connection.", e);
+                    }
+                    continue;
+                }
+            }
+
+            // I/O outside the lock
+            if (create) {
+                try {
+                    connection = create();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("New connection to " + name
+                                + " (" + total + "/" + maxTotal + ").");
+                    }
+                    return connection;
+                } catch (FileSystemException | RuntimeException e) {
+                    discarded();
+                    throw e;
+                }
+            }
+            if (!healthCheck || isValid(connection)) {
+                return connection;
+            }
+            LOG.debug("Discarding unusable connection to " + name + ".");
+            invalidate(connection);
+        }
+    }
+
+    /**
+     * Returns a connection to the pool.
+     * @param connection the connection
+     */
+    public void release(T connection) {
+        synchronized (this) {
+            if (!closed) {
+                idle.addFirst(new Idle<>(connection));
+                notifyAll();
+                return;
+            }
+        }
+        invalidate(connection);
+    }
+
+    /**
+     * Closes a connection that should not be reused.
+     * @param connection the connection
+     */
+    public void invalidate(T connection) {
+        try {
+            destroy(connection);
+        } finally {
+            discarded();
+        }
+    }
+
+    /**
+     * Closes idle connections and prevents new ones from being
+     * created.  Connections in use are closed when released.
+     */
+    public void close() {
+        List<Idle<T>> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (Idle<T> entry : toClose) {
+            invalidate(entry.connection);
+        }
+    }
+
+    public synchronized int getTotal() {
+        return total;
+    }
+    public synchronized int getIdle() {
+        return idle.size();
+    }
+
+    private synchronized void discarded() {
+        total--;
+        notifyAll();
+    }
+
+    // Oldest idle connections are last.
+    private synchronized List<T> removeExpired() {
+        List<T> expired = new ArrayList<>();
+        if (idleTimeout <= 0) {
+            return expired;
+        }
+        long expiry = System.currentTimeMillis() - idleTimeout;
+        Iterator<Idle<T>> it = idle.descendingIterator();
+        while (idle.size() > minIdle && it.hasNext()) {
+            Idle<T> entry = it.next();
+            if (entry.since > expiry) {
+                break;
+            }
+            it.remove();
+            total--;
+            expired.add(entry.connection);
+        }
+        if (!expired.isEmpty()) {
+            // Room for new connections
+            notifyAll();
+        }
+        return expired;
+    }
+
+    private void destroyQuietly(T connection) {
+        try {
+            destroy(connection);
+        } catch (RuntimeException e) {
+            LOG.debug("Could not close connection to " + name + ".", e);
+        }
+    }
+
+    private static class Idle<T> {
+        private final T connection;
+        private final long since = System.currentTimeMillis();
+        Idle(T connection) {
+            this.connection = connection;
+        }
+    }
+}
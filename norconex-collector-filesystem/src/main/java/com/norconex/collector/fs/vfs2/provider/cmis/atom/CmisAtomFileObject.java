@@ -32,13 +32,16 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.NameScope;
 import org.apache.commons.vfs2.provider.AbstractFileName;
 import org.apache.commons.vfs2.provider.AbstractFileObject;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /**
@@ -52,6 +55,8 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
     // no paging given Apache Commons VFS does not seem to support it.
     private static final int MAX_ITEMS = 1000000;
 
+    private static final String PROP_OBJECT_ID = "cmis:objectId";
+    private static final String PROP_NAME = "cmis:name";
     private static final String PROP_OBJECT_TYPE_ID = "cmis:objectTypeId";
     private static final String PROP_BASE_TYPE_ID = "cmis:baseTypeId";
     private static final String PROP_LAST_MODIFICATION_DATE =
@@ -60,6 +65,7 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
             "cmis:contentStreamLength";
 
     private Document document;
+    private boolean aclIncluded;
 
     protected CmisAtomFileObject(
             AbstractFileName name, CmisAtomFileSystem fileSystem) {
@@ -76,8 +82,15 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
     @Override
     protected void doAttach() throws Exception {
         // Defer creation of the CmisObject to here
+        if (document == null) {
+            // Use entry obtained when listing parent folder, if any
+            document = getSession().removeCachedEntry(
+                    getName().getPathDecoded());
+            aclIncluded = false;
+        }
         if (document == null) {
             document = createDocument(getName());
+            aclIncluded = true;
         }
     }
 
@@ -95,6 +108,16 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
         return document;
     }
 
+    /**
+     * Gets whether the document obtained for this file holds its ACL.
+     * Documents obtained from a parent folder listing or query do not.
+     * @return <code>true</code> if the document ACL is included
+     * @since 2.9.2
+     */
+    public boolean isAclIncluded() {
+        return aclIncluded;
+    }
+
     private Document createDocument(final FileName fileName)
             throws FileSystemException {
         return getSession().getDocumentByPath(fileName.getPath());
@@ -151,6 +174,13 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
     @Override
     protected String[] doListChildren() throws Exception {
         CmisAtomSession session = getSession();
+        CmisAtomFileSystemConfigBuilder cfg =
+                CmisAtomFileSystemConfigBuilder.getInstance();
+        FileSystemOptions opts = getFileSystem().getFileSystemOptions();
+        int batchSize = cfg.getQueryBatchSize(opts);
+        // Keep listing entries so children do not have to be fetched again,
+        // unless they are obtained by querying instead.
+        boolean keepEntries = batchSize <= 0 && cfg.getEntryCacheSize(opts) > 0;
 
         List<String> children = new ArrayList<>();
 
@@ -165,7 +195,10 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
         childrenURL += "&includeAllowableActions=false"
                 + "&includeRelationships=none"
                 + "&renditionFilter=cmis%3Anone&includePathSegment=true"
-                + "&maxItems=" + MAX_ITEMS + "&skipCount=0&filter=cmis%3Anone";
+                + "&maxItems=" + MAX_ITEMS + "&skipCount=0";
+        if (!keepEntries) {
+            childrenURL += "&filter=cmis%3Anone";
+        }
 
         Document childrenDoc = session.getDocument(childrenURL);
 
@@ -173,17 +206,102 @@ public class CmisAtomFileObject extends AbstractFileObject<CmisAtomFileSystem> {
             LOG.warn("TOO many items under " + getName().getPathDecoded()
                     + ". Will only process the first " + MAX_ITEMS);
         }
-        NodeList nl = session.getNodeList(
-                childrenDoc, "/feed/entry/pathSegment/text()");
+        NodeList nl = session.getNodeList(childrenDoc, "/feed/entry");
         for (int i = 0; i < nl.getLength(); i++) {
-            String fileName = nl.item(i).getNodeValue();
+            Node entry = nl.item(i);
+            String fileName = session.getString(entry, "pathSegment/text()");
             if (StringUtils.isNotBlank(fileName)) {
                 children.add(fileName);
+                if (keepEntries) {
+                    session.cacheEntry(toChildPath(fileName), entry);
+                }
+            }
+        }
+
+        if (batchSize > 0 && !children.isEmpty()) {
+            try {
+                cacheDocumentEntries(batchSize);
+            } catch (FileSystemException e) {
+                // documents will be fetched individually
+                LOG.warn("Could not query documents of folder: "
+                        + getName().getPathDecoded(), e);
             }
         }
         return children.toArray(ArrayUtils.EMPTY_STRING_ARRAY);
     }
 
+    // Obtains all documents properties of this folder using as few
+    // queries as possible and keep them until children are attached.
+    private void cacheDocumentEntries(int batchSize)
+            throws FileSystemException {
+        String folderId = getPropertyValue(PROP_OBJECT_ID);
+        if (StringUtils.isBlank(folderId)) {
+            return;
+        }
+        CmisAtomSession session = getSession();
+        String statement = "SELECT * FROM cmis:document WHERE IN_FOLDER('"
+                + folderId.replace("\\", "\\\\").replace("'", "\\'")
+                + "')";
+        // Ordered on a unique key so pages do not overlap nor skip entries,
+        // when the repository supports it.
+        boolean ordered = session.isQueryOrderable();
+        int skipCount = 0;
+        boolean hasMore;
+        do {
+            Document feed;
+            if (ordered) {
+                try {
+                    feed = session.getQueryDocument(statement
+                            + " ORDER BY cmis:objectId", batchSize, skipCount);
+                } catch (FileSystemException e) {
+                    if (skipCount > 0) {
+                        throw e;
+                    }
+                    // Only give up ordering if the query works without it
+                    feed = session.getQueryDocument(
+                            statement, batchSize, skipCount);
+                    ordered = false;
+                    if (session.setQueryNotOrderable()) {
+                        LOG.warn("Could not order CMIS query by object id. "
+                                + "Querying without ordering from now on. "
+                                + "Error: " + e.getMessage());
+                    }
+                }
+            } else {
+                feed = session.getQueryDocument(
+                        statement, batchSize, skipCount);
+            }
+            NodeList entries = session.getNodeList(feed, "/feed/entry");
+            int count = entries.getLength();
+            for (int i = 0; i < count; i++) {
+                Node entry = entries.item(i);
+                String name = session.getString(entry, "object/properties/"
+                        + "*[starts-with(local-name(), 'property')]"
+                        + "[@propertyDefinitionId='"
+                        + PROP_NAME + "']/value/text()");
+                if (StringUtils.isNotBlank(name)) {
+                    session.cacheEntry(toChildPath(name), entry);
+                }
+            }
+            skipCount += count;
+            // Servers may return fewer entries than requested per page
+            hasMore = count > 0 && (StringUtils.isNotBlank(session.getString(
+                    feed, "/feed/link[@rel='next']/@href"))
+                    || "true".equalsIgnoreCase(session.getString(
+                            feed, "/feed/hasMoreItems/text()")));
+        } while (hasMore);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Obtained " + skipCount + " document entries with "
+                    + "CMIS query for folder: " + getName().getPathDecoded());
+        }
+    }
+
+    // Same child path as resolved by VFS from listed children names
+    private String toChildPath(String childName) throws FileSystemException {
+        return getFileSystem().getFileSystemManager().resolveName(
+                getName(), childName, NameScope.CHILD).getPathDecoded();
+    }
+
     /**
      * Returns the size of the file content (in bytes).
      */
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.commons.lang.text.StrSubstitutor;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.vfs2.Capability;
 import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
@@ -37,12 +38,20 @@ import org.apache.commons.vfs2.impl.DefaultFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.AbstractLayeredFileProvider;
 import org.apache.commons.vfs2.provider.LayeredFileName;
 import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
@@ -100,11 +109,23 @@ public class CmisAtomFileProvider extends AbstractLayeredFileProvider {
 
         HttpClientBuilder httpBuilder = HttpClientBuilder.create();
 
+        PoolingHttpClientConnectionManager connManager =
+                resolveConnectionManager(httpBuilder, opts);
         resolveDefaultHeaders(httpBuilder, opts);
         resolveAuth(httpBuilder, opts);
         updateHttpClient(httpBuilder);
 
-        CmisAtomSession session = new CmisAtomSession(httpBuilder.build());
+        CmisAtomSession session =
+                new CmisAtomSession(httpBuilder.build(), connManager);
+        CmisAtomFileSystemConfigBuilder cfg =
+                CmisAtomFileSystemConfigBuilder.getInstance();
+        int cacheSize = cfg.getEntryCacheSize(opts);
+        if (cacheSize <= 0 && cfg.getQueryBatchSize(opts) > 0) {
+            // query entries are always kept, else queries are pointless
+            cacheSize = CmisAtomFileSystemConfigBuilder
+                    .DEFAULT_QUERY_ENTRY_CACHE_SIZE;
+        }
+        session.setMaxCachedEntries(cacheSize);
 
         resolveRepo(session, opts, file);
 
@@ -115,6 +136,67 @@ public class CmisAtomFileProvider extends AbstractLayeredFileProvider {
         //NOOP
     }
 
+    private PoolingHttpClientConnectionManager resolveConnectionManager(
+            HttpClientBuilder httpBuilder, FileSystemOptions opts) {
+        CmisAtomFileSystemConfigBuilder cmis =
+                CmisAtomFileSystemConfigBuilder.getInstance();
+
+        PoolingHttpClientConnectionManager connManager =
+                new PoolingHttpClientConnectionManager();
+        connManager.setMaxTotal(cmis.getMaxTotalConnections(opts));
+        connManager.setDefaultMaxPerRoute(cmis.getMaxConnectionsPerHost(opts));
+        httpBuilder.setConnectionManager(connManager);
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom();
+        if (cmis.getConnectionTimeout(opts) > 0) {
+            requestConfig.setConnectTimeout(cmis.getConnectionTimeout(opts));
+        }
+        if (cmis.getSoTimeout(opts) > 0) {
+            requestConfig.setSocketTimeout(cmis.getSoTimeout(opts));
+        }
+        if (cmis.getConnectionRequestTimeout(opts) > 0) {
+            requestConfig.setConnectionRequestTimeout(
+                    cmis.getConnectionRequestTimeout(opts));
+        }
+        httpBuilder.setDefaultRequestConfig(requestConfig.build());
+
+        final long keepAlive = cmis.getKeepAliveTimeout(opts);
+        if (keepAlive > 0) {
+            ConnectionKeepAliveStrategy strategy =
+                    new ConnectionKeepAliveStrategy() {
+                @Override
+                public long getKeepAliveDuration(
+                        HttpResponse response, HttpContext context) {
+                    // Honor server "Keep-Alive" header if present
+                    BasicHeaderElementIterator it =
+                            new BasicHeaderElementIterator(response
+                                    .headerIterator(HTTP.CONN_KEEP_ALIVE));
+                    while (it.hasNext()) {
+                        HeaderElement he = it.nextElement();
+                        if ("timeout".equalsIgnoreCase(he.getName())
+                                && he.getValue() != null) {
+                            long secs = NumberUtils.toLong(he.getValue(), -1);
+                            if (secs >= 0) {
+                                return secs * 1000;
+                            }
+                        }
+                    }
+                    return keepAlive;
+                }
+            };
+            httpBuilder.setKeepAliveStrategy(strategy);
+        }
+
+        if (cmis.isCompressionDisabled(opts)) {
+            httpBuilder.disableContentCompression();
+        }
+
+        LOG.info("CMIS Atom HTTP connection pool: maxTotal="
+                + connManager.getMaxTotal() + ", maxPerHost="
+                + connManager.getDefaultMaxPerRoute());
+        return connManager;
+    }
+
     private void resolveDefaultHeaders(
             HttpClientBuilder httpBuilder, FileSystemOptions opts) {
         List<Header> headers = new ArrayList<>();
@@ -25,6 +25,41 @@ public class CmisAtomFileSystemConfigBuilder extends FileSystemConfigBuilder {
             CmisAtomFileSystemConfigBuilder.class.getName() + ".repositoryId";
     private static final String PARAM_XML_TARGET_FIELD =
             CmisAtomFileSystemConfigBuilder.class.getName() + ".xmlTargetField";
+    private static final String PARAM_QUERY_BATCH_SIZE =
+            CmisAtomFileSystemConfigBuilder.class.getName() + ".queryBatchSize";
+    private static final String PARAM_ACL_DISABLED =
+            CmisAtomFileSystemConfigBuilder.class.getName() + ".aclDisabled";
+    private static final String PARAM_MAX_TOTAL_CONNECTIONS =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".maxTotalConnections";
+    private static final String PARAM_MAX_CONNECTIONS_PER_HOST =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".maxConnectionsPerHost";
+    private static final String PARAM_CONNECTION_TIMEOUT =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".connectionTimeout";
+    private static final String PARAM_SO_TIMEOUT =
+            CmisAtomFileSystemConfigBuilder.class.getName() + ".soTimeout";
+    private static final String PARAM_CONNECTION_REQUEST_TIMEOUT =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".connectionRequestTimeout";
+    private static final String PARAM_KEEP_ALIVE_TIMEOUT =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".keepAliveTimeout";
+    private static final String PARAM_ENTRY_CACHE_SIZE =
+            CmisAtomFileSystemConfigBuilder.class.getName() + ".entryCacheSize";
+    private static final String PARAM_COMPRESSION_DISABLED =
+            CmisAtomFileSystemConfigBuilder.class.getName()
+                    + ".compressionDisabled";
+
+    /** Default maximum number of pooled HTTP connections. */
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 50;
+    /** Default maximum number of pooled HTTP connections per host. */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    /** Default maximum number of folder listing entries kept in memory. */
+    public static final int DEFAULT_ENTRY_CACHE_SIZE = 0;
+    /** Maximum number of query entries kept in memory when not set. */
+    public static final int DEFAULT_QUERY_ENTRY_CACHE_SIZE = 10000;
 
     public static CmisAtomFileSystemConfigBuilder getInstance() {
         return INSTANCE;
@@ -44,6 +79,229 @@ public class CmisAtomFileSystemConfigBuilder extends FileSystemConfigBuilder {
         return (String) getParam(opts, PARAM_RESPOSITORY_ID);
     }
 
+    /**
+     * Sets the maximum number of documents to obtain per CMIS query
+     * request when bulk-fetching the properties of all documents
+     * in a folder. A value of zero or less disables bulk fetching
+     * (each document is then fetched individually).
+     * @param opts file system options
+     * @param queryBatchSize maximum number of documents per query request
+     * @since 2.9.2
+     */
+    public void setQueryBatchSize(FileSystemOptions opts, int queryBatchSize) {
+        setParam(opts, PARAM_QUERY_BATCH_SIZE, queryBatchSize);
+    }
+    /**
+     * Gets the maximum number of documents to obtain per CMIS query
+     * request when bulk-fetching the properties of all documents
+     * in a folder.
+     * @param opts file system options
+     * @return maximum number of documents per query request
+     * @since 2.9.2
+     */
+    public int getQueryBatchSize(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_QUERY_BATCH_SIZE, 0);
+    }
+
+    /**
+     * Sets whether to skip the extraction of document ACLs.
+     * @param opts file system options
+     * @param aclDisabled <code>true</code> to not extract ACLs
+     * @since 2.9.2
+     */
+    public void setAclDisabled(FileSystemOptions opts, boolean aclDisabled) {
+        setParam(opts, PARAM_ACL_DISABLED, aclDisabled);
+    }
+    /**
+     * Gets whether to skip the extraction of document ACLs.
+     * @param opts file system options
+     * @return <code>true</code> if not extracting ACLs
+     * @since 2.9.2
+     */
+    public boolean isAclDisabled(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_ACL_DISABLED, false);
+    }
+
+    /**
+     * Sets the maximum number of HTTP connections kept in the pool.
+     * @param opts file system options
+     * @param maxTotalConnections maximum number of connections
+     * @since 2.9.2
+     */
+    public void setMaxTotalConnections(
+            FileSystemOptions opts, int maxTotalConnections) {
+        setParam(opts, PARAM_MAX_TOTAL_CONNECTIONS, maxTotalConnections);
+    }
+    /**
+     * Gets the maximum number of HTTP connections kept in the pool.
+     * Default is {@value #DEFAULT_MAX_TOTAL_CONNECTIONS}.
+     * @param opts file system options
+     * @return maximum number of connections
+     * @since 2.9.2
+     */
+    public int getMaxTotalConnections(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MAX_TOTAL_CONNECTIONS,
+                DEFAULT_MAX_TOTAL_CONNECTIONS);
+    }
+
+    /**
+     * Sets the maximum number of HTTP connections to the same host.
+     * @param opts file system options
+     * @param maxConnectionsPerHost maximum number of connections per host
+     * @since 2.9.2
+     */
+    public void setMaxConnectionsPerHost(
+            FileSystemOptions opts, int maxConnectionsPerHost) {
+        setParam(opts, PARAM_MAX_CONNECTIONS_PER_HOST, maxConnectionsPerHost);
+    }
+    /**
+     * Gets the maximum number of HTTP connections to the same host.
+     * Default is {@value #DEFAULT_MAX_CONNECTIONS_PER_HOST}.
+     * @param opts file system options
+     * @return maximum number of connections per host
+     * @since 2.9.2
+     */
+    public int getMaxConnectionsPerHost(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MAX_CONNECTIONS_PER_HOST,
+                DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    /**
+     * Sets the HTTP connection timeout in milliseconds. Zero or less
+     * uses the HTTP client default (no timeout).
+     * @param opts file system options
+     * @param connectionTimeout connection timeout
+     * @since 2.9.2
+     */
+    public void setConnectionTimeout(
+            FileSystemOptions opts, int connectionTimeout) {
+        setParam(opts, PARAM_CONNECTION_TIMEOUT, connectionTimeout);
+    }
+    /**
+     * Gets the HTTP connection timeout in milliseconds.
+     * @param opts file system options
+     * @return connection timeout
+     * @since 2.9.2
+     */
+    public int getConnectionTimeout(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_CONNECTION_TIMEOUT, 0);
+    }
+
+    /**
+     * Sets the HTTP socket timeout in milliseconds. Zero or less
+     * uses the HTTP client default (no timeout).
+     * @param opts file system options
+     * @param soTimeout socket timeout
+     * @since 2.9.2
+     */
+    public void setSoTimeout(FileSystemOptions opts, int soTimeout) {
+        setParam(opts, PARAM_SO_TIMEOUT, soTimeout);
+    }
+    /**
+     * Gets the HTTP socket timeout in milliseconds.
+     * @param opts file system options
+     * @return socket timeout
+     * @since 2.9.2
+     */
+    public int getSoTimeout(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_SO_TIMEOUT, 0);
+    }
+
+    /**
+     * Sets how long to wait in milliseconds for a connection to be
+     * available from the pool. Zero or less waits indefinitely.
+     * @param opts file system options
+     * @param connectionRequestTimeout connection request timeout
+     * @since 2.9.2
+     */
+    public void setConnectionRequestTimeout(
+            FileSystemOptions opts, int connectionRequestTimeout) {
+        setParam(opts, PARAM_CONNECTION_REQUEST_TIMEOUT,
+                connectionRequestTimeout);
+    }
+    /**
+     * Gets how long to wait in milliseconds for a connection to be
+     * available from the pool.
+     * @param opts file system options
+     * @return connection request timeout
+     * @since 2.9.2
+     */
+    public int getConnectionRequestTimeout(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_CONNECTION_REQUEST_TIMEOUT, 0);
+    }
+
+    /**
+     * Sets how long in milliseconds an idle HTTP connection can be kept
+     * alive when the server does not say. Zero or less keeps it alive
+     * indefinitely.
+     * @param opts file system options
+     * @param keepAliveTimeout keep-alive timeout
+     * @since 2.9.2
+     */
+    public void setKeepAliveTimeout(
+            FileSystemOptions opts, long keepAliveTimeout) {
+        setParam(opts, PARAM_KEEP_ALIVE_TIMEOUT, keepAliveTimeout);
+    }
+    /**
+     * Gets how long in milliseconds an idle HTTP connection can be kept
+     * alive when the server does not say.
+     * @param opts file system options
+     * @return keep-alive timeout
+     * @since 2.9.2
+     */
+    public long getKeepAliveTimeout(FileSystemOptions opts) {
+        return getLong(opts, PARAM_KEEP_ALIVE_TIMEOUT, 0L);
+    }
+
+    /**
+     * Sets whether to disable HTTP response compression (e.g., gzip).
+     * @param opts file system options
+     * @param compressionDisabled <code>true</code> to disable compression
+     * @since 2.9.2
+     */
+    public void setCompressionDisabled(
+            FileSystemOptions opts, boolean compressionDisabled) {
+        setParam(opts, PARAM_COMPRESSION_DISABLED, compressionDisabled);
+    }
+    /**
+     * Gets whether HTTP response compression (e.g., gzip) is disabled.
+     * @param opts file system options
+     * @return <code>true</code> if compression is disabled
+     * @since 2.9.2
+     */
+    public boolean isCompressionDisabled(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_COMPRESSION_DISABLED, false);
+    }
+
+    /**
+     * Sets the maximum number of entries obtained from folder listings
+     * (or queries) kept in memory until their matching file is processed.
+     * Those files are then not fetched again. Listing entries do not
+     * hold ACLs, so unless ACLs are disabled, each document ACL is
+     * obtained with a separate request instead.
+     * Zero or less does not keep listing entries, and keeps up to
+     * {@value #DEFAULT_QUERY_ENTRY_CACHE_SIZE} query entries when
+     * using queries.
+     * @param opts file system options
+     * @param entryCacheSize maximum number of entries
+     * @since 2.9.2
+     */
+    public void setEntryCacheSize(FileSystemOptions opts, int entryCacheSize) {
+        setParam(opts, PARAM_ENTRY_CACHE_SIZE, entryCacheSize);
+    }
+    /**
+     * Gets the maximum number of entries obtained from folder listings
+     * (or queries) kept in memory until their matching file is processed.
+     * Default is {@value #DEFAULT_ENTRY_CACHE_SIZE} (disabled).
+     * @param opts file system options
+     * @return maximum number of entries
+     * @since 2.9.2
+     */
+    public int getEntryCacheSize(FileSystemOptions opts) {
+        return getInteger(
+                opts, PARAM_ENTRY_CACHE_SIZE, DEFAULT_ENTRY_CACHE_SIZE);
+    }
+
     @Override
     protected Class<CmisAtomFileSystem> getConfigClass() {
         return CmisAtomFileSystem.class;
@@ -19,6 +19,10 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
@@ -39,6 +43,8 @@ import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
@@ -51,17 +57,50 @@ public class CmisAtomSession {
     private static final Logger LOG =
             LogManager.getLogger(CmisAtomSession.class);
 
+    // How often to log connection pool usage (number of requests).
+    private static final int POOL_STATS_LOG_INTERVAL = 1000;
+
     private final CloseableHttpClient http;
+    private final PoolingHttpClientConnectionManager connManager;
+    private final AtomicLong requestCount = new AtomicLong();
+    // Whether queries can be ordered by object id. Not all repositories
+    // mark "cmis:objectId" as orderable.
+    private final AtomicBoolean queryOrderable = new AtomicBoolean(true);
+    // Maximum number of entries kept in memory until their file object
+    // is attached.
+    private int maxCachedEntries =
+            CmisAtomFileSystemConfigBuilder.DEFAULT_ENTRY_CACHE_SIZE;
     private String endpointURL;
     private String repoId;
     private String repoName;
     private String objectByPathTemplate;
     private String queryTemplate;
     private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final Map<String, Document> cachedEntries =
+            new LinkedHashMap<String, Document>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, Document> eldest) {
+            return size() > maxCachedEntries;
+        }
+    };
 
     public CmisAtomSession(CloseableHttpClient httpClient) {
+        this(httpClient, null);
+    }
+    /**
+     * Creates a new session using a pooled HTTP client.
+     * @param httpClient HTTP client
+     * @param connManager connection manager used by the HTTP client
+     *        (for obtaining pool usage statistics)
+     * @since 2.9.2
+     */
+    public CmisAtomSession(CloseableHttpClient httpClient,
+            PoolingHttpClientConnectionManager connManager) {
         super();
         this.http = httpClient;
+        this.connManager = connManager;
     }
 
     public String getEndpointURL() {
@@ -99,12 +138,47 @@ public class CmisAtomSession {
         this.queryTemplate = queryTemplate;
     }
 
+    /**
+     * Gets the maximum number of feed entries kept in memory until
+     * their matching file is attached.
+     * @return maximum number of cached entries
+     * @since 2.9.2
+     */
+    public int getMaxCachedEntries() {
+        return maxCachedEntries;
+    }
+    void setMaxCachedEntries(int maxCachedEntries) {
+        this.maxCachedEntries = maxCachedEntries;
+    }
+
     public CloseableHttpClient getHttpClient() {
         return http;
     }
+
+    /**
+     * Gets the HTTP connection pool usage statistics.
+     * @return pool statistics or <code>null</code> if not using a
+     *         pooled connection manager
+     * @since 2.9.2
+     */
+    public PoolStats getConnectionPoolStats() {
+        if (connManager == null) {
+            return null;
+        }
+        return connManager.getTotalStats();
+    }
+    /**
+     * Gets the number of HTTP requests made so far by this session.
+     * @return number of requests
+     * @since 2.9.2
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
     public HttpResponse httpGet(String url) throws FileSystemException {
         try {
-            return http.execute(new HttpGet(url));
+            return execute(url);
         } catch (IOException e) {
             throw new FileSystemException(
                     "Could not get document from " + url, e);
@@ -119,8 +193,89 @@ public class CmisAtomSession {
                     "Could not get document from path: " + path, e);
         }
     }
+    /**
+     * Executes a CMIS query and returns the resulting Atom feed.
+     * @param statement CMIS query statement
+     * @param maxItems maximum number of entries to return
+     * @param skipCount number of entries to skip
+     * @return Atom feed document
+     * @throws FileSystemException problem executing the query
+     * @since 2.9.2
+     */
+    public Document getQueryDocument(
+            String statement, int maxItems, int skipCount)
+                    throws FileSystemException {
+        try {
+            return getDocument(queryTemplate
+                    .replace("{q}", URLEncoder.encode(
+                            statement, StandardCharsets.UTF_8.toString()))
+                    .replace("{searchAllVersions}", "false")
+                    .replace("{maxItems}", Integer.toString(maxItems))
+                    .replace("{skipCount}", Integer.toString(skipCount)));
+        } catch (UnsupportedEncodingException e) {
+            throw new FileSystemException(
+                    "Could not execute query: " + statement, e);
+        }
+    }
+
+    /**
+     * Gets whether queries can be ordered by object id. This is
+     * assumed until {@link #setQueryNotOrderable()} is invoked.
+     * @return <code>true</code> if queries can be ordered
+     * @since 2.9.2
+     */
+    public boolean isQueryOrderable() {
+        return queryOrderable.get();
+    }
+    /**
+     * Records that queries cannot be ordered by object id for this
+     * repository.
+     * @return <code>true</code> if queries were considered orderable
+     *         before this call
+     * @since 2.9.2
+     */
+    public boolean setQueryNotOrderable() {
+        return queryOrderable.getAndSet(false);
+    }
+
+    /**
+     * Keeps a copy of an Atom feed entry so that the file object matching
+     * the given path can be attached without fetching it again.
+     * @param path file path
+     * @param entry Atom entry node (e.g., from a children or query feed)
+     * @throws FileSystemException could not copy the entry
+     * @since 2.9.2
+     */
+    public void cacheEntry(String path, Node entry)
+            throws FileSystemException {
+        if (maxCachedEntries <= 0) {
+            return;
+        }
+        try {
+            Document doc = newDocumentBuilder().newDocument();
+            doc.appendChild(doc.importNode(entry, true));
+            synchronized (cachedEntries) {
+                cachedEntries.put(path, doc);
+            }
+        } catch (ParserConfigurationException e) {
+            throw new FileSystemException(
+                    "Could not cache entry for path: " + path, e);
+        }
+    }
+    /**
+     * Removes and returns the cached entry matching the given path.
+     * @param path file path
+     * @return entry document or <code>null</code> if not cached
+     * @since 2.9.2
+     */
+    public Document removeCachedEntry(String path) {
+        synchronized (cachedEntries) {
+            return cachedEntries.remove(path);
+        }
+    }
+
     public Document getDocument(String fullURL) throws FileSystemException {
-        try (CloseableHttpResponse resp = http.execute(new HttpGet(fullURL))) {
+        try (CloseableHttpResponse resp = execute(fullURL)) {
             if (resp.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 String consumedContent = IOUtils.toString(
                         resp.getEntity().getContent(), StandardCharsets.UTF_8);
@@ -129,10 +284,7 @@ public class CmisAtomSession {
                 throw new IOException("Invalid HTTP response \""
                         +  resp.getStatusLine() + "\" from " + fullURL);
             }
-            DocumentBuilderFactory factory =
-                    DocumentBuilderFactory.newInstance();
-            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = newDocumentBuilder();
             try (InputStream is = resp.getEntity().getContent()) {
                 return builder.parse(is);
             }
@@ -144,7 +296,7 @@ public class CmisAtomSession {
     }
     public InputStream getStream(String fullURL) throws FileSystemException {
         try {
-            CloseableHttpResponse resp = http.execute(new HttpGet(fullURL));
+            CloseableHttpResponse resp = execute(fullURL);
             if (resp.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 throw new IOException("Invalid HTTP response \""
                         +  resp.getStatusLine() + "\" from " + fullURL);
@@ -175,6 +327,11 @@ public class CmisAtomSession {
     }
 
     public void close() {
+        synchronized (cachedEntries) {
+            cachedEntries.clear();
+        }
+        LOG.info("CMIS Atom HTTP requests: " + requestCount.get()
+                + ". Connection pool: " + getConnectionPoolStats());
         if (http instanceof CloseableHttpClient) {
             try {
                 http.close();
@@ -185,6 +342,23 @@ public class CmisAtomSession {
         }
     }
 
+    private CloseableHttpResponse execute(String url) throws IOException {
+        long count = requestCount.incrementAndGet();
+        if (LOG.isDebugEnabled() && connManager != null
+                && count % POOL_STATS_LOG_INTERVAL == 0) {
+            LOG.debug("CMIS Atom HTTP requests: " + count
+                    + ". Connection pool: " + connManager.getTotalStats());
+        }
+        return http.execute(new HttpGet(url));
+    }
+
+    private DocumentBuilder newDocumentBuilder()
+            throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        return factory.newDocumentBuilder();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T evaluate(Node node, String exp, QName returnType)
             throws FileSystemException {
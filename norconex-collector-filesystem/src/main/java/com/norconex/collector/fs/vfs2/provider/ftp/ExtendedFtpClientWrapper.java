@@ -0,0 +1,152 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.ftp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.UserAuthenticationData;
+import org.apache.commons.vfs2.provider.GenericFileName;
+import org.apache.commons.vfs2.provider.ftp.FTPClientWrapper;
+import org.apache.commons.vfs2.provider.ftp.FtpClientFactory;
+import org.apache.commons.vfs2.provider.ftp.FtpFileSystemConfigBuilder;
+import org.apache.commons.vfs2.util.UserAuthenticatorUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * FTP client wrapper listing folders with <code>MLSD</code> when
+ * enabled and the server supports it (advertising <code>MLST</code> in
+ * its features).
+ * <code>MLSD</code> entries hold their type, size and modification
+ * time in a standard format (UTC, to the second or better), so they
+ * do not depend on the server locale and date formats like
+ * <code>LIST</code> entries do.
+ */
+public class ExtendedFtpClientWrapper extends FTPClientWrapper {
+
+    private static final Logger LOG =
+            LogManager.getLogger(ExtendedFtpClientWrapper.class);
+
+    // Not initialized here: set by the super constructor via createClient
+    private FTPClient ftpClient;
+
+    protected ExtendedFtpClientWrapper(GenericFileName root,
+            FileSystemOptions fileSystemOptions) throws FileSystemException {
+        super(root, fileSystemOptions);
+    }
+
+    @Override
+    protected FTPClient createClient(GenericFileName rootName,
+            UserAuthenticationData authData) throws FileSystemException {
+        ftpClient = ExtendedConnectionFactory.INSTANCE.createConnection(
+                rootName.getHostName(),
+                rootName.getPort(),
+                UserAuthenticatorUtils.getData(authData,
+                        UserAuthenticationData.USERNAME,
+                        UserAuthenticatorUtils.toChar(rootName.getUserName())),
+                UserAuthenticatorUtils.getData(authData,
+                        UserAuthenticationData.PASSWORD,
+                        UserAuthenticatorUtils.toChar(rootName.getPassword())),
+                rootName.getPath(),
+                getFileSystemOptions());
+        return ftpClient;
+    }
+
+    /**
+     * Whether this client is connected and the server responds to
+     * a <code>NOOP</code> command.
+     * @return <code>true</code> if the client can be used
+     */
+    public boolean isAlive() {
+        FTPClient client = ftpClient;
+        if (client == null || !client.isConnected()) {
+            return false;
+        }
+        try {
+            return client.sendNoOp();
+        } catch (IOException e) {
+            LOG.debug("FTP connection no longer usable.", e);
+            return false;
+        }
+    }
+
+    private static final class ExtendedConnectionFactory
+            extends FtpClientFactory.ConnectionFactory<
+                    FTPClient, FtpFileSystemConfigBuilder> {
+        private static final ExtendedConnectionFactory INSTANCE =
+                new ExtendedConnectionFactory();
+        private ExtendedConnectionFactory() {
+            super(FtpFileSystemConfigBuilder.getInstance());
+        }
+        @Override
+        protected FTPClient createClient(
+                FileSystemOptions fileSystemOptions) {
+            return new ExtendedFTPClient(ExtendedFtpFileSystemConfigBuilder
+                    .getInstance().isMlsd(fileSystemOptions));
+        }
+        @Override
+        protected void setupOpenConnection(
+                FTPClient client, FileSystemOptions fileSystemOptions) {
+            // NOOP
+        }
+    }
+
+    /*default*/ static class ExtendedFTPClient extends FTPClient {
+        private final boolean mlsd;
+        private Boolean mlsdSupported;
+        ExtendedFTPClient(boolean mlsd) {
+            super();
+            this.mlsd = mlsd;
+        }
+        @Override
+        public FTPFile[] listFiles(String pathname) throws IOException {
+            if (!isMlsdSupported()) {
+                return super.listFiles(pathname);
+            }
+            FTPFile[] entries = mlistDir(pathname);
+            List<FTPFile> files = new ArrayList<>(entries.length);
+            for (FTPFile entry : entries) {
+                // skip unparsable entries and current/parent folders
+                if (entry != null && !StringUtils.containsIgnoreCase(
+                        entry.getRawListing(), "type=cdir;")
+                        && !StringUtils.containsIgnoreCase(
+                                entry.getRawListing(), "type=pdir;")) {
+                    files.add(entry);
+                }
+            }
+            return files.toArray(new FTPFile[files.size()]);
+        }
+        private boolean isMlsdSupported() throws IOException {
+            if (!mlsd) {
+                return false;
+            }
+            if (mlsdSupported == null) {
+                mlsdSupported = hasFeature("MLST") || hasFeature("MLSD");
+                if (!mlsdSupported) {
+                    LOG.info("FTP server does not support MLSD, "
+                            + "using LIST: " + getRemoteAddress());
+                }
+            }
+            return mlsdSupported;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.ftp;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.provider.GenericFileName;
+import org.apache.commons.vfs2.provider.ftp.FtpFileProvider;
+
+/**
+ * FTP provider adding the following to {@link FtpFileProvider},
+ * when enabled with {@link ExtendedFtpFileSystemConfigBuilder}:
+ * <ul>
+ *   <li>Folders listed with the <code>MLSD</code> command when supported
+ *       by the server.</li>
+ *   <li>A pool of connections per server, so many threads can
+ *       download files from the same server at once.</li>
+ * </ul>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class ExtendedFtpFileProvider extends FtpFileProvider {
+
+    public ExtendedFtpFileProvider() {
+        super();
+    }
+
+    @Override
+    protected FileSystem doCreateFileSystem(final FileName name,
+            final FileSystemOptions fileSystemOptions)
+                    throws FileSystemException {
+        final GenericFileName rootName = (GenericFileName) name;
+        return new ExtendedFtpFileSystem(rootName,
+                new ExtendedFtpClientWrapper(rootName, fileSystemOptions),
+                fileSystemOptions);
+    }
+}
@@ -0,0 +1,118 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.ftp;
+
+import java.io.IOException;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.provider.GenericFileName;
+import org.apache.commons.vfs2.provider.ftp.FTPClientWrapper;
+import org.apache.commons.vfs2.provider.ftp.FtpClient;
+import org.apache.commons.vfs2.provider.ftp.FtpFileSystem;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.norconex.collector.fs.vfs2.provider.ConnectionPool;
+
+/**
+ * FTP file system using {@link ExtendedFtpClientWrapper} clients,
+ * taken from a {@link ConnectionPool} when a maximum number of
+ * connections is set.
+ */
+public class ExtendedFtpFileSystem extends FtpFileSystem {
+
+    private static final Logger LOG =
+            LogManager.getLogger(ExtendedFtpFileSystem.class);
+
+    private final ConnectionPool<FtpClient> pool;
+
+    public ExtendedFtpFileSystem(GenericFileName rootName,
+            FtpClient ftpClient, FileSystemOptions fileSystemOptions) {
+        super(rootName, ftpClient, fileSystemOptions);
+        this.pool = createPool(rootName, fileSystemOptions);
+    }
+
+    private ConnectionPool<FtpClient> createPool(
+            GenericFileName rootName, FileSystemOptions opts) {
+        ExtendedFtpFileSystemConfigBuilder builder =
+                ExtendedFtpFileSystemConfigBuilder.getInstance();
+        int maxConnections = builder.getMaxConnections(opts);
+        if (maxConnections <= 0) {
+            return null;
+        }
+        return new ConnectionPool<FtpClient>(rootName.getFriendlyURI(),
+                builder.getMinIdleConnections(opts), maxConnections,
+                builder.getIdleTimeout(opts), builder.isHealthCheck(opts)) {
+            @Override
+            protected FtpClient create() throws FileSystemException {
+                return createClient();
+            }
+            @Override
+            protected boolean isValid(FtpClient client) {
+                if (client instanceof ExtendedFtpClientWrapper) {
+                    return ((ExtendedFtpClientWrapper) client).isAlive();
+                }
+                return client.isConnected();
+            }
+            @Override
+            protected void destroy(FtpClient client) {
+                try {
+                    client.disconnect();
+                } catch (IOException e) {
+                    LOG.debug("Could not disconnect FTP client.", e);
+                }
+            }
+        };
+    }
+
+    // first one is the client this file system was created with
+    private FtpClient createClient() throws FileSystemException {
+        return super.getClient();
+    }
+
+    @Override
+    public FtpClient getClient() throws FileSystemException {
+        if (pool == null) {
+            return super.getClient();
+        }
+        return pool.borrow();
+    }
+
+    @Override
+    public void putClient(FtpClient client) {
+        if (pool == null) {
+            super.putClient(client);
+        } else if (client.isConnected()) {
+            pool.release(client);
+        } else {
+            pool.invalidate(client);
+        }
+    }
+
+    @Override
+    protected FTPClientWrapper createWrapper() throws FileSystemException {
+        return new ExtendedFtpClientWrapper(
+                (GenericFileName) getRoot().getName(), getFileSystemOptions());
+    }
+
+    @Override
+    protected void doCloseCommunicationLink() {
+        if (pool != null) {
+            pool.close();
+        }
+        super.doCloseCommunicationLink();
+    }
+}
@@ -0,0 +1,160 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.ftp;
+
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemConfigBuilder;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.provider.ftp.FtpFileSystem;
+
+/**
+ * FTP file system options specific to {@link ExtendedFtpFileProvider}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class ExtendedFtpFileSystemConfigBuilder
+        extends FileSystemConfigBuilder {
+
+    private static final ExtendedFtpFileSystemConfigBuilder INSTANCE =
+            new ExtendedFtpFileSystemConfigBuilder();
+
+    private static final String PARAM_MLSD =
+            ExtendedFtpFileSystemConfigBuilder.class.getName() + ".mlsd";
+    private static final String PARAM_MAX_CONNECTIONS =
+            ExtendedFtpFileSystemConfigBuilder.class.getName()
+                    + ".maxConnections";
+    private static final String PARAM_MIN_IDLE_CONNECTIONS =
+            ExtendedFtpFileSystemConfigBuilder.class.getName()
+                    + ".minIdleConnections";
+    private static final String PARAM_IDLE_TIMEOUT =
+            ExtendedFtpFileSystemConfigBuilder.class.getName()
+                    + ".idleTimeout";
+    private static final String PARAM_HEALTH_CHECK =
+            ExtendedFtpFileSystemConfigBuilder.class.getName()
+                    + ".healthCheck";
+
+    /** Default minimum number of idle pooled connections. */
+    public static final int DEFAULT_MIN_IDLE_CONNECTIONS = 1;
+    /** Default time in milliseconds before idle connections are closed. */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    public static ExtendedFtpFileSystemConfigBuilder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets whether to list folders with the <code>MLSD</code> command
+     * (RFC 3659) when the server supports it.
+     * @param opts file system options
+     * @param mlsd <code>true</code> to use <code>MLSD</code>
+     */
+    public void setMlsd(FileSystemOptions opts, boolean mlsd) {
+        setParam(opts, PARAM_MLSD, mlsd);
+    }
+    /**
+     * Gets whether to list folders with the <code>MLSD</code> command
+     * (RFC 3659) when the server supports it.
+     * @param opts file system options
+     * @return <code>true</code> if using <code>MLSD</code>
+     */
+    public boolean isMlsd(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_MLSD, false);
+    }
+
+    /**
+     * Sets the maximum number of pooled connections to a server.
+     * Zero (default) does not pool connections: only one idle connection
+     * is kept and others are closed after each use.
+     * @param opts file system options
+     * @param maxConnections maximum number of connections
+     */
+    public void setMaxConnections(FileSystemOptions opts, int maxConnections) {
+        setParam(opts, PARAM_MAX_CONNECTIONS, maxConnections);
+    }
+    /**
+     * Gets the maximum number of pooled connections to a server.
+     * @param opts file system options
+     * @return maximum number of connections
+     */
+    public int getMaxConnections(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MAX_CONNECTIONS, 0);
+    }
+
+    /**
+     * Sets the minimum number of idle pooled connections kept open.
+     * Only applies when closing connections idle for too long:
+     * connections are not opened in advance.
+     * @param opts file system options
+     * @param minIdleConnections minimum number of idle connections
+     */
+    public void setMinIdleConnections(
+            FileSystemOptions opts, int minIdleConnections) {
+        setParam(opts, PARAM_MIN_IDLE_CONNECTIONS, minIdleConnections);
+    }
+    /**
+     * Gets the minimum number of idle pooled connections kept open.
+     * Default is {@value #DEFAULT_MIN_IDLE_CONNECTIONS}.
+     * @param opts file system options
+     * @return minimum number of idle connections
+     */
+    public int getMinIdleConnections(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MIN_IDLE_CONNECTIONS,
+                DEFAULT_MIN_IDLE_CONNECTIONS);
+    }
+
+    /**
+     * Sets how long in milliseconds a pooled connection can be idle
+     * before being closed.
+     * @param opts file system options
+     * @param idleTimeout idle timeout in milliseconds
+     */
+    public void setIdleTimeout(FileSystemOptions opts, long idleTimeout) {
+        setParam(opts, PARAM_IDLE_TIMEOUT, idleTimeout);
+    }
+    /**
+     * Gets how long in milliseconds a pooled connection can be idle
+     * before being closed. Default is {@value #DEFAULT_IDLE_TIMEOUT}.
+     * @param opts file system options
+     * @return idle timeout in milliseconds
+     */
+    public long getIdleTimeout(FileSystemOptions opts) {
+        return getLong(opts, PARAM_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Sets whether idle pooled connections are checked with a
+     * <code>NOOP</code> command before being reused.
+     * @param opts file system options
+     * @param healthCheck <code>true</code> to check connections
+     */
+    public void setHealthCheck(FileSystemOptions opts, boolean healthCheck) {
+        setParam(opts, PARAM_HEALTH_CHECK, healthCheck);
+    }
+    /**
+     * Gets whether idle pooled connections are checked with a
+     * <code>NOOP</code> command before being reused. Default is
+     * <code>true</code>.
+     * @param opts file system options
+     * @return <code>true</code> if checking connections
+     */
+    public boolean isHealthCheck(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_HEALTH_CHECK, true);
+    }
+
+    @Override
+    protected Class<? extends FileSystem> getConfigClass() {
+        return FtpFileSystem.class;
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.sftp;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.UserAuthenticationData;
+import org.apache.commons.vfs2.provider.GenericFileName;
+import org.apache.commons.vfs2.provider.sftp.SftpClientFactory;
+import org.apache.commons.vfs2.provider.sftp.SftpFileProvider;
+import org.apache.commons.vfs2.util.UserAuthenticatorUtils;
+
+import com.jcraft.jsch.Session;
+
+/**
+ * SFTP provider creating {@link ExtendedSftpFileSystem} instances,
+ * which can use a pool of SFTP channels per server, so many threads can
+ * download files from the same server at once.
+ * Pooling is enabled with {@link ExtendedSftpFileSystemConfigBuilder}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class ExtendedSftpFileProvider extends SftpFileProvider {
+
+    public ExtendedSftpFileProvider() {
+        super();
+    }
+
+    // Same as parent, but for the file system created
+    @Override
+    protected FileSystem doCreateFileSystem(final FileName name,
+            final FileSystemOptions fileSystemOptions)
+                    throws FileSystemException {
+        final GenericFileName rootName = (GenericFileName) name;
+
+        Session session;
+        UserAuthenticationData authData = null;
+        try {
+            authData = UserAuthenticatorUtils.authenticate(
+                    fileSystemOptions, AUTHENTICATOR_TYPES);
+            session = SftpClientFactory.createConnection(
+                    rootName.getHostName(),
+                    rootName.getPort(),
+                    UserAuthenticatorUtils.getData(
+                            authData, UserAuthenticationData.USERNAME,
+                            UserAuthenticatorUtils.toChar(
+                                    rootName.getUserName())),
+                    UserAuthenticatorUtils.getData(
+                            authData, UserAuthenticationData.PASSWORD,
+                            UserAuthenticatorUtils.toChar(
+                                    rootName.getPassword())),
+                    fileSystemOptions);
+        } catch (final Exception e) {
+            throw new FileSystemException(
+                    "vfs.provider.sftp/connect.error", name, e);
+        } finally {
+            UserAuthenticatorUtils.cleanup(authData);
+        }
+        return new ExtendedSftpFileSystem(
+                rootName, session, fileSystemOptions);
+    }
+}
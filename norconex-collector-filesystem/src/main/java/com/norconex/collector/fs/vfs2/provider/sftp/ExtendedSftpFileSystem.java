@@ -0,0 +1,132 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.sftp;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.provider.GenericFileName;
+import org.apache.commons.vfs2.provider.sftp.SftpFileSystem;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.norconex.collector.fs.vfs2.provider.ConnectionPool;
+
+/**
+ * SFTP file system taking its channels from a {@link ConnectionPool}
+ * when a maximum number of channels is set.  All channels share the
+ * file system SSH session.  New channels are set to keep the configured
+ * number of read requests outstanding when downloading files.
+ */
+public class ExtendedSftpFileSystem extends SftpFileSystem {
+
+    private final ConnectionPool<ChannelSftp> pool;
+    private final int outstandingReads;
+    // Channels already set up, which VFS may hand out more than once
+    private final Set<ChannelSftp> setUpChannels = Collections.newSetFromMap(
+            new WeakHashMap<ChannelSftp, Boolean>());
+
+    public ExtendedSftpFileSystem(GenericFileName rootName,
+            Session session, FileSystemOptions fileSystemOptions) {
+        super(rootName, session, fileSystemOptions);
+        this.pool = createPool(rootName, fileSystemOptions);
+        ExtendedSftpFileSystemConfigBuilder builder =
+                ExtendedSftpFileSystemConfigBuilder.getInstance();
+        this.outstandingReads = builder.getOutstandingReads(fileSystemOptions);
+    }
+
+    private ConnectionPool<ChannelSftp> createPool(
+            GenericFileName rootName, FileSystemOptions opts) {
+        ExtendedSftpFileSystemConfigBuilder builder =
+                ExtendedSftpFileSystemConfigBuilder.getInstance();
+        int maxChannels = builder.getMaxChannels(opts);
+        if (maxChannels <= 0) {
+            return null;
+        }
+        return new ConnectionPool<ChannelSftp>(rootName.getFriendlyURI(),
+                builder.getMinIdleChannels(opts), maxChannels,
+                builder.getIdleTimeout(opts), builder.isHealthCheck(opts)) {
+            @Override
+            protected ChannelSftp create() throws FileSystemException {
+                try {
+                    return openChannel();
+                } catch (FileSystemException e) {
+                    throw e;
+                } catch (IOException e) {
+                    throw new FileSystemException(e);
+                }
+            }
+            @Override
+            protected boolean isValid(ChannelSftp channel) {
+                return channel.isConnected() && !channel.isClosed();
+            }
+            @Override
+            protected void destroy(ChannelSftp channel) {
+                channel.disconnect();
+            }
+        };
+    }
+
+    // Opens a new channel (or gets the VFS idle one when not pooling),
+    // reconnecting the session if needed
+    private ChannelSftp openChannel() throws IOException {
+        ChannelSftp channel = super.getChannel();
+        if (outstandingReads > 0) {
+            synchronized (setUpChannels) {
+                if (!setUpChannels.add(channel)) {
+                    return channel;
+                }
+            }
+            try {
+                channel.setBulkRequests(outstandingReads);
+            } catch (JSchException e) {
+                throw new FileSystemException(e);
+            }
+        }
+        return channel;
+    }
+
+    @Override
+    protected ChannelSftp getChannel() throws IOException {
+        if (pool == null) {
+            return openChannel();
+        }
+        return pool.borrow();
+    }
+
+    @Override
+    protected void putChannel(ChannelSftp channel) {
+        if (pool == null) {
+            super.putChannel(channel);
+        } else if (channel.isConnected()) {
+            pool.release(channel);
+        } else {
+            pool.invalidate(channel);
+        }
+    }
+
+    @Override
+    protected void doCloseCommunicationLink() {
+        if (pool != null) {
+            pool.close();
+        }
+        super.doCloseCommunicationLink();
+    }
+}
@@ -0,0 +1,165 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.sftp;
+
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemConfigBuilder;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.provider.sftp.SftpFileSystem;
+
+/**
+ * SFTP file system options specific to {@link ExtendedSftpFileProvider}.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class ExtendedSftpFileSystemConfigBuilder
+        extends FileSystemConfigBuilder {
+
+    private static final ExtendedSftpFileSystemConfigBuilder INSTANCE =
+            new ExtendedSftpFileSystemConfigBuilder();
+
+    private static final String PARAM_MAX_CHANNELS =
+            ExtendedSftpFileSystemConfigBuilder.class.getName()
+                    + ".maxChannels";
+    private static final String PARAM_MIN_IDLE_CHANNELS =
+            ExtendedSftpFileSystemConfigBuilder.class.getName()
+                    + ".minIdleChannels";
+    private static final String PARAM_IDLE_TIMEOUT =
+            ExtendedSftpFileSystemConfigBuilder.class.getName()
+                    + ".idleTimeout";
+    private static final String PARAM_HEALTH_CHECK =
+            ExtendedSftpFileSystemConfigBuilder.class.getName()
+                    + ".healthCheck";
+    private static final String PARAM_OUTSTANDING_READS =
+            ExtendedSftpFileSystemConfigBuilder.class.getName()
+                    + ".outstandingReads";
+
+    /** Default minimum number of idle pooled channels. */
+    public static final int DEFAULT_MIN_IDLE_CHANNELS = 1;
+    /** Default time in milliseconds before idle channels are closed. */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    public static ExtendedSftpFileSystemConfigBuilder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the maximum number of pooled SFTP channels opened on the
+     * SSH session to a server.
+     * Zero (default) does not pool channels: only one idle channel
+     * is kept and others are closed after each use.
+     * @param opts file system options
+     * @param maxChannels maximum number of channels
+     */
+    public void setMaxChannels(FileSystemOptions opts, int maxChannels) {
+        setParam(opts, PARAM_MAX_CHANNELS, maxChannels);
+    }
+    /**
+     * Gets the maximum number of pooled SFTP channels opened on the
+     * SSH session to a server.
+     * @param opts file system options
+     * @return maximum number of channels
+     */
+    public int getMaxChannels(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MAX_CHANNELS, 0);
+    }
+
+    /**
+     * Sets the minimum number of idle pooled channels kept open.
+     * Only applies when closing channels idle for too long:
+     * channels are not opened in advance.
+     * @param opts file system options
+     * @param minIdleChannels minimum number of idle channels
+     */
+    public void setMinIdleChannels(
+            FileSystemOptions opts, int minIdleChannels) {
+        setParam(opts, PARAM_MIN_IDLE_CHANNELS, minIdleChannels);
+    }
+    /**
+     * Gets the minimum number of idle pooled channels kept open.
+     * Default is {@value #DEFAULT_MIN_IDLE_CHANNELS}.
+     * @param opts file system options
+     * @return minimum number of idle channels
+     */
+    public int getMinIdleChannels(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_MIN_IDLE_CHANNELS,
+                DEFAULT_MIN_IDLE_CHANNELS);
+    }
+
+    /**
+     * Sets how long in milliseconds a pooled channel can be idle
+     * before being closed.
+     * @param opts file system options
+     * @param idleTimeout idle timeout in milliseconds
+     */
+    public void setIdleTimeout(FileSystemOptions opts, long idleTimeout) {
+        setParam(opts, PARAM_IDLE_TIMEOUT, idleTimeout);
+    }
+    /**
+     * Gets how long in milliseconds a pooled channel can be idle
+     * before being closed. Default is {@value #DEFAULT_IDLE_TIMEOUT}.
+     * @param opts file system options
+     * @return idle timeout in milliseconds
+     */
+    public long getIdleTimeout(FileSystemOptions opts) {
+        return getLong(opts, PARAM_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Sets whether idle pooled channels are checked to still be
+     * connected before being reused.
+     * @param opts file system options
+     * @param healthCheck <code>true</code> to check channels
+     */
+    public void setHealthCheck(FileSystemOptions opts, boolean healthCheck) {
+        setParam(opts, PARAM_HEALTH_CHECK, healthCheck);
+    }
+    /**
+     * Gets whether idle pooled channels are checked to still be
+     * connected before being reused. Default is <code>true</code>.
+     * @param opts file system options
+     * @return <code>true</code> if checking channels
+     */
+    public boolean isHealthCheck(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_HEALTH_CHECK, true);
+    }
+
+    /**
+     * Sets the maximum number of read requests sent to the server
+     * without waiting for their responses when downloading a file.
+     * Higher values make better use of high-latency links.
+     * Zero (default) uses the SSH library default (16).
+     * @param opts file system options
+     * @param outstandingReads maximum number of outstanding read requests
+     */
+    public void setOutstandingReads(
+            FileSystemOptions opts, int outstandingReads) {
+        setParam(opts, PARAM_OUTSTANDING_READS, outstandingReads);
+    }
+    /**
+     * Gets the maximum number of read requests sent to the server
+     * without waiting for their responses when downloading a file.
+     * @param opts file system options
+     * @return maximum number of outstanding read requests
+     */
+    public int getOutstandingReads(FileSystemOptions opts) {
+        return getInteger(opts, PARAM_OUTSTANDING_READS, 0);
+    }
+
+    @Override
+    protected Class<? extends FileSystem> getConfigClass() {
+        return SftpFileSystem.class;
+    }
+}
@@ -0,0 +1,119 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.zip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.commons.vfs2.RandomAccessContent;
+
+/**
+ * Read-only {@link SeekableByteChannel} over a VFS
+ * {@link RandomAccessContent}.
+ */
+class RandomAccessContentChannel implements SeekableByteChannel {
+
+    private final RandomAccessContent content;
+    private final long size;
+    private long position;
+    private boolean open = true;
+
+    RandomAccessContentChannel(RandomAccessContent content)
+            throws IOException {
+        this.content = content;
+        // read-only, so the size does not change
+        this.size = content.length();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        long remaining = size - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int length = (int) Math.min(dst.remaining(), remaining);
+        if (length == 0) {
+            return 0;
+        }
+        content.seek(position);
+        if (dst.hasArray()) {
+            content.readFully(dst.array(),
+                    dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            content.readFully(bytes);
+            dst.put(bytes);
+        }
+        position += length;
+        return length;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException(
+                    "Position cannot be negative: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            content.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
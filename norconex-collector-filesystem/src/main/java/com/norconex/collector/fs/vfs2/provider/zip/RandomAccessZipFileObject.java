@@ -0,0 +1,101 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.zip;
+
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.provider.AbstractFileObject;
+import org.apache.commons.vfs2.provider.UriParser;
+
+/**
+ * A file in a {@link RandomAccessZipFileSystem}.
+ */
+public class RandomAccessZipFileObject
+        extends AbstractFileObject<RandomAccessZipFileSystem> {
+
+    private final Set<String> children = new HashSet<>();
+    private ZipArchiveEntry entry;
+    private FileType type;
+
+    protected RandomAccessZipFileObject(
+            AbstractFileName name, ZipArchiveEntry entry,
+            RandomAccessZipFileSystem fileSystem, boolean exists) {
+        super(name, fileSystem);
+        if (exists) {
+            setEntry(entry);
+        } else {
+            type = FileType.IMAGINARY;
+        }
+    }
+
+    /**
+     * Sets the entry of a file created without one (e.g., a parent
+     * folder created before its own entry was found).
+     * @param entry ZIP entry
+     */
+    protected void setEntry(ZipArchiveEntry entry) {
+        if (this.entry != null) {
+            return;
+        }
+        if (entry == null || entry.isDirectory()) {
+            type = FileType.FOLDER;
+        } else {
+            type = FileType.FILE;
+        }
+        this.entry = entry;
+    }
+
+    protected void attachChild(FileName childName) {
+        children.add(childName.getBaseName());
+    }
+
+    @Override
+    public boolean isWriteable() throws FileSystemException {
+        return false;
+    }
+
+    @Override
+    protected FileType doGetType() {
+        return type;
+    }
+
+    @Override
+    protected String[] doListChildren() {
+        return UriParser.encode(children.toArray(new String[children.size()]));
+    }
+
+    @Override
+    protected long doGetContentSize() {
+        return entry.getSize();
+    }
+
+    @Override
+    protected long doGetLastModifiedTime() throws Exception {
+        return entry.getTime();
+    }
+
+    @Override
+    protected InputStream doGetInputStream() throws Exception {
+        // VFS guarantees this is only called for files
+        return getFileSystem().getInputStream(entry);
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.zip;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.provider.LayeredFileName;
+import org.apache.commons.vfs2.provider.zip.ZipFileProvider;
+
+/**
+ * A ZIP provider reading archives in place when the file system holding
+ * them supports random access reads (e.g., local, SMB, HDFS).
+ * Only the archive central directory is read to list entries, and
+ * reading an entry seeks directly to it, without making a local copy
+ * of the archive.  Archives on other file systems are handled like
+ * {@link ZipFileProvider} does.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class RandomAccessZipFileProvider extends ZipFileProvider {
+
+    static final Collection<Capability> CAPABILITIES =
+            Collections.unmodifiableCollection(Arrays.asList(
+        Capability.GET_LAST_MODIFIED,
+        Capability.GET_TYPE,
+        Capability.LIST_CHILDREN,
+        Capability.READ_CONTENT,
+        Capability.URI,
+        Capability.COMPRESS,
+        Capability.VIRTUAL
+    ));
+
+    public RandomAccessZipFileProvider() {
+        super();
+    }
+
+    @Override
+    protected FileSystem doCreateFileSystem(String scheme, FileObject file,
+            FileSystemOptions fileSystemOptions) throws FileSystemException {
+        if (!file.getFileSystem().hasCapability(
+                Capability.RANDOM_ACCESS_READ)) {
+            return super.doCreateFileSystem(scheme, file, fileSystemOptions);
+        }
+        final AbstractFileName rootName = new LayeredFileName(
+                scheme, file.getName(), FileName.ROOT_PATH, FileType.FOLDER);
+        return new RandomAccessZipFileSystem(
+                rootName, file, fileSystemOptions);
+    }
+
+    @Override
+    public Collection<Capability> getCapabilities() {
+        return CAPABILITIES;
+    }
+}
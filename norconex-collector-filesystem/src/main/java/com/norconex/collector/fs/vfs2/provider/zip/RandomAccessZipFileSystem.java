@@ -0,0 +1,159 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.zip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.provider.AbstractFileName;
+import org.apache.commons.vfs2.provider.AbstractFileSystem;
+import org.apache.commons.vfs2.provider.UriParser;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+/**
+ * A ZIP file system reading the archive through the parent layer
+ * {@link RandomAccessContent}.
+ */
+public class RandomAccessZipFileSystem extends AbstractFileSystem {
+
+    // Strong references so entries are not lost with a soft files cache
+    private final Map<FileName, RandomAccessZipFileObject> files =
+            new HashMap<>();
+    private ZipFile zipFile;
+
+    protected RandomAccessZipFileSystem(
+            final AbstractFileName rootName,
+            final FileObject parentLayer,
+            final FileSystemOptions fileSystemOptions) {
+        super(rootName, parentLayer, fileSystemOptions);
+    }
+
+    @Override
+    public void init() throws FileSystemException {
+        super.init();
+
+        AbstractFileName rootName = (AbstractFileName) getRootName();
+        files.put(rootName,
+                new RandomAccessZipFileObject(rootName, null, this, true));
+
+        // Only reads the central directory
+        Enumeration<ZipArchiveEntry> entries = getZipFile().getEntries();
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+            AbstractFileName name = (AbstractFileName)
+                    getFileSystemManager().resolveName(
+                            rootName, UriParser.encode(entry.getName()));
+
+            RandomAccessZipFileObject file = files.get(name);
+            if (file != null) {
+                // folder already created as a parent
+                file.setEntry(entry);
+                continue;
+            }
+            file = new RandomAccessZipFileObject(name, entry, this, true);
+            files.put(name, file);
+
+            // Make sure all ancestors exist
+            for (AbstractFileName parentName =
+                    (AbstractFileName) name.getParent(); parentName != null;
+                    parentName = (AbstractFileName) parentName.getParent()) {
+                RandomAccessZipFileObject parent = files.get(parentName);
+                boolean created = parent == null;
+                if (created) {
+                    parent = new RandomAccessZipFileObject(
+                            parentName, null, this, true);
+                    files.put(parentName, parent);
+                }
+                parent.attachChild(file.getName());
+                if (!created) {
+                    break;
+                }
+                file = parent;
+            }
+        }
+    }
+
+    protected synchronized ZipFile getZipFile() throws FileSystemException {
+        if (zipFile == null) {
+            FileObject archive = getParentLayer();
+            RandomAccessContent content = archive.getContent()
+                    .getRandomAccessContent(RandomAccessMode.READ);
+            try {
+                zipFile = new ZipFile(new RandomAccessContentChannel(content),
+                        archive.getName().getURI(), "UTF8", true);
+            } catch (IOException e) {
+                try {
+                    content.close();
+                } catch (IOException ignore) {
+                    // already failing
+                }
+                throw new FileSystemException(
+                        "vfs.provider.zip/open-zip-file.error", e, archive);
+            }
+        }
+        return zipFile;
+    }
+
+    protected InputStream getInputStream(ZipArchiveEntry entry)
+            throws FileSystemException {
+        try {
+            InputStream is = getZipFile().getInputStream(entry);
+            if (is == null) {
+                throw new FileSystemException(
+                        "Unsupported ZIP entry: " + entry.getName());
+            }
+            return is;
+        } catch (IOException e) {
+            throw new FileSystemException(
+                    "Could not read ZIP entry: " + entry.getName(), e);
+        }
+    }
+
+    @Override
+    protected FileObject createFile(final AbstractFileName name)
+            throws FileSystemException {
+        RandomAccessZipFileObject file = files.get(name);
+        if (file != null) {
+            return file;
+        }
+        return new RandomAccessZipFileObject(name, null, this, false);
+    }
+
+    @Override
+    protected void addCapabilities(final Collection<Capability> caps) {
+        caps.addAll(RandomAccessZipFileProvider.CAPABILITIES);
+    }
+
+    @Override
+    protected synchronized void doCloseCommunicationLink() {
+        // Reopened on demand
+        if (zipFile != null) {
+            ZipFile.closeQuietly(zipFile);
+            zipFile = null;
+        }
+    }
+}
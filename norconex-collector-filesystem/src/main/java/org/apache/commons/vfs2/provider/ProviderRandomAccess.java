@@ -0,0 +1,69 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.provider;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.impl.DecoratedFileObject;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+/**
+ * Opens random access content straight from the provider of a file,
+ * instead of through its {@link org.apache.commons.vfs2.FileContent}.
+ * File content keeps track of the random access content opened by
+ * each thread, and gets confused when it is used or closed by
+ * another thread. Content opened here is not tracked and can be
+ * shared by many threads, as long as one thread uses it at a time.
+ * Its user is responsible for closing it.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public final class ProviderRandomAccess {
+
+    private ProviderRandomAccess() {
+        super();
+    }
+
+    /**
+     * Opens random access content of a file from its provider.
+     * @param fileObject the file
+     * @param mode access mode
+     * @return random access content or <code>null</code> if the file
+     *         is not from a standard provider
+     * @throws FileSystemException could not open random access content
+     */
+    public static RandomAccessContent open(
+            FileObject fileObject, RandomAccessMode mode)
+                    throws FileSystemException {
+        FileObject file = fileObject;
+        while (file instanceof DecoratedFileObject) {
+            file = ((DecoratedFileObject) file).getDecoratedFileObject();
+        }
+        if (!(file instanceof AbstractFileObject)) {
+            return null;
+        }
+        AbstractFileObject<?> abstractFile = (AbstractFileObject<?>) file;
+        // attaches the file if not already
+        abstractFile.getType();
+        try {
+            return abstractFile.doGetRandomAccessContent(mode);
+        } catch (Exception e) {
+            throw new FileSystemException(
+                    "vfs.provider/random-access-open-failed.error",
+                    fileObject, e);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +51,7 @@ public class MimeFileObject
 {
     private Part part;
     private Map<String, Object> attributeMap;
+    private PartIndex partIndex;
 
     protected MimeFileObject(final AbstractFileName name,
                             final Part part,
@@ -87,30 +89,56 @@ public class MimeFileObject
 
         if (isMultipart())
         {
-            final Multipart multipart = (Multipart)  part.getContent();
+            final PartIndex index = getPartIndex();
             if (partName.startsWith(MimeFileSystem.NULL_BP_NAME))
             {
                 final int partNumber = Integer.parseInt(partName.substring(MimeFileSystem.NULL_BP_NAME.length()), 10);
-                if (partNumber < 0 || partNumber + 1 > multipart.getCount())
+                if (partNumber < 0 || partNumber + 1 > index.parts.size())
                 {
                     // non existent
                     return null;
                 }
 
-                return multipart.getBodyPart(partNumber);
+                return index.parts.get(partNumber);
             }
 
-            for (int i = 0; i < multipart.getCount(); i++)
+            return index.partsByFileName.get(partName);
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the index of this multipart children, built the first time
+     * it is needed so children are not looked up by scanning all parts
+     * and decoding their headers each time.
+     */
+    private synchronized PartIndex getPartIndex() throws Exception
+    {
+        if (partIndex == null)
+        {
+            final PartIndex index = new PartIndex();
+            final Object container = part.getContent();
+            if (container instanceof Multipart)
             {
-                final Part childPart = multipart.getBodyPart(i);
-                if (partName.equals(childPart.getFileName()))
+                final Multipart multipart = (Multipart) container;
+                final int count = multipart.getCount();
+                for (int i = 0; i < count; i++)
                 {
-                    return childPart;
+                    final Part childPart = multipart.getBodyPart(i);
+                    final String fileName = childPart.getFileName();
+                    index.parts.add(childPart);
+                    index.fileNames.add(fileName);
+                    // first part wins when file names are not unique
+                    if (fileName != null && !index.partsByFileName.containsKey(fileName))
+                    {
+                        index.partsByFileName.put(fileName, childPart);
+                    }
                 }
             }
+            partIndex = index;
         }
-
-        return null;
+        return partIndex;
     }
 
     @Override
@@ -160,29 +188,24 @@ public class MimeFileObject
         final List<MimeFileObject> vfs = new ArrayList<MimeFileObject>();
         if (isMultipart())
         {
-            final Object container = part.getContent();
-            if (container instanceof Multipart)
+            final PartIndex index = getPartIndex();
+            for (int i = 0; i < index.parts.size(); i++)
             {
-                final Multipart multipart = (Multipart) container;
+                final Part part = index.parts.get(i);
 
-                for (int i = 0; i < multipart.getCount(); i++)
+                String filename = UriParser.encode(index.fileNames.get(i));
+                if (filename == null)
                 {
-                    final Part part = multipart.getBodyPart(i);
-
-                    String filename = UriParser.encode(part.getFileName());
-                    if (filename == null)
-                    {
-                        filename = MimeFileSystem.NULL_BP_NAME + i;
-                    }
-
-                    final MimeFileObject fo = (MimeFileObject) FileObjectUtils.getAbstractFileObject(
-                        getFileSystem().resolveFile(
-                            getFileSystem().getFileSystemManager().resolveName(getName(),
-                            filename,
-                            NameScope.CHILD)));
-                    fo.setPart(part);
-                    vfs.add(fo);
+                    filename = MimeFileSystem.NULL_BP_NAME + i;
                 }
+
+                final MimeFileObject fo = (MimeFileObject) FileObjectUtils.getAbstractFileObject(
+                    getFileSystem().resolveFile(
+                        getFileSystem().getFileSystemManager().resolveName(getName(),
+                        filename,
+                        NameScope.CHILD)));
+                fo.setPart(part);
+                vfs.add(fo);
             }
         }
 
@@ -193,6 +216,7 @@ public class MimeFileObject
     {
         this.part = part;
         this.attributeMap = null;
+        this.partIndex = null;
     }
 
     /**
@@ -306,4 +330,14 @@ public class MimeFileObject
     {
         return part.getAllHeaders();
     }
+
+    /**
+     * Parts of a multipart, with their file names.
+     */
+    private static class PartIndex
+    {
+        private final List<Part> parts = new ArrayList<Part>();
+        private final List<String> fileNames = new ArrayList<String>();
+        private final Map<String, Part> partsByFileName = new HashMap<String, Part>();
+    }
 }
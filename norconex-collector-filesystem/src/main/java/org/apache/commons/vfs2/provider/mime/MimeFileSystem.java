@@ -16,6 +16,7 @@
  */
 package org.apache.commons.vfs2.provider.mime;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
@@ -31,8 +32,10 @@ import org.apache.commons.vfs2.FileName;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.Selectors;
 import org.apache.commons.vfs2.provider.AbstractFileName;
 import org.apache.commons.vfs2.provider.AbstractFileSystem;
+import org.apache.commons.vfs2.util.PositionalSharedInputStream;
 import org.apache.commons.vfs2.util.SharedRandomContentInputStream;
 
 /**
@@ -95,7 +98,11 @@ public class MimeFileSystem
 
     private void closeMimeStream() throws IOException
     {
-        if (mimeStream instanceof SharedRandomContentInputStream)
+        if (mimeStream instanceof PositionalSharedInputStream)
+        {
+            ((PositionalSharedInputStream) mimeStream).closeAll();
+        }
+        else if (mimeStream instanceof SharedRandomContentInputStream)
         {
             ((SharedRandomContentInputStream) mimeStream).closeAll();
         }
@@ -105,6 +112,15 @@ public class MimeFileSystem
         }
     }
 
+    /**
+     * Returns the stream parts are read from, <code>null</code> if not
+     * opened yet.
+     */
+    InputStream getMimeStream()
+    {
+        return mimeStream;
+    }
+
     public Part createCommunicationLink() throws IOException, MessagingException
     {
         if (mimeStream != null)
@@ -120,7 +136,16 @@ public class MimeFileSystem
 
         if (parentLayer.getFileSystem().hasCapability(Capability.RANDOM_ACCESS_READ))
         {
-            mimeStream = new SharedRandomContentInputStream(parentLayer);
+            // parts are read concurrently without locking each other
+            mimeStream = new PositionalSharedInputStream(parentLayer);
+        }
+        else if (MimeFileSystemConfigBuilder.getInstance().isStreaming(getFileSystemOptions()))
+        {
+            // parts are read by ranges from a local copy instead of memory
+            final File localFile = parentLayer.getFileSystem().replicateFile(
+                parentLayer, Selectors.SELECT_SELF);
+            mimeStream = new PositionalSharedInputStream(
+                getFileSystemManager().toFileObject(localFile));
         }
         else
         {
@@ -0,0 +1,64 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.provider.mime;
+
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.FileSystemConfigBuilder;
+import org.apache.commons.vfs2.FileSystemOptions;
+
+/**
+ * Configuration options for MIME file systems.
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class MimeFileSystemConfigBuilder extends FileSystemConfigBuilder {
+
+    private static final MimeFileSystemConfigBuilder INSTANCE =
+            new MimeFileSystemConfigBuilder();
+
+    private static final String PARAM_STREAMING =
+            MimeFileSystemConfigBuilder.class.getName() + ".streaming";
+
+    public static MimeFileSystemConfigBuilder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets whether MIME files are always read in streaming mode.
+     * Message parts are then located in a single pass over the
+     * file and their content is read by ranges from it, instead of being
+     * loaded in memory. MIME files on file systems not supporting random
+     * access reads are first replicated locally.
+     * @param opts file system options
+     * @param streaming <code>true</code> to read MIME files in streaming
+     *        mode
+     */
+    public void setStreaming(FileSystemOptions opts, boolean streaming) {
+        setParam(opts, PARAM_STREAMING, streaming);
+    }
+    /**
+     * Gets whether MIME files are always read in streaming mode.
+     * @param opts file system options
+     * @return <code>true</code> if reading MIME files in streaming mode
+     */
+    public boolean isStreaming(FileSystemOptions opts) {
+        return getBoolean(opts, PARAM_STREAMING, false);
+    }
+
+    @Override
+    protected Class<? extends FileSystem> getConfigClass() {
+        return MimeFileSystem.class;
+    }
+}
@@ -0,0 +1,348 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.mail.internet.SharedInputStream;
+
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.provider.ProviderRandomAccess;
+import org.apache.commons.vfs2.provider.local.LocalFileSystem;
+
+/**
+ * A {@link SharedInputStream} over a {@link FileObject} where each stream
+ * (including the ones created with {@link #newStream(long, long)})
+ * reads at its own position without locking other streams, nor opening
+ * content of its own.
+ * Local files are read with positional {@link FileChannel} reads. Other
+ * files must support random access reads and are read with a pool of
+ * {@link RandomAccessContent}, holding only as many as there are
+ * concurrent reads. Pooled content is opened from the file provider
+ * (see {@link ProviderRandomAccess}) since content opened from
+ * {@link org.apache.commons.vfs2.FileContent} must be used and closed by
+ * the thread opening it. Files not from a standard provider are read
+ * without pooling, opening content for each read.
+ * <p>
+ * Like {@link java.io.InputStream} in general, one stream instance
+ * should not be read by many threads at once.  Many streams created from
+ * the same file can.  The file content is released when
+ * {@link #closeAll()} is invoked on any of them.
+ * </p>
+ * @author Pascal Essiembre
+ * @since 2.9.2
+ */
+public class PositionalSharedInputStream
+        extends InputStream implements SharedInputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Source source;
+    private final long start;
+    private final long end;
+    private long pos;
+    private long mark;
+
+    // read-ahead buffer, from the file position "bufferStart"
+    private byte[] buffer;
+    private long bufferStart;
+    private int bufferLength;
+    private boolean closed;
+
+    /**
+     * Creates a stream reading the entire file content.
+     * @param fileObject the file to read
+     * @throws FileSystemException problem accessing the file
+     */
+    public PositionalSharedInputStream(FileObject fileObject)
+            throws FileSystemException {
+        this(createSource(fileObject), 0, -1);
+    }
+
+    private PositionalSharedInputStream(Source source, long start, long end) {
+        super();
+        this.source = source;
+        this.start = start;
+        this.end = end < 0 ? source.size() : Math.min(end, source.size());
+        this.pos = start;
+        this.mark = start;
+    }
+
+    private static Source createSource(FileObject fo)
+            throws FileSystemException {
+        if (fo.getFileSystem() instanceof LocalFileSystem) {
+            // local file systems return the file itself, without copying
+            return new FileChannelSource(fo.getFileSystem().replicateFile(
+                    fo, Selectors.SELECT_SELF));
+        }
+        if (!fo.getFileSystem().hasCapability(
+                Capability.RANDOM_ACCESS_READ)) {
+            throw new FileSystemException("vfs.util/missing-capability.error",
+                    Capability.RANDOM_ACCESS_READ);
+        }
+        return new PooledContentSource(fo);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= end) {
+            return -1;
+        }
+        if (pos < bufferStart || pos >= bufferStart + bufferLength) {
+            fillBuffer();
+        }
+        return buffer[(int) (pos++ - bufferStart)] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= end) {
+            return -1;
+        }
+        int length = (int) Math.min(len, end - pos);
+
+        // from buffer if there
+        if (buffer != null && pos >= bufferStart
+                && pos < bufferStart + bufferLength) {
+            int n = (int) Math.min(length, bufferStart + bufferLength - pos);
+            System.arraycopy(
+                    buffer, (int) (pos - bufferStart), b, off, n);
+            pos += n;
+            return n;
+        }
+        // large reads go straight to the file
+        if (length >= BUFFER_SIZE) {
+            int n = source.read(pos, b, off, length);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+        fillBuffer();
+        return read(b, off, length);
+    }
+
+    private void fillBuffer() throws IOException {
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        int length = (int) Math.min(BUFFER_SIZE, end - pos);
+        int n = source.read(pos, buffer, 0, length);
+        if (n <= 0) {
+            throw new IOException("Unexpected end of file at position "
+                    + pos + " (expected " + end + " bytes).");
+        }
+        bufferStart = pos;
+        bufferLength = n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, end - pos);
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (int) Math.min(Integer.MAX_VALUE, end - pos);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+    @Override
+    public void mark(int readlimit) {
+        mark = pos;
+    }
+    @Override
+    public void reset() throws IOException {
+        ensureOpen();
+        pos = mark;
+    }
+
+    @Override
+    public long getPosition() {
+        return pos - start;
+    }
+
+    @Override
+    public InputStream newStream(long start, long end) {
+        long newStart = this.start + start;
+        long newEnd = end < 0 ? this.end : this.start + end;
+        return new PositionalSharedInputStream(source, newStart, newEnd);
+    }
+
+    /**
+     * Closes this stream only. The file content remains open for
+     * other streams.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        buffer = null;
+    }
+
+    /**
+     * Closes this stream and releases the file content, making all
+     * streams created from the same file unreadable.
+     * @throws IOException could not close file content
+     */
+    public void closeAll() throws IOException {
+        close();
+        source.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+    }
+
+    //--- Sources --------------------------------------------------------------
+
+    private interface Source {
+        // Returns -1 when position is at or past the end.
+        int read(long position, byte[] b, int off, int len)
+                throws IOException;
+        long size();
+        void close() throws IOException;
+    }
+
+    private static class FileChannelSource implements Source {
+        private final FileChannel channel;
+        private final long size;
+        FileChannelSource(File file) throws FileSystemException {
+            try {
+                channel = FileChannel.open(
+                        file.toPath(), StandardOpenOption.READ);
+                size = channel.size();
+            } catch (IOException e) {
+                throw new FileSystemException(e);
+            }
+        }
+        @Override
+        public int read(long position, byte[] b, int off, int len)
+                throws IOException {
+            // positional reads do not change the channel position
+            // and can be made concurrently
+            return channel.read(ByteBuffer.wrap(b, off, len), position);
+        }
+        @Override
+        public long size() {
+            return size;
+        }
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class PooledContentSource implements Source {
+        private static final int MAX_IDLE = 8;
+        private final FileObject fileObject;
+        private final long size;
+        private final Queue<RandomAccessContent> idle =
+                new ConcurrentLinkedQueue<>();
+        private final boolean pooled;
+        private volatile boolean closed;
+        PooledContentSource(FileObject fileObject)
+                throws FileSystemException {
+            this.fileObject = fileObject;
+            this.size = fileObject.getContent().getSize();
+            RandomAccessContent content = ProviderRandomAccess.open(
+                    fileObject, RandomAccessMode.READ);
+            this.pooled = content != null;
+            if (pooled) {
+                idle.offer(content);
+            }
+        }
+        @Override
+        public int read(long position, byte[] b, int off, int len)
+                throws IOException {
+            if (closed) {
+                throw new IOException("File content closed: " + fileObject);
+            }
+            if (position >= size) {
+                return -1;
+            }
+            int length = (int) Math.min(len, size - position);
+            if (!pooled) {
+                // Opened and closed by the same thread
+                RandomAccessContent content = fileObject.getContent()
+                        .getRandomAccessContent(RandomAccessMode.READ);
+                try {
+                    content.seek(position);
+                    content.readFully(b, off, length);
+                } finally {
+                    content.close();
+                }
+                return length;
+            }
+            RandomAccessContent content = idle.poll();
+            if (content == null) {
+                content = ProviderRandomAccess.open(
+                        fileObject, RandomAccessMode.READ);
+            }
+            try {
+                content.seek(position);
+                content.readFully(b, off, length);
+            } catch (IOException e) {
+                content.close();
+                throw e;
+            }
+            if (closed || idle.size() >= MAX_IDLE) {
+                content.close();
+            } else {
+                idle.offer(content);
+            }
+            return length;
+        }
+        @Override
+        public long size() {
+            return size;
+        }
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            RandomAccessContent content;
+            while ((content = idle.poll()) != null) {
+                content.close();
+            }
+        }
+    }
+}
@@ -124,29 +124,18 @@ public class SharedRandomContentInputStream extends BufferedInputStream implemen
         return nskip;
     }
 
-    /*
+    @Override
     public synchronized int available() throws IOException
     {
-        long realFileEnd = fileEnd;
-        if (realFileEnd < 0)
-        {
-            realFileEnd = fo.getContent().getSize();
-        }
-        if (realFileEnd < 0)
+        // the underlying stream is not aware of our end (MIME parts
+        // size is obtained from their stream available bytes)
+        final int available = super.available();
+        if (fileEnd > -1)
         {
-            // we cant determine if there is really something available
-            return 8192;
+            return (int) Math.max(0, Math.min(available, fileEnd - getFilePosition()));
         }
-
-        long available = realFileEnd - (fileStart + pos);
-        if (available > Integer.MAX_VALUE)
-        {
-            return Integer.MAX_VALUE;
-        }
-
-        return (int) available;
+        return available;
     }
-    */
 
     private boolean checkEnd()
     {
@@ -0,0 +1,168 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.checksum.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.fs.doc.FileMetadata;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+import com.norconex.commons.lang.map.Properties;
+
+public class FileContentChecksummerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testParallelSameAsSequential() throws IOException {
+        File file = createFile(1000 * 1000);
+        FileObject fileObject = VFS.getManager().resolveFile(file.toURI());
+
+        FileContentChecksummer c = new FileContentChecksummer();
+        c.setChunkSize(64 * 1024);
+        c.setBufferSize(8 * 1024);
+        String sequential = c.createMetadataChecksum(
+                fileObject, metadata(file), null);
+
+        c.setThreads(4);
+        c.setParallelThreshold(0);
+        String parallel = c.createMetadataChecksum(
+                fileObject, metadata(file), null);
+        Assert.assertEquals(sequential, parallel);
+
+        // Non-local files are read as a stream
+        FileObject ramFile = VFS.getManager().resolveFile("ram:///test.bin");
+        try (OutputStream os = ramFile.getContent().getOutputStream()) {
+            os.write(FileUtils.readFileToByteArray(file));
+        }
+        Assert.assertEquals(StringUtils.substringAfterLast(sequential, "_"),
+                StringUtils.substringAfterLast(c.createMetadataChecksum(
+                        ramFile, metadata(file), null), "_"));
+    }
+
+    @Test
+    public void testTouchedFileUnchanged() throws IOException {
+        File file = createFile(10000);
+        FileObject fileObject = VFS.getManager().resolveFile(file.toURI());
+        FileContentChecksummer c = new FileContentChecksummer();
+
+        String checksum = c.createMetadataChecksum(
+                fileObject, metadata(file), null);
+        BaseCrawlData cached = new BaseCrawlData();
+        cached.setMetaChecksum(checksum);
+
+        Assert.assertTrue(file.setLastModified(
+                file.lastModified() - 60 * 1000));
+        String touched = c.createMetadataChecksum(
+                fileObject, metadata(file), cached);
+        // New date kept so the content is not hashed again next time
+        Assert.assertNotEquals(checksum, touched);
+        Assert.assertTrue(touched.startsWith(
+                file.lastModified() + "_" + file.length() + "_"));
+        Assert.assertTrue(c.isUnmodified(touched, checksum));
+        BaseCrawlData touchedCache = new BaseCrawlData();
+        touchedCache.setMetaChecksum(touched);
+        Assert.assertEquals(touched, c.createMetadataChecksum(
+                fileObject, metadata(file), touchedCache));
+
+        FileUtils.writeStringToFile(file, "modified", "UTF-8", true);
+        Assert.assertFalse(c.isUnmodified(c.createMetadataChecksum(
+                fileObject, metadata(file), cached), checksum));
+        // Without content hash, a new date is a modification
+        Assert.assertFalse(c.isUnmodified("2_10", "1_10"));
+    }
+
+    @Test
+    public void testSampled() throws IOException {
+        File file = createFile(1000 * 1000);
+        FileObject fileObject = VFS.getManager().resolveFile(file.toURI());
+        FileContentChecksummer c = new FileContentChecksummer();
+        c.setSampled(true);
+        c.setSampleCount(3);
+        c.setSampleSize(1024);
+        String checksum = c.createMetadataChecksum(
+                fileObject, metadata(file), null);
+        Assert.assertTrue(checksum.contains("_crc32s-"));
+
+        // Random access reads give the same result
+        FileObject ramFile = VFS.getManager().resolveFile("ram:///big.bin");
+        try (OutputStream os = ramFile.getContent().getOutputStream()) {
+            os.write(FileUtils.readFileToByteArray(file));
+        }
+        Assert.assertEquals(StringUtils.substringAfterLast(checksum, "_"),
+                StringUtils.substringAfterLast(c.createMetadataChecksum(
+                        ramFile, metadata(file), null), "_"));
+
+        // Modified tail is detected
+        byte[] bytes = FileUtils.readFileToByteArray(file);
+        bytes[bytes.length - 1]++;
+        FileUtils.writeByteArrayToFile(file, bytes);
+        Assert.assertNotEquals(StringUtils.substringAfterLast(checksum, "_"),
+                StringUtils.substringAfterLast(c.createMetadataChecksum(
+                        fileObject, metadata(file), null), "_"));
+
+        // Small files are hashed entirely
+        File small = createFile(1000);
+        Assert.assertTrue(c.createMetadataChecksum(
+                VFS.getManager().resolveFile(small.toURI()),
+                metadata(small), null).contains("_crc32-"));
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        FileContentChecksummer c = new FileContentChecksummer();
+        c.setAlgorithm("SHA-256");
+        c.setBufferSize(4096);
+        c.setChunkSize(1024 * 1024);
+        c.setParallelThreshold(10 * 1024 * 1024);
+        c.setThreads(3);
+        c.setSampled(true);
+        c.setSampleCount(5);
+        c.setSampleSize(2048);
+        c.setKeep(true);
+        c.setTargetField("checksum");
+        System.out.println("Writing/Reading this: " + c);
+        XMLConfigurationUtil.assertWriteRead(c);
+    }
+
+    private File createFile(int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(1).nextBytes(bytes);
+        File file = tempFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, bytes);
+        return file;
+    }
+
+    private Properties metadata(File file) {
+        Properties metadata = new Properties();
+        metadata.addLong(
+                FileMetadata.COLLECTOR_LASTMODIFIED, file.lastModified());
+        metadata.addLong(FileMetadata.COLLECTOR_SIZE, file.length());
+        return metadata;
+    }
+}
@@ -0,0 +1,86 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.vfs2.FileName;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemManager;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardResolverTest {
+
+    @Test
+    public void testEachFileInOneShard() throws FileSystemException {
+        int nodeCount = 4;
+        ShardResolver[] nodes = new ShardResolver[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new ShardResolver(i, nodeCount, false,
+                    Collections.<FileName>emptyList());
+        }
+        FileSystemManager manager = VFS.getManager();
+        int count = 10000;
+        int[] perNode = new int[nodeCount];
+        for (int i = 0; i < count; i++) {
+            FileName name = manager.resolveURI("ftp://host/dir/file" + i);
+            int matches = 0;
+            for (int n = 0; n < nodeCount; n++) {
+                if (nodes[n].isInShard(name)) {
+                    matches++;
+                    perNode[n]++;
+                }
+            }
+            Assert.assertEquals(1, matches);
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            Assert.assertTrue("Node " + n + ": " + perNode[n],
+                    perNode[n] > count / nodeCount / 2);
+        }
+    }
+
+    @Test
+    public void testAddingNodeMovesFewFiles() {
+        ShardResolver three = new ShardResolver(0, 3, false, null);
+        ShardResolver four = new ShardResolver(0, 4, false, null);
+        int count = 10000;
+        int moved = 0;
+        for (int i = 0; i < count; i++) {
+            String key = "smb://host/share/file" + i;
+            int node = four.getNode(key);
+            if (node != 3 && node != three.getNode(key)) {
+                moved++;
+            }
+        }
+        // Only files assigned to the new node should move.
+        Assert.assertEquals(0, moved);
+    }
+
+    @Test
+    public void testByTopFolder() throws FileSystemException {
+        FileSystemManager manager = VFS.getManager();
+        ShardResolver resolver = new ShardResolver(0, 3, true, Arrays.asList(
+                manager.resolveURI("ftp://host/root")));
+        Assert.assertEquals("ftp://host/root/a", resolver.getShardKey(
+                manager.resolveURI("ftp://host/root/a/b/c.txt")));
+        Assert.assertEquals("ftp://host/root/a", resolver.getShardKey(
+                manager.resolveURI("ftp://host/root/a")));
+        Assert.assertEquals("ftp://host/other/d.txt", resolver.getShardKey(
+                manager.resolveURI("ftp://host/other/d.txt")));
+    }
+}
@@ -0,0 +1,261 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.fs.data.store.impl.mvstore.CompactMVStoreCrawlDataStoreFactory;
+
+public class StartPathsSeederTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FilesystemCrawlerConfig config;
+    private ICrawlDataStore store;
+    private RecordingCrawler crawler;
+
+    @Before
+    public void setup() throws IOException {
+        config = new FilesystemCrawlerConfig();
+        config.setId("seederCrawler");
+        config.setWorkDir(tempFolder.newFolder());
+        store = new CompactMVStoreCrawlDataStoreFactory()
+                .createCrawlDataStore(config, false);
+        crawler = new RecordingCrawler(config);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void testGzipPathsFileAndBlankLines() throws IOException {
+        File gz = tempFolder.newFile("paths.txt.gz");
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(gz)), StandardCharsets.UTF_8)) {
+            w.write("/a\n\n   \n/b\n");
+        }
+        LineIterator it = StartPathsSeeder.openPathsFile(gz.getPath());
+        try {
+            Assert.assertEquals("/a", it.next());
+        } finally {
+            LineIterator.closeQuietly(it);
+        }
+
+        File plain = tempFolder.newFile("paths.txt");
+        FileUtils.writeStringToFile(
+                plain, "\n/c\n\t\n", StandardCharsets.UTF_8);
+        config.setPathsFiles(new String[] { gz.getPath(), plain.getPath() });
+
+        Assert.assertEquals(3, newSeeder(-1, 1).seed());
+        Assert.assertEquals(3, store.getQueueSize());
+        Assert.assertEquals(3, crawler.queued.size());
+        Assert.assertTrue(store.isQueued("/a"));
+        Assert.assertTrue(store.isQueued("/b"));
+        Assert.assertTrue(store.isQueued("/c"));
+    }
+
+    @Test
+    public void testDuplicatesAcrossSources() throws IOException {
+        config.setPathsFiles(new String[] {
+                writePathsFile("paths1.txt", 0, 1000),
+                writePathsFile("paths2.txt", 500, 1500) });
+        config.setStartPathsProviders(
+                new MockStartPathsProvider(), new MockStartPathsProvider());
+
+        Assert.assertEquals(2006, newSeeder(-1, 3).seed());
+        Assert.assertEquals(1503, store.getQueueSize());
+        Assert.assertEquals(1503, crawler.queued.size());
+    }
+
+    @Test
+    public void testMaxQueueSize() throws IOException {
+        config.setPathsFiles(new String[] {
+                writePathsFile("paths1.txt", 0, 100),
+                writePathsFile("paths2.txt", 100, 200) });
+        StartPathsSeeder seeder = newSeeder(5, 2);
+        seeder.start();
+        Assert.assertEquals(200, consume(seeder));
+        Assert.assertTrue(crawler.maxQueueSize > 0);
+        Assert.assertTrue("Queue went over maximum: " + crawler.maxQueueSize,
+                crawler.maxQueueSize <= 5);
+    }
+
+    @Test
+    public void testCrawlKeptAliveUntilSeeded() throws IOException {
+        config.setPathsFiles(new String[] {
+                writePathsFile("paths.txt", 0, 50) });
+        config.setStartPathsProviders(new IStartPathsProvider() {
+            @Override
+            public Iterator<String> provideStartPaths() {
+                // Slow source so the queue runs empty while seeding
+                return new SlowIterator(Collections.singletonList(
+                        "/slow").iterator(), 500);
+            }
+        });
+        StartPathsSeeder seeder = newSeeder(-1, 2);
+        seeder.start();
+        seeder.awaitQueued();
+        Assert.assertFalse(store.isQueueEmpty());
+
+        Assert.assertEquals(51, consume(seeder));
+        Assert.assertFalse(seeder.isSeeding());
+        Assert.assertTrue(store.isProcessed("/slow"));
+        // Nothing but start paths were ever queued or processed
+        Assert.assertEquals(51, crawler.queued.size());
+        Assert.assertEquals(51, store.getProcessedCount());
+        seeder.stop();
+    }
+
+    @Test(timeout = 30000)
+    public void testStop() throws InterruptedException {
+        config.setStartPathsProviders(new IStartPathsProvider() {
+            @Override
+            public Iterator<String> provideStartPaths() {
+                return new Iterator<String>() {
+                    private long count;
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+                    @Override
+                    public String next() {
+                        return "/endless/" + count++;
+                    }
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        });
+        StartPathsSeeder seeder = newSeeder(10, 1);
+        seeder.start();
+        seeder.awaitQueued();
+        Assert.assertTrue(seeder.isSeeding());
+        seeder.stop();
+        Assert.assertFalse(seeder.isSeeding());
+        Assert.assertEquals(10, store.getQueueSize());
+    }
+
+    private StartPathsSeeder newSeeder(int maxQueueSize, int threads) {
+        return new StartPathsSeeder(crawler, store, maxQueueSize, threads);
+    }
+
+    // Acts as crawler threads until seeding is done and queue is empty.
+    private int consume(StartPathsSeeder seeder) {
+        int count = 0;
+        while (true) {
+            seeder.awaitQueued();
+            ICrawlData data = store.nextQueued();
+            if (data == null) {
+                if (!seeder.isSeeding() && store.isQueueEmpty()) {
+                    return count;
+                }
+                continue;
+            }
+            ((BaseCrawlData) data).setState(CrawlState.NEW);
+            store.processed(data);
+            count++;
+        }
+    }
+
+    private String writePathsFile(String name, int from, int to)
+            throws IOException {
+        File file = tempFolder.newFile(name);
+        try (OutputStream os = new FileOutputStream(file)) {
+            for (int i = from; i < to; i++) {
+                os.write(("/path/" + i + "\n").getBytes(
+                        StandardCharsets.UTF_8));
+            }
+        }
+        return file.getPath();
+    }
+
+    private static class RecordingCrawler extends FilesystemCrawler {
+        private final List<String> queued =
+                Collections.synchronizedList(new ArrayList<String>());
+        private volatile int maxQueueSize;
+        public RecordingCrawler(FilesystemCrawlerConfig config) {
+            super(config);
+        }
+        @Override
+        protected void executeQueuePipeline(
+                ICrawlData crawlData, ICrawlDataStore crawlDataStore) {
+            String ref = crawlData.getReference();
+            if (crawlDataStore.isQueued(ref)
+                    || crawlDataStore.isActive(ref)
+                    || crawlDataStore.isProcessed(ref)) {
+                return;
+            }
+            crawlDataStore.queue(crawlData);
+            queued.add(ref);
+            maxQueueSize = Math.max(
+                    maxQueueSize, crawlDataStore.getQueueSize());
+        }
+    }
+
+    private static class SlowIterator implements Iterator<String> {
+        private final Iterator<String> it;
+        private final long delay;
+        public SlowIterator(Iterator<String> it, long delay) {
+            this.it = it;
+            this.delay = delay;
+        }
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+        @Override
+        public String next() {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return it.next();
+        }
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.crawler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.collector.core.crawler.ICrawlerConfig;
+import com.norconex.collector.fs.FilesystemCollector;
+import com.norconex.collector.fs.FilesystemCollectorConfig;
+import com.norconex.committer.core.CommitterException;
+import com.norconex.committer.core.ICommitter;
+import com.norconex.commons.lang.map.Properties;
+
+public class StreamingArchiveImporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamZipAndTgz() throws IOException {
+        File zip = folder.newFile("docs.zip");
+        try (ZipOutputStream out =
+                new ZipOutputStream(new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("sub/"));
+            out.closeEntry();
+            writeZipEntry(out, "a.txt", "Zipped alpha");
+            writeZipEntry(out, "sub/b.txt", "Zipped beta");
+        }
+        File tgz = folder.newFile("docs.tgz");
+        try (TarArchiveOutputStream out = new TarArchiveOutputStream(
+                new GzipCompressorOutputStream(new FileOutputStream(tgz)))) {
+            writeTarEntry(out, "c.txt", "Tarred gamma");
+            writeTarEntry(out, "sub/d.txt", "Tarred delta");
+        }
+
+        RecordingCommitter committer = new RecordingCommitter();
+        FilesystemCrawlerConfig crawlerCfg = new FilesystemCrawlerConfig();
+        crawlerCfg.setId("archive-crawler");
+        crawlerCfg.setCommitter(committer);
+        crawlerCfg.setArchiveStreaming(true);
+        crawlerCfg.setStartPaths(new String[] {
+                "zip:" + zip.toURI() + "!/", "tgz:" + tgz.toURI() + "!/" });
+        crawlerCfg.setWorkDir(folder.newFolder("work"));
+        FilesystemCollectorConfig config = new FilesystemCollectorConfig();
+        config.setId("archive-collector");
+        config.setLogsDir(crawlerCfg.getWorkDir().getAbsolutePath());
+        config.setProgressDir(crawlerCfg.getWorkDir().getAbsolutePath());
+        config.setCrawlerConfigs(new ICrawlerConfig[] { crawlerCfg });
+        FilesystemCollector collector = new FilesystemCollector(config);
+
+        collector.start(false);
+        // Entries only, archives themselves are not committed
+        Assert.assertEquals(committer.added.keySet().toString(),
+                4, committer.added.size());
+        assertEntry(committer, "zip:", "docs.zip!/a.txt", "Zipped alpha");
+        assertEntry(committer, "zip:", "docs.zip!/sub/b.txt", "Zipped beta");
+        assertEntry(committer, "tgz:", "docs.tgz!/c.txt", "Tarred gamma");
+        assertEntry(committer, "tgz:", "docs.tgz!/sub/d.txt", "Tarred delta");
+
+        // Unchanged archives are not streamed again
+        committer.added.clear();
+        collector.start(false);
+        Assert.assertTrue(committer.added.keySet().toString(),
+                committer.added.isEmpty());
+        Assert.assertTrue(committer.removed.toString(),
+                committer.removed.isEmpty());
+
+        // Entries removed from an archive are removed from the committer,
+        // unchanged ones are not committed again
+        try (ZipOutputStream out =
+                new ZipOutputStream(new FileOutputStream(zip))) {
+            writeZipEntry(out, "sub/b.txt", "Zipped beta");
+        }
+        Assert.assertTrue(zip.setLastModified(
+                zip.lastModified() + TimeUnit.MINUTES.toMillis(1)));
+        collector.start(false);
+        Assert.assertTrue(committer.added.keySet().toString(),
+                committer.added.isEmpty());
+        Assert.assertEquals(1, committer.removed.size());
+        assertRemoved(committer, "zip:", "docs.zip!/a.txt");
+
+        // Entries of a deleted archive are removed from the committer
+        committer.removed.clear();
+        Assert.assertTrue(tgz.delete());
+        collector.start(false);
+        assertRemoved(committer, "tgz:", "docs.tgz!/c.txt");
+        assertRemoved(committer, "tgz:", "docs.tgz!/sub/d.txt");
+        for (String ref : committer.removed) {
+            Assert.assertFalse(ref, ref.startsWith("zip:"));
+        }
+    }
+
+    private void assertRemoved(RecordingCommitter committer,
+            String scheme, String suffix) {
+        for (String ref : committer.removed) {
+            if (ref.startsWith(scheme) && ref.endsWith(suffix)) {
+                return;
+            }
+        }
+        Assert.fail("Entry not removed: " + suffix);
+    }
+
+    private void assertEntry(RecordingCommitter committer,
+            String scheme, String suffix, String content) {
+        for (Map.Entry<String, String> en : committer.added.entrySet()) {
+            if (en.getKey().startsWith(scheme)
+                    && en.getKey().endsWith(suffix)) {
+                Assert.assertTrue(en.getValue(),
+                        en.getValue().contains(content));
+                return;
+            }
+        }
+        Assert.fail("Entry not committed: " + suffix);
+    }
+
+    private void writeZipEntry(ZipOutputStream out, String name,
+            String content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+    private void writeTarEntry(TarArchiveOutputStream out, String name,
+            String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        out.putArchiveEntry(entry);
+        out.write(bytes);
+        out.closeArchiveEntry();
+    }
+
+    private static class RecordingCommitter implements ICommitter {
+        private final Map<String, String> added = new TreeMap<>();
+        private final Set<String> removed = new TreeSet<>();
+        @Override
+        public synchronized void add(String reference, InputStream content,
+                Properties metadata) {
+            try {
+                added.put(reference,
+                        IOUtils.toString(content, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new CommitterException(e);
+            }
+        }
+        @Override
+        public synchronized void remove(
+                String reference, Properties metadata) {
+            removed.add(reference);
+        }
+        @Override
+        public void commit() {
+            // nothing to commit
+        }
+    }
+
+    @Test
+    public void testArchiveReferences() {
+        Assert.assertTrue(StreamingArchiveImporter.isArchiveRoot(
+                "zip:smb://host/share/file.zip!/"));
+        Assert.assertTrue(StreamingArchiveImporter.isArchiveRoot(
+                "tgz:file:///data/file.tgz"));
+        Assert.assertFalse(StreamingArchiveImporter.isArchiveRoot(
+                "zip:smb://host/share/file.zip!/dir/entry.txt"));
+        Assert.assertFalse(StreamingArchiveImporter.isArchiveRoot(
+                "smb://host/share/file.zip"));
+
+        Assert.assertEquals("smb://host/share/file.zip",
+                StreamingArchiveImporter.getArchiveFileReference(
+                        "zip:smb://host/share/file.zip!/"));
+        Assert.assertEquals("file:///data/file.tgz",
+                StreamingArchiveImporter.getArchiveFileReference(
+                        "tgz:file:///data/file.tgz"));
+    }
+}
@@ -0,0 +1,49 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapBloomFilterTest {
+
+    @Test
+    public void testPutAndMightContain() {
+        int count = 100000;
+        OffHeapBloomFilter filter = new OffHeapBloomFilter(count, 0.01);
+        String prefix = "smb://nas01/share/file";
+        int alreadySeen = 0;
+        for (int i = 0; i < count; i++) {
+            if (!filter.put(prefix + i)) {
+                alreadySeen++;
+            }
+        }
+        Assert.assertTrue("Already seen: " + alreadySeen,
+                alreadySeen < count * 0.02);
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(filter.mightContain(prefix + i));
+            Assert.assertFalse(filter.put(prefix + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.mightContain("smb://nas01/share/other" + i)) {
+                falsePositives++;
+            }
+        }
+        // Expected rate is 1%. Allow some margin.
+        Assert.assertTrue("False positives: " + falsePositives,
+                falsePositives < count * 0.02);
+    }
+}
@@ -0,0 +1,167 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.fs.crawler.FilesystemCrawlerConfig;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+import com.norconex.commons.lang.file.ContentType;
+
+public class CompactMVStoreCrawlDataStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FilesystemCrawlerConfig config;
+    private CompactMVStoreCrawlDataStoreFactory factory;
+
+    @Before
+    public void setup() throws IOException {
+        config = new FilesystemCrawlerConfig();
+        config.setId("compactStoreCrawler");
+        config.setWorkDir(tempFolder.newFolder());
+        factory = new CompactMVStoreCrawlDataStoreFactory();
+    }
+
+    @Test
+    public void testQueueAndProcess() {
+        ICrawlDataStore store = factory.createCrawlDataStore(config, false);
+        store.queue(new BaseCrawlData("file:///c"));
+        store.queue(new BaseCrawlData("file:///a"));
+        store.queue(new BaseCrawlData("file:///b"));
+        Assert.assertEquals(3, store.getQueueSize());
+        Assert.assertTrue(store.isQueued("file:///a"));
+
+        // Queue order is insertion order
+        ICrawlData data = store.nextQueued();
+        Assert.assertEquals("file:///c", data.getReference());
+        Assert.assertFalse(store.isQueued("file:///c"));
+        Assert.assertTrue(store.isActive("file:///c"));
+
+        BaseCrawlData processed = (BaseCrawlData) data;
+        processed.setState(CrawlState.NEW);
+        processed.setMetaChecksum("123_456");
+        processed.setContentChecksum("abcdef");
+        processed.setContentType(ContentType.PDF);
+        processed.setCrawlDate(new Date(1000L));
+        processed.setParentRootReference("file:///");
+        store.processed(processed);
+        Assert.assertFalse(store.isActive("file:///c"));
+        Assert.assertTrue(store.isProcessed("file:///c"));
+        Assert.assertEquals(1, store.getProcessedCount());
+
+        BaseCrawlData rejected = (BaseCrawlData) store.nextQueued();
+        rejected.setState(CrawlState.REJECTED);
+        store.processed(rejected);
+        store.close();
+
+        // Valid processed references become the cache on next run
+        store = factory.createCrawlDataStore(config, false);
+        Assert.assertTrue(store.isQueueEmpty());
+        Assert.assertEquals(0, store.getProcessedCount());
+        BaseCrawlData cached = (BaseCrawlData) store.getCached("file:///c");
+        Assert.assertEquals("file:///c", cached.getReference());
+        Assert.assertEquals(CrawlState.NEW, cached.getState());
+        Assert.assertEquals("123_456", cached.getMetaChecksum());
+        Assert.assertEquals("abcdef", cached.getContentChecksum());
+        Assert.assertEquals(ContentType.PDF, cached.getContentType());
+        Assert.assertEquals(new Date(1000L), cached.getCrawlDate());
+        Assert.assertEquals("file:///", cached.getParentRootReference());
+        Assert.assertNull(store.getCached(rejected.getReference()));
+        Assert.assertTrue(store.getCacheIterator().hasNext());
+        store.close();
+    }
+
+    @Test
+    public void testQueueAllNew() {
+        CompactMVStoreCrawlDataStore store = (CompactMVStoreCrawlDataStore)
+                factory.createCrawlDataStore(config, false);
+        store.queue(new BaseCrawlData("file:///dir/queued"));
+        store.queue(new BaseCrawlData("file:///dir/active"));
+        store.nextQueued();
+        Assert.assertEquals(2, store.queueAllNew(Arrays.asList(
+                new BaseCrawlData("file:///dir/queued"),
+                new BaseCrawlData("file:///dir/active"),
+                new BaseCrawlData("file:///dir/new1"),
+                new BaseCrawlData("file:///other/new2"))));
+        Assert.assertEquals(3, store.getQueueSize());
+        store.close();
+    }
+
+    @Test
+    public void testResume() {
+        ICrawlDataStore store = factory.createCrawlDataStore(config, false);
+        store.queue(new BaseCrawlData("file:///a"));
+        store.queue(new BaseCrawlData("file:///b"));
+        store.nextQueued();
+        Assert.assertEquals(1, store.getActiveCount());
+        store.close();
+
+        store = factory.createCrawlDataStore(config, true);
+        Assert.assertEquals(0, store.getActiveCount());
+        Assert.assertEquals(2, store.getQueueSize());
+        Assert.assertEquals("file:///b", store.nextQueued().getReference());
+        Assert.assertEquals("file:///a", store.nextQueued().getReference());
+        Assert.assertNull(store.nextQueued());
+        store.close();
+    }
+
+    @Test
+    public void testReferenceEncoding() throws IOException {
+        MVStore mvStore = new MVStore.Builder().fileName(
+                tempFolder.newFile().getAbsolutePath()).open();
+        ReferenceEncoder encoder = new ReferenceEncoder(mvStore);
+        String[] refs = {
+                "smb://nas01/share/Departments/Finance/2019/a.xlsx",
+                "smb://nas01/share/Departments/Finance/2019/b.xlsx",
+                "smb://nas01/share/Departments/Finance/2019/",
+                "smb://nas01/share/Departments/Finance/2020/a/b.xlsx",
+                "noFolder",
+                "/rootFile.txt",
+        };
+        Assert.assertNull(encoder.encodeIfKnown(refs[0]));
+        for (String ref : refs) {
+            String encoded = encoder.encode(ref);
+            Assert.assertEquals(ref, encoder.decode(encoded));
+            Assert.assertEquals(encoded, encoder.encodeIfKnown(ref));
+        }
+        Assert.assertEquals("0/a.xlsx", encoder.encode(refs[0]));
+        mvStore.close();
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        factory.setCacheSize(32);
+        factory.setCommitDelay(5000);
+        factory.setCommitBufferSize(2048);
+        factory.setCompress(true);
+        System.out.println("Writing/Reading this: " + factory);
+        XMLConfigurationUtil.assertWriteRead(factory);
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.data.store.impl.mvstore;
+
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.norconex.collector.core.data.BaseCrawlData;
+import com.norconex.collector.core.data.CrawlState;
+import com.norconex.collector.core.data.ICrawlData;
+import com.norconex.collector.core.data.store.ICrawlDataStore;
+import com.norconex.collector.core.data.store.ICrawlDataStoreFactory;
+import com.norconex.collector.core.data.store.impl.mvstore.MVStoreCrawlDataStoreFactory;
+import com.norconex.collector.fs.crawler.FilesystemCrawlerConfig;
+
+/**
+ * Compares crawl data store implementations. Only runs when the
+ * "benchmark" system property is <code>true</code>, e.g.:
+ * <pre>
+ * mvn test -Dtest=CrawlDataStoreBenchmarkTest -Dbenchmark=true
+ *          -Dbenchmark.size=1000000
+ * </pre>
+ * MongoDB is not part of the comparison since it needs an external server.
+ */
+public class CrawlDataStoreBenchmarkTest {
+
+    private static final String ROOT =
+            "smb://nas01/share/Departments/Finance/";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private int size;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        size = Integer.getInteger("benchmark.size", 200000);
+    }
+
+    @Test
+    public void testCoreMVStore() throws IOException {
+        run(new MVStoreCrawlDataStoreFactory());
+    }
+
+    @Test
+    public void testCompactMVStore() throws IOException {
+        run(new CompactMVStoreCrawlDataStoreFactory());
+    }
+
+    private void run(ICrawlDataStoreFactory factory) throws IOException {
+        FilesystemCrawlerConfig config = new FilesystemCrawlerConfig();
+        config.setId("benchmark");
+        config.setWorkDir(tempFolder.newFolder());
+        String name = factory.getClass().getSimpleName();
+
+        // First run: everything is new
+        ICrawlDataStore store = factory.createCrawlDataStore(config, false);
+        long start = System.currentTimeMillis();
+        crawl(store);
+        long firstRun = System.currentTimeMillis() - start;
+        store.close();
+
+        // Second run: everything is looked up in cache
+        store = factory.createCrawlDataStore(config, false);
+        start = System.currentTimeMillis();
+        crawl(store);
+        long secondRun = System.currentTimeMillis() - start;
+        store.close();
+
+        System.out.println(name + ": " + size + " references. First run: "
+                + firstRun + "ms. Second run: " + secondRun + "ms. Disk: "
+                + FileUtils.byteCountToDisplaySize(
+                        FileUtils.sizeOfDirectory(config.getWorkDir())));
+    }
+
+    private void crawl(ICrawlDataStore store) {
+        for (int i = 0; i < size; i++) {
+            String ref = ROOT + (i % 1000) + "/2019/report-" + i + ".docx";
+            if (!store.isQueued(ref) && !store.isActive(ref)
+                    && !store.isProcessed(ref)) {
+                store.queue(new BaseCrawlData(ref));
+            }
+        }
+        ICrawlData data;
+        while ((data = store.nextQueued()) != null) {
+            BaseCrawlData fsData = (BaseCrawlData) data;
+            store.getCached(fsData.getReference());
+            fsData.setState(CrawlState.NEW);
+            fsData.setMetaChecksum(System.currentTimeMillis() + "_12345");
+            store.processed(fsData);
+        }
+    }
+}
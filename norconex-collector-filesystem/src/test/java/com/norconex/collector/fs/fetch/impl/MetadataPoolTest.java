@@ -0,0 +1,61 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.fetch.impl;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetadataPoolTest {
+
+    @Test
+    public void testIntern() {
+        String a = new String("principal");
+        String b = new String("principal");
+        Assert.assertSame(a, MetadataPool.intern(a));
+        Assert.assertSame(a, MetadataPool.intern(b));
+        Assert.assertNull(MetadataPool.intern(null));
+    }
+
+    @Test
+    public void testKey() {
+        MetadataPool pool = new MetadataPool("prefix.");
+        String key = pool.key("name");
+        Assert.assertEquals("prefix.name", key);
+        Assert.assertSame(key, pool.key("name"));
+        Assert.assertSame(key, MetadataPool.intern(new String("prefix.name")));
+    }
+
+    @Test
+    public void testUnusedValuesReleased() throws InterruptedException {
+        // Fill with one-off values no longer referenced
+        for (int i = 0; i < 200000; i++) {
+            MetadataPool.intern("one-off-" + i);
+        }
+        WeakReference<String> ref = new WeakReference<>(
+                MetadataPool.intern(new String("released")));
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(ref.get());
+
+        // New values still pooled
+        String c = new String("new-value");
+        Assert.assertSame(c, MetadataPool.intern(c));
+        Assert.assertSame(c, MetadataPool.intern(new String("new-value")));
+    }
+}
@@ -0,0 +1,65 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.option.impl;
+
+import java.io.IOException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileSystemManager;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.norconex.collector.fs.option.IFilesystemOptionsProvider;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+
+public class CachingFilesystemOptionsProviderTest {
+
+    @Test
+    public void testOptionsCachedPerRoot() throws FileSystemException {
+        final int[] calls = new int[1];
+        CachingFilesystemOptionsProvider provider =
+                new CachingFilesystemOptionsProvider(
+                        new IFilesystemOptionsProvider() {
+            @Override
+            public FileSystemOptions getFilesystemOptions(
+                    FileObject fileObject) {
+                calls[0]++;
+                return new FileSystemOptions();
+            }
+        });
+        FileSystemManager manager = VFS.getManager();
+        FileSystemOptions opts1 = provider.getFilesystemOptions(
+                manager.resolveURI("ftp://host1/dir/file1.txt"));
+        FileSystemOptions opts2 = provider.getFilesystemOptions(
+                manager.resolveURI("ftp://host1/other/file2.txt"));
+        FileSystemOptions opts3 = provider.getFilesystemOptions(
+                manager.resolveURI("ftp://host2/dir/file1.txt"));
+        Assert.assertSame(opts1, opts2);
+        Assert.assertNotSame(opts1, opts3);
+        Assert.assertEquals(2, calls[0]);
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        GenericFilesystemOptionsProvider generic =
+                new GenericFilesystemOptionsProvider();
+        generic.setFtpPassiveMode(true);
+        XMLConfigurationUtil.assertWriteRead(
+                new CachingFilesystemOptionsProvider(generic));
+    }
+}
@@ -73,6 +73,16 @@ public class GenericFilesystemOptionsProviderTest {
 
         p.setCmisRepositoryId("repoID");
         p.setCmisXmlTargetField("xmlField");
+        p.setCmisEntryCacheSize(5000);
+        p.setCmisQueryBatchSize(500);
+        p.setCmisAclDisabled(true);
+        p.setCmisMaxTotalConnections(100);
+        p.setCmisMaxConnectionsPerHost(25);
+        p.setCmisConnectionTimeout(1000);
+        p.setCmisSoTimeout(2000);
+        p.setCmisConnectionRequestTimeout(3000);
+        p.setCmisKeepAliveTimeout(4000L);
+        p.setCmisCompressionDisabled(true);
 
         System.out.println("Writing/Reading this: " + p);
         XMLConfigurationUtil.assertWriteRead(p);
@@ -0,0 +1,125 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.throttle.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.norconex.collector.fs.throttle.IHostThrottler.Operation;
+import com.norconex.commons.lang.config.XMLConfigurationUtil;
+
+public class AdaptiveHostThrottlerTest {
+
+    private static final Operation META = Operation.METADATA;
+
+    @Test
+    public void testConcurrencyAdjustments() throws FileSystemException {
+        AdaptiveHostThrottler t = new AdaptiveHostThrottler();
+        t.setMaxConcurrency(4);
+        t.setMaxBackoff(0);
+        t.setLatencyFactor(0);
+        FileObject file = VFS.getManager().resolveFile("ram:///file.txt");
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+
+        // Regular errors do not change the limit
+        t.release(file, META, t.acquire(file), new IOException("Not found"));
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+
+        // File names looking like overload errors are ignored
+        t.release(file, META, t.acquire(file), new FileSystemException(
+                "Could not read \"sftp://host/docs/503.pdf\"."));
+        t.release(file, META, t.acquire(file), new IOException(
+                "Not found: \"/reports/421 service unavailable.txt\""));
+        t.release(file, META, t.acquire(file), new IOException(
+                "Access denied: ftp://host/status%20429/code 503.doc"));
+        t.release(file, META, t.acquire(file),
+                new IOException("Found 503 files"));
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+
+        t.release(file, META, t.acquire(file), new RuntimeException("Wrapper",
+                new IOException("421 Too many connections")));
+        Assert.assertEquals(2, t.getConcurrencyLimit(file));
+        t.release(file, META, t.acquire(file), new IOException(
+                "0xC000009A: STATUS_INSUFFICIENT_RESOURCES"));
+        Assert.assertEquals(1, t.getConcurrencyLimit(file));
+        t.release(file, META, t.acquire(file), new IOException("HTTP 503"));
+        Assert.assertEquals(1, t.getConcurrencyLimit(file));
+
+        for (int i = 0; i < 20; i++) {
+            t.release(file, META, t.acquire(file), null);
+        }
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+        t.release(file, META, t.acquire(file), new IOException(
+                "Could not list \"ftp://host/dir\", reply: 450\n"
+              + "421 Service not available, closing control connection."));
+        Assert.assertEquals(2, t.getConcurrencyLimit(file));
+        t.release(file, META, t.acquire(file), new IOException(
+                "Server returned HTTP response code: 429 for URL: "
+              + "http://host/file"));
+        Assert.assertEquals(1, t.getConcurrencyLimit(file));
+
+        for (int i = 0; i < 20; i++) {
+            t.release(file, META, t.acquire(file), null);
+        }
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+    }
+
+    @Test
+    public void testLatencyPerOperation() throws FileSystemException {
+        AdaptiveHostThrottler t = new AdaptiveHostThrottler();
+        t.setMaxConcurrency(4);
+        t.setMaxBackoff(0);
+        FileObject file = VFS.getManager().resolveFile("ram:///file.txt");
+        for (int i = 0; i < 20; i++) {
+            t.release(file, Operation.LIST, t.acquire(file), null);
+            t.release(file, META, t.acquire(file), null);
+        }
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+
+        // A long download among quick operations does not reduce the limit
+        t.release(file, Operation.CONTENT, started(t, file, 5000), null);
+        for (int i = 0; i < 5; i++) {
+            t.release(file, META, t.acquire(file), null);
+        }
+        Assert.assertEquals(4, t.getConcurrencyLimit(file));
+
+        // An operation much slower than usual for its kind does
+        t.release(file, META, started(t, file, 5000), null);
+        Assert.assertEquals(3, t.getConcurrencyLimit(file));
+    }
+
+    // Token of an operation having started the given time ago
+    private long started(AdaptiveHostThrottler t, FileObject file, long ms) {
+        return t.acquire(file) - TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        AdaptiveHostThrottler t = new AdaptiveHostThrottler();
+        t.setMaxConcurrency(10);
+        t.setMinConcurrency(2);
+        t.setDelay(50);
+        t.setMaxBackoff(60000);
+        t.setLatencyFactor(5.5);
+        t.setOverloadPattern("(?i)busy");
+        XMLConfigurationUtil.assertWriteRead(t);
+    }
+}
@@ -0,0 +1,138 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.impl.DecoratedFileObject;
+import org.apache.commons.vfs2.impl.DefaultFileReplicator;
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachingFileReplicatorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testReuseAndEviction() throws IOException {
+        File srcA = tempFolder.newFile("a.txt");
+        File srcB = tempFolder.newFile("b.txt");
+        FileUtils.writeStringToFile(srcA, "0123456789", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(srcB, "0123456789", StandardCharsets.UTF_8);
+
+        final CachingFileReplicator replicator = new CachingFileReplicator(
+                tempFolder.newFolder("cache"), 15);
+        StandardFileSystemManager manager = new StandardFileSystemManager() {
+            @Override
+            protected DefaultFileReplicator createDefaultFileReplicator() {
+                return replicator;
+            }
+        };
+        manager.init();
+        try {
+            File copyA = replicator.replicateFile(
+                    manager.toFileObject(srcA), Selectors.SELECT_SELF);
+            Assert.assertSame(copyA, replicator.replicateFile(
+                    manager.toFileObject(srcA), Selectors.SELECT_SELF));
+
+            // B exceeds the maximum size, so A gets evicted
+            File copyB = replicator.replicateFile(
+                    manager.toFileObject(srcB), Selectors.SELECT_SELF);
+            Assert.assertTrue(copyB.exists());
+            Assert.assertFalse(copyA.exists());
+
+            // A modified source is replicated again
+            FileUtils.writeStringToFile(
+                    srcB, "abcdef", StandardCharsets.UTF_8);
+            File newCopyB = replicator.replicateFile(
+                    manager.toFileObject(srcB), Selectors.SELECT_SELF);
+            Assert.assertNotEquals(copyB, newCopyB);
+            Assert.assertEquals("abcdef", FileUtils.readFileToString(
+                    newCopyB, StandardCharsets.UTF_8));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testNoLastModifiedTime() throws IOException {
+        File src = tempFolder.newFile("a.txt");
+        FileUtils.writeStringToFile(src, "0123456789", StandardCharsets.UTF_8);
+
+        final CachingFileReplicator replicator = new CachingFileReplicator(
+                tempFolder.newFolder("cache"), 1000);
+        StandardFileSystemManager manager = new StandardFileSystemManager() {
+            @Override
+            protected DefaultFileReplicator createDefaultFileReplicator() {
+                return replicator;
+            }
+        };
+        manager.init();
+        try {
+            FileObject file = new NoLastModifiedFileObject(
+                    manager.toFileObject(src));
+            File copy1 = replicator.replicateFile(file, Selectors.SELECT_SELF);
+            File copy2 = replicator.replicateFile(file, Selectors.SELECT_SELF);
+            Assert.assertNotEquals(copy1, copy2);
+            Assert.assertEquals("0123456789", FileUtils.readFileToString(
+                    copy2, StandardCharsets.UTF_8));
+        } finally {
+            manager.close();
+        }
+    }
+
+    private static class NoLastModifiedFileObject extends DecoratedFileObject {
+        public NoLastModifiedFileObject(FileObject file) {
+            super(file);
+        }
+        @Override
+        public FileContent getContent() throws FileSystemException {
+            final FileContent content = super.getContent();
+            InvocationHandler handler = new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method,
+                        Object[] args) throws Throwable {
+                    if ("getLastModifiedTime".equals(method.getName())) {
+                        throw new FileSystemException(
+                                "Last modified time not supported.");
+                    }
+                    try {
+                        return method.invoke(content, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (FileContent) Proxy.newProxyInstance(
+                    FileContent.class.getClassLoader(),
+                    new Class<?>[] { FileContent.class }, handler);
+        }
+    }
+}
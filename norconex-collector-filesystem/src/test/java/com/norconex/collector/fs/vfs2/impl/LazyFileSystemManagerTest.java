@@ -0,0 +1,56 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.impl;
+
+import java.util.Arrays;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazyFileSystemManagerTest {
+
+    @Test
+    public void testProvidersCreatedOnDemand() throws FileSystemException {
+        LazyFileSystemManager manager =
+                new LazyFileSystemManager(Arrays.asList("ftp"));
+        manager.init();
+        try {
+            // Only initial providers are created
+            Assert.assertTrue(manager.isProviderCreated("file"));
+            Assert.assertTrue(manager.isProviderCreated("ftp"));
+            Assert.assertFalse(manager.isProviderCreated("ram"));
+            Assert.assertFalse(manager.isProviderCreated("zip"));
+
+            // Others are still reported as available
+            Assert.assertTrue(manager.hasProvider("ram"));
+            Assert.assertTrue(Arrays.asList(
+                    manager.getSchemes()).contains("ram"));
+            Assert.assertFalse(manager.isProviderCreated("ram"));
+
+            FileObject file = manager.resolveFile("ram:///dir/file.txt");
+            Assert.assertTrue(manager.isProviderCreated("ram"));
+            Assert.assertFalse(manager.isProviderCreated("zip"));
+            file.createFile();
+            Assert.assertTrue(file.exists());
+
+            Assert.assertEquals("ftp://host/dir/file.txt",
+                    manager.resolveURI("ftp://host/dir/file.txt").getURI());
+        } finally {
+            manager.close();
+        }
+    }
+}
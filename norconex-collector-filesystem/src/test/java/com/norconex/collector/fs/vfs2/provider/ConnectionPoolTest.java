@@ -0,0 +1,141 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConnectionPoolTest {
+
+    @Test
+    public void testReuse() throws FileSystemException {
+        TestPool pool = new TestPool(0, 2, 0);
+        Conn c1 = pool.borrow();
+        pool.release(c1);
+        Assert.assertSame(c1, pool.borrow());
+        Conn c2 = pool.borrow();
+        Assert.assertNotSame(c1, c2);
+        Assert.assertEquals(2, pool.created.get());
+        Assert.assertEquals(2, pool.getTotal());
+        pool.release(c1);
+        pool.release(c2);
+        pool.close();
+        Assert.assertEquals(0, pool.getTotal());
+        Assert.assertTrue(c1.closed && c2.closed);
+    }
+
+    @Test
+    public void testHealthCheck() throws FileSystemException {
+        TestPool pool = new TestPool(0, 2, 0);
+        Conn c1 = pool.borrow();
+        pool.release(c1);
+        c1.broken = true;
+        Conn c2 = pool.borrow();
+        Assert.assertNotSame(c1, c2);
+        Assert.assertTrue(c1.closed);
+        Assert.assertEquals(1, pool.getTotal());
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        TestPool pool = new TestPool(1, 3, 1);
+        Conn c1 = pool.borrow();
+        Conn c2 = pool.borrow();
+        Conn c3 = pool.borrow();
+        pool.release(c1);
+        pool.release(c2);
+        pool.release(c3);
+        Thread.sleep(20);
+        // two oldest evicted, most recent kept as minimum idle
+        Assert.assertSame(c3, pool.borrow());
+        Assert.assertTrue(c1.closed && c2.closed);
+        Assert.assertEquals(1, pool.getTotal());
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        final TestPool pool = new TestPool(0, 3, 0);
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger maxInUse = new AtomicInteger();
+        final List<Throwable> errors =
+                Collections.synchronizedList(new ArrayList<Throwable>());
+        int threads = 10;
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            exec.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20; j++) {
+                            Conn c = pool.borrow();
+                            int n = inUse.incrementAndGet();
+                            synchronized (maxInUse) {
+                                maxInUse.set(Math.max(maxInUse.get(), n));
+                            }
+                            Thread.sleep(1);
+                            inUse.decrementAndGet();
+                            pool.release(c);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        exec.shutdown();
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(3, maxInUse.get());
+        Assert.assertEquals(3, pool.created.get());
+    }
+
+    private static class Conn {
+        private boolean broken;
+        private boolean closed;
+    }
+
+    private static class TestPool extends ConnectionPool<Conn> {
+        private final AtomicInteger created = new AtomicInteger();
+        TestPool(int minIdle, int maxTotal, long idleTimeout) {
+            super("test", minIdle, maxTotal, idleTimeout, true);
+        }
+        @Override
+        protected Conn create() {
+            created.incrementAndGet();
+            return new Conn();
+        }
+        @Override
+        protected boolean isValid(Conn connection) {
+            return !connection.broken;
+        }
+        @Override
+        protected void destroy(Conn connection) {
+            connection.closed = true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.ftp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPListParseEngine;
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.norconex.collector.fs.vfs2.provider.ftp.ExtendedFtpClientWrapper.ExtendedFTPClient;
+
+public class ExtendedFtpClientWrapperTest {
+
+    @Test
+    public void testMlsdListing() throws IOException {
+        MockFTPClient client = new MockFTPClient(true, "MLST");
+        assertNames(client.listFiles("/dir"), "a.txt", "sub");
+        Assert.assertEquals("/dir", client.mlsdPath);
+        Assert.assertEquals(0, client.listCount);
+
+        FTPFile file = client.listFiles("/dir")[0];
+        Assert.assertTrue(file.isFile());
+        Assert.assertEquals(10, file.getSize());
+        // Features only looked up once
+        Assert.assertEquals(1, client.featureChecks);
+        Assert.assertEquals(0, client.listCount);
+    }
+
+    @Test
+    public void testMlsdFeature() throws IOException {
+        MockFTPClient client = new MockFTPClient(true, "MLSD");
+        assertNames(client.listFiles("/dir"), "a.txt", "sub");
+        Assert.assertEquals(0, client.listCount);
+    }
+
+    @Test
+    public void testListWhenMlsdUnsupported() throws IOException {
+        MockFTPClient client = new MockFTPClient(true, "SIZE", "MDTM");
+        assertNames(client.listFiles("/dir"), "b.txt");
+        assertNames(client.listFiles("/dir"), "b.txt");
+        Assert.assertNull(client.mlsdPath);
+        Assert.assertEquals(2, client.listCount);
+        Assert.assertEquals(2, client.featureChecks);
+    }
+
+    @Test
+    public void testListWhenMlsdDisabled() throws IOException {
+        MockFTPClient client = new MockFTPClient(false, "MLST");
+        assertNames(client.listFiles("/dir"), "b.txt");
+        Assert.assertNull(client.mlsdPath);
+        Assert.assertEquals(1, client.listCount);
+        Assert.assertEquals(0, client.featureChecks);
+    }
+
+    private void assertNames(FTPFile[] files, String... expected) {
+        String[] names = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            names[i] = files[i].getName();
+        }
+        Assert.assertArrayEquals(expected, names);
+    }
+
+    private static class MockFTPClient extends ExtendedFTPClient {
+        private final List<String> features;
+        private String mlsdPath;
+        private int featureChecks;
+        private int listCount;
+        MockFTPClient(boolean mlsd, String... features) {
+            super(mlsd);
+            this.features = Arrays.asList(features);
+        }
+        @Override
+        public boolean hasFeature(String feature) {
+            featureChecks++;
+            return features.contains(feature);
+        }
+        @Override
+        public FTPFile[] mlistDir(String pathname) {
+            mlsdPath = pathname;
+            return new FTPFile[] {
+                MLSxEntryParser.parseEntry(
+                        "type=cdir;modify=20230101120000; /dir"),
+                MLSxEntryParser.parseEntry(
+                        "type=pdir;modify=20230101120000; /"),
+                MLSxEntryParser.parseEntry(
+                        "type=file;size=10;modify=20230101120000; a.txt"),
+                null,
+                MLSxEntryParser.parseEntry(
+                        "type=dir;modify=20230101120000; sub"),
+            };
+        }
+        @Override
+        public FTPListParseEngine initiateListParsing(
+                String parserKey, String pathname) throws IOException {
+            listCount++;
+            FTPListParseEngine engine =
+                    new FTPListParseEngine(new UnixFTPEntryParser());
+            engine.readServerList(new ByteArrayInputStream((
+                    "-rw-r--r-- 1 user group 10 Jan 01 12:00 b.txt\r\n")
+                            .getBytes(StandardCharsets.UTF_8)), "UTF-8");
+            return engine;
+        }
+        @Override
+        public InetAddress getRemoteAddress() {
+            return null;
+        }
+    }
+}
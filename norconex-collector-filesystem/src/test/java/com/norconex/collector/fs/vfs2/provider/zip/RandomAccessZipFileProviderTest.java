@@ -0,0 +1,79 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.norconex.collector.fs.vfs2.provider.zip;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.provider.local.DefaultLocalFileProvider;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RandomAccessZipFileProviderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadInPlace() throws IOException {
+        File zip = tempFolder.newFile("test.zip");
+        try (ZipOutputStream out = new ZipOutputStream(
+                new FileOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.write("Entry A".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("dir/sub/b.txt"));
+            out.write("Entry B".getBytes(StandardCharsets.UTF_8));
+        }
+
+        DefaultFileSystemManager manager = new DefaultFileSystemManager();
+        manager.addProvider("file", new DefaultLocalFileProvider());
+        manager.addProvider("zip", new RandomAccessZipFileProvider());
+        manager.init();
+        try {
+            String base = "zip:" + zip.toURI() + "!";
+            FileObject root = manager.resolveFile(base + "/");
+            Assert.assertTrue(root.getFileSystem()
+                    instanceof RandomAccessZipFileSystem);
+            Assert.assertEquals(2, root.getChildren().length);
+
+            FileObject dir = manager.resolveFile(base + "/dir/sub");
+            Assert.assertEquals(FileType.FOLDER, dir.getType());
+
+            FileObject b = manager.resolveFile(base + "/dir/sub/b.txt");
+            Assert.assertEquals(FileType.FILE, b.getType());
+            Assert.assertEquals(7, b.getContent().getSize());
+            try (InputStream is = b.getContent().getInputStream()) {
+                Assert.assertEquals("Entry B",
+                        IOUtils.toString(is, StandardCharsets.UTF_8));
+            }
+
+            Assert.assertFalse(
+                    manager.resolveFile(base + "/missing.txt").exists());
+        } finally {
+            manager.close();
+        }
+    }
+}
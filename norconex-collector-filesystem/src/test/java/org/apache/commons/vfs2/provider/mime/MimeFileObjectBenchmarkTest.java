@@ -0,0 +1,104 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.provider.mime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import javax.activation.DataHandler;
+import javax.mail.Session;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Measures crawling attachments of mail archives having many parts.
+ * Only runs when the "benchmark" system property is <code>true</code>,
+ * e.g.:
+ * <pre>
+ * mvn test -Dtest=MimeFileObjectBenchmarkTest -Dbenchmark=true
+ *          -Dbenchmark.size=1000
+ * </pre>
+ */
+public class MimeFileObjectBenchmarkTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private int size;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        size = Integer.getInteger("benchmark.size", 500);
+    }
+
+    @Test
+    public void testAttachmentsCrawl() throws Exception {
+        File eml = tempFolder.newFile("archive.eml");
+        MimeMessage message =
+                new MimeMessage(Session.getInstance(new Properties()));
+        message.setSubject("Archive with " + size + " attachments");
+        MimeMultipart multipart = new MimeMultipart();
+        for (int i = 0; i < size; i++) {
+            MimeBodyPart file = new MimeBodyPart();
+            file.setDataHandler(new DataHandler(new ByteArrayDataSource(
+                    ("Attachment " + i).getBytes(StandardCharsets.UTF_8),
+                    "text/plain")));
+            file.setFileName("attachment-" + i + ".txt");
+            multipart.addBodyPart(file);
+        }
+        message.setContent(multipart);
+        message.saveChanges();
+        try (OutputStream out = new FileOutputStream(eml)) {
+            message.writeTo(out);
+        }
+
+        StandardFileSystemManager manager = new StandardFileSystemManager();
+        manager.init();
+        try {
+            long start = System.currentTimeMillis();
+            // Resolved by name like crawled references are
+            String base = "mime:" + eml.toURI() + "!/";
+            for (int i = 0; i < size; i++) {
+                FileObject file = manager.resolveFile(
+                        base + "attachment-" + i + ".txt");
+                try (InputStream is = file.getContent().getInputStream()) {
+                    Assert.assertEquals("Attachment " + i,
+                            IOUtils.toString(is, StandardCharsets.UTF_8));
+                }
+            }
+            System.out.println(size + " MIME attachments crawled in "
+                    + (System.currentTimeMillis() - start) + "ms.");
+        } finally {
+            manager.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.provider.mime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+import javax.activation.DataHandler;
+import javax.mail.Session;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemOptions;
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.apache.commons.vfs2.util.PositionalSharedInputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MimeFileSystemTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testStreamingWithoutRandomAccess() throws Exception {
+        byte[] attachment = new byte[100000];
+        for (int i = 0; i < attachment.length; i++) {
+            attachment[i] = (byte) i;
+        }
+
+        // gzip file systems do not support random access reads
+        File gz = tempFolder.newFile("message.eml.gz");
+        MimeMessage message =
+                new MimeMessage(Session.getInstance(new Properties()));
+        message.setSubject("Streaming test");
+        MimeMultipart multipart = new MimeMultipart();
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText("Message body.");
+        multipart.addBodyPart(text);
+        MimeBodyPart file = new MimeBodyPart();
+        file.setDataHandler(new DataHandler(new ByteArrayDataSource(
+                attachment, "application/octet-stream")));
+        file.setFileName("data.bin");
+        multipart.addBodyPart(file);
+        message.setContent(multipart);
+        message.saveChanges();
+        try (OutputStream out =
+                new GZIPOutputStream(new FileOutputStream(gz))) {
+            message.writeTo(out);
+        }
+
+        FileSystemOptions opts = new FileSystemOptions();
+        MimeFileSystemConfigBuilder.getInstance().setStreaming(opts, true);
+        StandardFileSystemManager manager = new StandardFileSystemManager();
+        manager.init();
+        try {
+            String uri = "mime:gz:" + gz.toURI() + "!/message.eml!/";
+            FileObject root = manager.resolveFile(uri, opts);
+            Assert.assertEquals(2, root.getChildren().length);
+
+            FileObject data = root.resolveFile("data.bin");
+            try (InputStream is = data.getContent().getInputStream()) {
+                Assert.assertTrue(Arrays.equals(
+                        attachment, IOUtils.toByteArray(is)));
+            }
+            // Parts read by ranges from a local copy
+            Assert.assertTrue(((MimeFileSystem) root.getFileSystem())
+                    .getMimeStream() instanceof PositionalSharedInputStream);
+
+            // Parts read from a plain stream when not streaming
+            FileObject plainRoot = manager.resolveFile(uri);
+            Assert.assertNotSame(
+                    root.getFileSystem(), plainRoot.getFileSystem());
+            Assert.assertEquals(2, plainRoot.getChildren().length);
+            Assert.assertFalse(((MimeFileSystem) plainRoot.getFileSystem())
+                    .getMimeStream() instanceof PositionalSharedInputStream);
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testPartLookup() throws Exception {
+        File eml = tempFolder.newFile("message.eml");
+        MimeMessage message =
+                new MimeMessage(Session.getInstance(new Properties()));
+        MimeMultipart multipart = new MimeMultipart();
+        MimeBodyPart text = new MimeBodyPart();
+        text.setText("Message body.");
+        multipart.addBodyPart(text);
+        for (int i = 0; i < 3; i++) {
+            MimeBodyPart file = new MimeBodyPart();
+            file.setText("Attachment " + i);
+            file.setFileName("file" + i + ".txt");
+            multipart.addBodyPart(file);
+        }
+        message.setContent(multipart);
+        message.saveChanges();
+        try (OutputStream out = new FileOutputStream(eml)) {
+            message.writeTo(out);
+        }
+
+        StandardFileSystemManager manager = new StandardFileSystemManager();
+        manager.init();
+        try {
+            String base = "mime:" + eml.toURI() + "!/";
+            assertContent("Message body.",
+                    manager.resolveFile(base + "_body_part_0"));
+            assertContent("Attachment 2",
+                    manager.resolveFile(base + "file2.txt"));
+            assertContent("Attachment 1",
+                    manager.resolveFile(base + "_body_part_2"));
+            Assert.assertFalse(
+                    manager.resolveFile(base + "missing.txt").exists());
+            Assert.assertFalse(
+                    manager.resolveFile(base + "_body_part_9").exists());
+        } finally {
+            manager.close();
+        }
+    }
+
+    private void assertContent(String expected, FileObject file)
+            throws Exception {
+        try (InputStream is = file.getContent().getInputStream()) {
+            Assert.assertEquals(expected,
+                    IOUtils.toString(is, StandardCharsets.UTF_8));
+        }
+    }
+}
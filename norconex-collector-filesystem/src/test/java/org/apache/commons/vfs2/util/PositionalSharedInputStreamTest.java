@@ -0,0 +1,175 @@
+/* Copyright 2023 Norconex Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.vfs2.util;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PositionalSharedInputStreamTest {
+
+    private static final int SIZE = 100000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testLocalFile() throws Exception {
+        File file = tempFolder.newFile("data.bin");
+        FileUtils.writeByteArrayToFile(file, data());
+        assertStreams(VFS.getManager().toFileObject(file));
+    }
+
+    @Test
+    public void testRandomAccessFile() throws Exception {
+        FileObject file = VFS.getManager().resolveFile("ram:///data.bin");
+        try (OutputStream os = file.getContent().getOutputStream()) {
+            os.write(data());
+        }
+        assertStreams(file);
+    }
+
+    // Content read by many threads must not remain open for any of them
+    // once closed by yet another thread.
+    @Test
+    public void testRandomAccessContentReleased() throws Exception {
+        final int threads = 8;
+        final FileObject file =
+                VFS.getManager().resolveFile("ram:///released.bin");
+        try (OutputStream os = file.getContent().getOutputStream()) {
+            os.write(data());
+        }
+        final byte[] data = data();
+        final PositionalSharedInputStream root =
+                new PositionalSharedInputStream(file);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // barriers ensure each task runs in a different thread
+            final CyclicBarrier readBarrier = new CyclicBarrier(threads);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int start = i * (SIZE / threads);
+                final int end = start + SIZE / threads;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        readBarrier.await();
+                        try (InputStream is = root.newStream(start, end)) {
+                            return Arrays.equals(
+                                    Arrays.copyOfRange(data, start, end),
+                                    IOUtils.toByteArray(is));
+                        }
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+
+            root.closeAll();
+            Assert.assertFalse(file.getContent().isOpen());
+            final CyclicBarrier checkBarrier = new CyclicBarrier(threads);
+            results.clear();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        checkBarrier.await();
+                        return file.getContent().isOpen();
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertFalse(result.get());
+            }
+        } finally {
+            executor.shutdown();
+            root.closeAll();
+        }
+    }
+
+    private void assertStreams(FileObject file) throws Exception {
+        final byte[] data = data();
+        final PositionalSharedInputStream root =
+                new PositionalSharedInputStream(file);
+        try {
+            // positions and mark/reset
+            Assert.assertEquals(0, root.read());
+            Assert.assertEquals(10, root.skip(10));
+            Assert.assertEquals(11, root.getPosition());
+            root.mark(0);
+            Assert.assertEquals(data[11] & 0xff, root.read());
+            root.reset();
+            Assert.assertEquals(11, root.getPosition());
+
+            // ranges relative to their parent stream
+            InputStream sub = root.newStream(1000, 2000);
+            InputStream subSub =
+                    ((PositionalSharedInputStream) sub).newStream(500, -1);
+            Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(
+                    data, 1500, 2000), IOUtils.toByteArray(subSub)));
+            Assert.assertEquals(1000, sub.available());
+
+            // concurrent reads of many ranges
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                final int start = i * (SIZE / 50);
+                final int end = start + SIZE / 50;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        try (InputStream is = root.newStream(start, end)) {
+                            return Arrays.equals(
+                                    Arrays.copyOfRange(data, start, end),
+                                    IOUtils.toByteArray(is));
+                        }
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+            executor.shutdown();
+        } finally {
+            root.closeAll();
+        }
+    }
+
+    private byte[] data() {
+        byte[] data = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}